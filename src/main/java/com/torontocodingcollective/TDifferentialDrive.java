@@ -1,18 +1,45 @@
 package com.torontocodingcollective;
 
+import com.torontocodingcollective.TInputCurve.TCurveType;
 import com.torontocodingcollective.oi.TStickPosition;
 
 /**
  * This class provides a calculator for a differential drive system.
+ * <p>
+ * The arcade drive speed and rotation inputs are shaped by an input curve
+ * {@link TInputCurve}. The curve type can be changed on each call to the drive
+ * routines {@link #setInputCurve(TCurveType)} without allocating any objects.
+ * <p>
+ * The curvature drive {@link #curvatureDrive(TStickPosition, TStickPosition, boolean, TSpeeds)}
+ * keeps state between loops and must be called every loop while it is used.
  */
 public class TDifferentialDrive {
 
-    private static final double DEFAULT_INPUT_DEADBAND = 0.07;
-    private static final double DEFAULT_MOTOR_DEADBAND = 0.03;
-    private static final double MAX_DEADBAND           = .25;
+    private static final double      DEFAULT_INPUT_DEADBAND = 0.07;
+    private static final double      DEFAULT_MOTOR_DEADBAND = 0.03;
+    private static final double      MAX_DEADBAND           = .25;
 
-    private double              inputDeadband          = 0.0;
-    private double              motorSpeedDeadband     = 0.0;
+    // Curvature drive tuning
+    private static final double      CURVATURE_SENSITIVITY  = 0.9;
+    private static final double      QUICK_STOP_THRESHOLD   = 0.2;
+    private static final double      QUICK_STOP_ALPHA       = 0.1;
+    private static final double      QUICK_STOP_SCALAR      = 2.0;
+    private static final double      NEG_INERTIA_TURN       = 2.5;
+    private static final double      NEG_INERTIA_CLOSE      = 3.0;
+    private static final double      NEG_INERTIA_FAR        = 5.0;
+    private static final double      NEG_INERTIA_FAR_WHEEL  = 0.65;
+
+    private double                   inputDeadband          = 0.0;
+    private double                   motorSpeedDeadband     = 0.0;
+
+    // Input curves compiled for each curve type
+    private final TInputCurve[]      inputCurves            = new TInputCurve[TCurveType.values().length];
+    private TInputCurve              inputCurve;
+
+    // Curvature drive state
+    private double                   previousWheel          = 0.0;
+    private double                   negInertiaAccumulator  = 0.0;
+    private double                   quickStopAccumulator   = 0.0;
 
     public TDifferentialDrive() {
         this(DEFAULT_INPUT_DEADBAND, DEFAULT_MOTOR_DEADBAND);
@@ -41,11 +68,19 @@ public class TDifferentialDrive {
             motorSpeedDeadband = DEFAULT_INPUT_DEADBAND;
         }
         setMotorDeadband(motorSpeedDeadband);
+
+        for (TCurveType curveType : TCurveType.values()) {
+            inputCurves[curveType.ordinal()] = new TInputCurve(curveType);
+        }
+
+        // The piecewise curve is the original drive curve, and is calculated
+        // exactly (not from the table) with no more time than the table lookup
+        setInputCurve(TCurveType.PIECEWISE);
     }
 
-    private TSpeeds arcadeDrive(double speed, double rotation) {
+    private TSpeeds arcadeDrive(double speed, double rotation, TSpeeds motorSpeeds) {
 
-        TSpeeds motorSpeeds = new TSpeeds();
+        motorSpeeds.set(0, 0);
 
         // Check for a speed or rotation greater than the deadband
         if (!(Math.abs(speed) > inputDeadband || Math.abs(rotation) > inputDeadband)) {
@@ -124,10 +159,7 @@ public class TDifferentialDrive {
             rightSpeed = 0;
         }
 
-        motorSpeeds.left = leftSpeed;
-        motorSpeeds.right = rightSpeed;
-
-        return motorSpeeds;
+        return motorSpeeds.set(leftSpeed, rightSpeed);
     }
 
     /**
@@ -147,9 +179,32 @@ public class TDifferentialDrive {
      *         speeds.
      */
     public TSpeeds arcadeDrive(TStickPosition singleStickPosition) {
+        return arcadeDrive(singleStickPosition, new TSpeeds());
+    }
+
+    /**
+     * Arcade Drive
+     * <p>
+     * Calculate the motor speeds required for arcade feel
+     * <p>
+     * NOTE: deadbands will be used for both the input stick position
+     * {@see #setInputDeadband(double)} and the output motor speeds motor speed
+     * {@see #setMotorDeadband(double)}.
+     * 
+     * @param singleStickPostion
+     *            for the stick position to be used in the calculation. If the
+     *            single stick position is {@code null}, then the calculated motor
+     *            speeds will be zero.
+     * @param motorSpeeds
+     *            the TSpeeds object owned by the caller that is set to the
+     *            calculated left and right motor speeds. Reusing the same object
+     *            each loop avoids allocating a new object.
+     * @return the motorSpeeds object
+     */
+    public TSpeeds arcadeDrive(TStickPosition singleStickPosition, TSpeeds motorSpeeds) {
 
         if (singleStickPosition == null) {
-            return new TSpeeds();
+            return motorSpeeds.set(0, 0);
         }
         
         // When driving using a single stick, an axis value of 1, 1 cannot be
@@ -177,7 +232,7 @@ public class TDifferentialDrive {
                 scaledX = magnitude * Math.abs(x/y) * Math.signum(x);
             }
         }
-        return arcadeDrive(scaledY, scaledX);
+        return arcadeDrive(scaledY, scaledX, motorSpeeds);
     }
 
     /**
@@ -204,13 +259,180 @@ public class TDifferentialDrive {
      *         speeds.
      */
     public TSpeeds arcadeDrive(TStickPosition leftStickPosition, TStickPosition rightStickPosition) {
+        return arcadeDrive(leftStickPosition, rightStickPosition, new TSpeeds());
+    }
+
+    /**
+     * Arcade Drive
+     * <p>
+     * Calculate the motor speeds required for arcade feel
+     * <p>
+     * The left stick is used as the speed, and the right stick is used as the
+     * rotation.
+     * <p>
+     * NOTE: deadbands will be used for both the input stick position
+     * {@see #setInputDeadband(double)} and the output motor speeds motor speed
+     * {@see #setMotorDeadband(double)}.
+     * 
+     * @param leftStickPostion
+     *            for the stick position to be used for the speed calculation. If
+     *            the leftStickPosition is {@code null}, then the calculated motor
+     *            speeds will be zero.
+     * @param rightStickPostion
+     *            for the stick position to be used for the rotational calculation.
+     *            If the rightStickPosition is {@code null}, then the calculated
+     *            motor speeds will be zero.
+     * @param motorSpeeds
+     *            the TSpeeds object owned by the caller that is set to the
+     *            calculated left and right motor speeds. Reusing the same object
+     *            each loop avoids allocating a new object.
+     * @return the motorSpeeds object
+     */
+    public TSpeeds arcadeDrive(TStickPosition leftStickPosition, TStickPosition rightStickPosition,
+            TSpeeds motorSpeeds) {
 
         if (leftStickPosition == null || rightStickPosition == null) {
-            return new TSpeeds();
+            return motorSpeeds.set(0, 0);
         }
 
         // By convention the y axis of a joystick is inverted
-        return arcadeDrive(-leftStickPosition.y, rightStickPosition.x);
+        return arcadeDrive(-leftStickPosition.y, rightStickPosition.x, motorSpeeds);
+    }
+
+    /**
+     * Curvature Drive
+     * <p>
+     * Calculate the motor speeds required for a curvature (cheesy) drive feel
+     * <p>
+     * The left stick is used as the throttle, and the right stick sets the
+     * curvature of the path. The rotation is scaled by the throttle so that the
+     * turning radius stays the same at any speed, and the robot does not spin
+     * out at high speed.
+     * <p>
+     * When quick turn is pressed, the robot rotates on the spot using the right
+     * stick. When quick turn is released, the rotation built up during the quick
+     * turn is removed gradually so the robot stops rotating without
+     * overshooting.
+     * <p>
+     * Quick changes in the right stick are amplified (negative inertia) to make
+     * the robot start and stop turning more quickly.
+     * <p>
+     * NOTE: deadbands will be used for both the input stick position
+     * {@see #setInputDeadband(double)} and the output motor speeds motor speed
+     * {@see #setMotorDeadband(double)}. This routine must be called every loop.
+     * 
+     * @param leftStickPostion
+     *            for the stick position to be used for the throttle calculation.
+     *            If the leftStickPosition is {@code null}, then the calculated
+     *            motor speeds will be zero.
+     * @param rightStickPostion
+     *            for the stick position to be used for the curvature calculation.
+     *            If the rightStickPosition is {@code null}, then the calculated
+     *            motor speeds will be zero.
+     * @param quickTurn
+     *            {@code true} to rotate on the spot, {@code false} otherwise
+     * @param motorSpeeds
+     *            the TSpeeds object owned by the caller that is set to the
+     *            calculated left and right motor speeds.
+     * @return the motorSpeeds object
+     */
+    public TSpeeds curvatureDrive(TStickPosition leftStickPosition, TStickPosition rightStickPosition,
+            boolean quickTurn, TSpeeds motorSpeeds) {
+
+        if (leftStickPosition == null || rightStickPosition == null) {
+            return motorSpeeds.set(0, 0);
+        }
+
+        // By convention the y axis of a joystick is inverted
+        double throttle = TUtil.deadband(TUtil.clamp(-leftStickPosition.y, -1.0, 1.0), inputDeadband);
+        double wheel    = TUtil.deadband(TUtil.clamp(rightStickPosition.x, -1.0, 1.0), inputDeadband);
+
+        // Negative inertia: amplify changes in the wheel. Changes back
+        // towards center are amplified more, and more when far from center.
+        double negInertia = wheel - previousWheel;
+        previousWheel = wheel;
+
+        double negInertiaScalar;
+
+        if (wheel * negInertia > 0) {
+            negInertiaScalar = NEG_INERTIA_TURN;
+        } else if (Math.abs(wheel) > NEG_INERTIA_FAR_WHEEL) {
+            negInertiaScalar = NEG_INERTIA_FAR;
+        } else {
+            negInertiaScalar = NEG_INERTIA_CLOSE;
+        }
+
+        negInertiaAccumulator += negInertia * negInertiaScalar;
+        wheel += negInertiaAccumulator;
+
+        negInertiaAccumulator = moveTowardsZero(negInertiaAccumulator, 1.0);
+
+        double angularPower;
+        double overPower;
+
+        if (quickTurn) {
+
+            // Track the rotation while turning on the spot so that it
+            // can be removed when the quick turn is released
+            if (Math.abs(throttle) < QUICK_STOP_THRESHOLD) {
+                quickStopAccumulator = (1 - QUICK_STOP_ALPHA) * quickStopAccumulator
+                        + QUICK_STOP_ALPHA * TUtil.clamp(wheel, -1.0, 1.0) * QUICK_STOP_SCALAR;
+            }
+
+            overPower    = 1.0;
+            angularPower = wheel;
+
+        } else {
+
+            overPower    = 0.0;
+            angularPower = Math.abs(throttle) * wheel * CURVATURE_SENSITIVITY - quickStopAccumulator;
+
+            quickStopAccumulator = moveTowardsZero(quickStopAccumulator, 1.0);
+        }
+
+        double leftSpeed  = throttle + angularPower;
+        double rightSpeed = throttle - angularPower;
+
+        // Keep the ratio of the speeds when a side is over full power.
+        // On quick turn, the other side is reduced by the over power.
+        if (leftSpeed > 1.0) {
+            rightSpeed -= overPower * (leftSpeed - 1.0);
+            leftSpeed   = 1.0;
+        } else if (rightSpeed > 1.0) {
+            leftSpeed  -= overPower * (rightSpeed - 1.0);
+            rightSpeed  = 1.0;
+        } else if (leftSpeed < -1.0) {
+            rightSpeed += overPower * (-1.0 - leftSpeed);
+            leftSpeed   = -1.0;
+        } else if (rightSpeed < -1.0) {
+            leftSpeed  += overPower * (-1.0 - rightSpeed);
+            rightSpeed  = -1.0;
+        }
+
+        leftSpeed  = TUtil.clamp(leftSpeed,  -1.0, 1.0);
+        rightSpeed = TUtil.clamp(rightSpeed, -1.0, 1.0);
+
+        if (Math.abs(leftSpeed) <= motorSpeedDeadband) {
+            leftSpeed = 0;
+        }
+
+        if (Math.abs(rightSpeed) <= motorSpeedDeadband) {
+            rightSpeed = 0;
+        }
+
+        return motorSpeeds.set(leftSpeed, rightSpeed);
+    }
+
+    /**
+     * Reset the curvature drive state
+     * <p>
+     * The curvature drive should be reset when it is started so that the state
+     * from a previous use is not applied.
+     */
+    public void resetCurvatureDrive() {
+        previousWheel         = 0;
+        negInertiaAccumulator = 0;
+        quickStopAccumulator  = 0;
     }
 
     /**
@@ -236,9 +458,39 @@ public class TDifferentialDrive {
      *         speeds.
      */
     public TSpeeds tankDrive(TStickPosition leftStickPosition, TStickPosition rightStickPosition) {
+        return tankDrive(leftStickPosition, rightStickPosition, new TSpeeds());
+    }
+
+    /**
+     * Tank Drive
+     * <p>
+     * Calculate the motor speeds required for tank feel
+     * <p>
+     * The left and right stick Y-axis are used to drive the wheels directly.
+     * <p>
+     * NOTE: deadbands will be used for both the input stick position
+     * {@see #setInputDeadband(double)} and the output motor speeds motor speed
+     * {@see #setMotorDeadband(double)}.
+     * 
+     * @param leftStickPostion
+     *            for the stick position to be used for the left side speed
+     *            calculation. If the leftStickPosition is {@code null}, then the
+     *            calculated motor speeds will be zero.
+     * @param rightStickPostion
+     *            for the stick position to be used for the right side speed
+     *            calculation. If the rightStickPosition is {@code null}, then the
+     *            calculated motor speeds will be zero.
+     * @param motorSpeeds
+     *            the TSpeeds object owned by the caller that is set to the
+     *            calculated left and right motor speeds. Reusing the same object
+     *            each loop avoids allocating a new object.
+     * @return the motorSpeeds object
+     */
+    public TSpeeds tankDrive(TStickPosition leftStickPosition, TStickPosition rightStickPosition,
+            TSpeeds motorSpeeds) {
 
         if (leftStickPosition == null || rightStickPosition == null) {
-            return new TSpeeds();
+            return motorSpeeds.set(0, 0);
         }
 
         double leftSpeed = -leftStickPosition.y;
@@ -252,36 +504,85 @@ public class TDifferentialDrive {
             rightSpeed = 0;
         }
 
-        return new TSpeeds(leftSpeed, rightSpeed);
+        return motorSpeeds.set(leftSpeed, rightSpeed);
     }
 
-    // This routine scales a joystick value to make the
-    // acceleration and turning more smooth. All values that are
-    // less than 0.6 are cut in half, and values above 0.6 are
-    // scaled to be from 0.3 to 1.0.
-    private double scale(double value) {
+    // Move a value towards zero by the step without passing zero
+    private static double moveTowardsZero(double value, double step) {
 
-        if (value > 1.0) {
-            value = 1.0;
+        if (value > step) {
+            return value - step;
         }
 
-        double absValue = Math.abs(value);
+        if (value < -step) {
+            return value + step;
+        }
 
-        if (absValue <= inputDeadband) {
+        return 0;
+    }
+
+    // This routine scales a joystick value using the input
+    // curve to make the acceleration and turning more smooth.
+    private double scale(double value) {
+
+        if (Math.abs(value) <= inputDeadband) {
             return 0;
         }
 
-        if (absValue <= 0.6) {
-            return value / 2;
+        return inputCurve.get(value);
+    }
+
+    /**
+     * Get the input curve type used to shape the arcade drive inputs
+     *
+     * @return {@link TCurveType}, or {@code null} if a custom curve is set
+     */
+    public TCurveType getInputCurveType() {
+
+        for (TCurveType curveType : TCurveType.values()) {
+            if (inputCurves[curveType.ordinal()] == inputCurve) {
+                return curveType;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Set the input curve used to shape the arcade drive inputs
+     * <p>
+     * The curves for each type are compiled when the differential drive is
+     * constructed, so the curve can be changed in each loop without allocating
+     * any objects.
+     *
+     * @param curveType
+     *            {@link TCurveType}. The default curve is
+     *            {@link TCurveType#PIECEWISE}
+     */
+    public void setInputCurve(TCurveType curveType) {
+
+        if (curveType == null) {
+            System.out.println("Invalid input curve type (null). setInputCurve ignored");
+            return;
         }
 
-        // Follow a y=mx + b curve to scale inputs from
-        // 0.6 to 1.0 to outputs of 0.3 to 1.0
-        if (value > 0) {
-            return 0.3 + (value - 0.6) * 7.0 / 4.0;
+        inputCurve = inputCurves[curveType.ordinal()];
+    }
+
+    /**
+     * Set a custom input curve used to shape the arcade drive inputs
+     *
+     * @param inputCurve
+     *            {@link TInputCurve}
+     */
+    public void setInputCurve(TInputCurve inputCurve) {
+
+        if (inputCurve == null) {
+            System.out.println("Invalid input curve (null). setInputCurve ignored");
+            return;
         }
 
-        return -0.3 + (value + 0.6) * 7.0 / 4.0;
+        this.inputCurve = inputCurve;
     }
 
     /**
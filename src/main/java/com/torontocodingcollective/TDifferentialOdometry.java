@@ -0,0 +1,345 @@
+package com.torontocodingcollective;
+
+/**
+ * Odometry for a differential drive.
+ * <p>
+ * The odometry tracks the position and heading of the robot on the field
+ * {@link TPose} from the change in the left and right encoder distances and the
+ * gyro angle in each loop. The heading is taken from the gyro, and the distance
+ * travelled is the average of the left and right distance changes applied at the
+ * average heading over the loop.
+ * <p>
+ * The pose heading is kept separate from the gyro angle so that resetting the
+ * encoders {@link #resetDistances(double, double)} or the gyro
+ * {@link #resetGyroAngle(double)} does not move the pose. Use
+ * {@link #resetPose(double, double, double)} to set the pose (ie. at the start
+ * of autonomous).
+ * <p>
+ * The poses of the last loops are kept in a fixed size history so that a
+ * delayed position measurement (ie. from a vision target) can be applied at the
+ * time it was measured {@link #addPoseMeasurement(double, double, double, long, double)}.
+ * <p>
+ * All storage is allocated when the odometry is constructed and the update
+ * routine does not allocate any objects.
+ */
+public class TDifferentialOdometry {
+
+    /** Default history size (1 second of 20ms loops) */
+    public static final int DEFAULT_HISTORY_SIZE  = 50;
+
+    private double          x                     = 0;
+    private double          y                     = 0;
+
+    // Pose heading = gyro angle + heading offset
+    private double          headingOffset         = 0;
+    private double          gyroAngle             = 0;
+
+    private double          previousLeftDistance  = 0;
+    private double          previousRightDistance = 0;
+
+    // Pose history ring buffer
+    private final long[]    historyTime;
+    private final double[]  historyX;
+    private final double[]  historyY;
+    private final double[]  historyHeading;
+    private int             historyHead           = 0;
+    private int             historyCount          = 0;
+
+    /**
+     * Construct an odometry with the default history size
+     */
+    public TDifferentialOdometry() {
+        this(DEFAULT_HISTORY_SIZE);
+    }
+
+    /**
+     * Construct an odometry
+     *
+     * @param historySize
+     *            the number of poses kept for latency compensation
+     */
+    public TDifferentialOdometry(int historySize) {
+
+        if (historySize < 1) {
+            System.out.println("Invalid odometry history size (" + historySize + "). Default value "
+                    + DEFAULT_HISTORY_SIZE + " used.");
+            historySize = DEFAULT_HISTORY_SIZE;
+        }
+
+        historyTime    = new long[historySize];
+        historyX       = new double[historySize];
+        historyY       = new double[historySize];
+        historyHeading = new double[historySize];
+    }
+
+    /**
+     * Correct the pose with a delayed measurement
+     * <p>
+     * The measurement is compared to the pose at the time of the measurement from
+     * the pose history, and the difference (multiplied by the weight) is added to
+     * the current pose and to the pose history. The heading correction is applied
+     * as an offset and the motion since the measurement is not rotated.
+     *
+     * @param x
+     *            measured x in inches
+     * @param y
+     *            measured y in inches
+     * @param heading
+     *            measured heading in degrees
+     * @param timestamp
+     *            FPGA time of the measurement in microseconds
+     * @param weight
+     *            0 to 1.0 trust in the measurement, 1.0 moves the pose to the
+     *            measurement
+     * @return {@code true} if the measurement was applied, {@code false} if the
+     *         measurement is older than the pose history
+     */
+    public boolean addPoseMeasurement(double x, double y, double heading, long timestamp, double weight) {
+
+        int newer = findHistoryIndex(timestamp);
+
+        if (newer < 0) {
+            return false;
+        }
+
+        weight = TUtil.clamp(weight, 0, 1.0);
+
+        // Interpolate the pose at the measurement time
+        double historicX       = historyX[newer];
+        double historicY       = historyY[newer];
+        double historicHeading = historyHeading[newer];
+
+        if (historyTime[newer] > timestamp) {
+
+            int    older    = getOlderIndex(newer);
+            double fraction = (double) (timestamp - historyTime[older])
+                    / (historyTime[newer] - historyTime[older]);
+
+            historicX       = historyX[older] + (historyX[newer] - historyX[older]) * fraction;
+            historicY       = historyY[older] + (historyY[newer] - historyY[older]) * fraction;
+            historicHeading = historyHeading[older]
+                    + TUtil.angleError(historyHeading[newer], historyHeading[older]) * fraction;
+        }
+
+        double dx       = (x - historicX) * weight;
+        double dy       = (y - historicY) * weight;
+        double dHeading = TUtil.angleError(heading, historicHeading) * weight;
+
+        this.x        += dx;
+        this.y        += dy;
+        headingOffset += dHeading;
+
+        for (int i = 0; i < historyCount; i++) {
+            historyX[i]       += dx;
+            historyY[i]       += dy;
+            historyHeading[i]  = TUtil.wrapAngle(historyHeading[i] + dHeading);
+        }
+
+        return true;
+    }
+
+    /**
+     * Get the pose heading
+     *
+     * @return heading in degrees 0 <= heading < 360
+     */
+    public double getHeading() {
+        return TUtil.wrapAngle(gyroAngle + headingOffset);
+    }
+
+    /**
+     * Get the current pose
+     *
+     * @param pose
+     *            the pose owned by the caller to set to the current pose
+     * @return the pose
+     */
+    public TPose getPose(TPose pose) {
+        return pose.set(x, y, getHeading());
+    }
+
+    /**
+     * Get the pose at a time in the pose history
+     * <p>
+     * The pose is interpolated between the poses in the history.
+     *
+     * @param timestamp
+     *            FPGA time in microseconds
+     * @param pose
+     *            the pose owned by the caller to set to the pose at the time
+     * @return the pose, or {@code null} if the time is older than the pose
+     *         history
+     */
+    public TPose getPoseAt(long timestamp, TPose pose) {
+
+        int newer = findHistoryIndex(timestamp);
+
+        if (newer < 0) {
+            return null;
+        }
+
+        if (historyTime[newer] <= timestamp) {
+            return pose.set(historyX[newer], historyY[newer], historyHeading[newer]);
+        }
+
+        int    older    = getOlderIndex(newer);
+        double fraction = (double) (timestamp - historyTime[older])
+                / (historyTime[newer] - historyTime[older]);
+
+        return pose.set(
+                historyX[older] + (historyX[newer] - historyX[older]) * fraction,
+                historyY[older] + (historyY[newer] - historyY[older]) * fraction,
+                historyHeading[older] + TUtil.angleError(historyHeading[newer], historyHeading[older]) * fraction);
+    }
+
+    /**
+     * Get the x coordinate of the pose
+     *
+     * @return x in inches
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * Get the y coordinate of the pose
+     *
+     * @return y in inches
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * Reset the encoder distances without moving the pose
+     * <p>
+     * This routine must be called when the encoders are reset.
+     *
+     * @param leftDistance
+     *            current left distance in inches
+     * @param rightDistance
+     *            current right distance in inches
+     */
+    public void resetDistances(double leftDistance, double rightDistance) {
+        previousLeftDistance  = leftDistance;
+        previousRightDistance = rightDistance;
+    }
+
+    /**
+     * Reset the gyro angle without changing the pose heading
+     * <p>
+     * This routine must be called when the gyro angle is set.
+     *
+     * @param gyroAngle
+     *            new gyro angle in degrees
+     */
+    public void resetGyroAngle(double gyroAngle) {
+
+        double heading = getHeading();
+
+        this.gyroAngle = gyroAngle;
+        headingOffset  = TUtil.angleError(heading, gyroAngle);
+    }
+
+    /**
+     * Reset the pose and clear the pose history
+     *
+     * @param x
+     *            in inches
+     * @param y
+     *            in inches
+     * @param heading
+     *            in degrees
+     */
+    public void resetPose(double x, double y, double heading) {
+
+        this.x        = x;
+        this.y        = y;
+        headingOffset = TUtil.angleError(heading, gyroAngle);
+
+        historyHead  = 0;
+        historyCount = 0;
+    }
+
+    /**
+     * Update the pose from the encoder distances and gyro angle
+     * <p>
+     * This routine must be called once per loop.
+     *
+     * @param leftDistance
+     *            left encoder distance in inches
+     * @param rightDistance
+     *            right encoder distance in inches
+     * @param gyroAngle
+     *            gyro angle in degrees
+     * @param timestamp
+     *            FPGA time in microseconds
+     */
+    public void update(double leftDistance, double rightDistance, double gyroAngle, long timestamp) {
+
+        double distance = ((leftDistance - previousLeftDistance) + (rightDistance - previousRightDistance)) / 2;
+
+        previousLeftDistance  = leftDistance;
+        previousRightDistance = rightDistance;
+
+        // Apply the distance at the average heading over the loop
+        double previousHeading = getHeading();
+
+        this.gyroAngle = gyroAngle;
+
+        double averageHeading = Math.toRadians(
+                previousHeading + TUtil.angleError(getHeading(), previousHeading) / 2);
+
+        x += distance * Math.cos(averageHeading);
+        y += distance * Math.sin(averageHeading);
+
+        // Add the pose to the history
+        historyTime[historyHead]    = timestamp;
+        historyX[historyHead]       = x;
+        historyY[historyHead]       = y;
+        historyHeading[historyHead] = getHeading();
+
+        historyHead = (historyHead + 1) % historyTime.length;
+
+        if (historyCount < historyTime.length) {
+            historyCount++;
+        }
+    }
+
+    /**
+     * Find the oldest history entry at or after the timestamp that has an entry
+     * at or before the timestamp (or the newest entry if the timestamp is after
+     * the newest entry).
+     *
+     * @return the history index or -1 if the timestamp is not in the history
+     */
+    private int findHistoryIndex(long timestamp) {
+
+        if (historyCount == 0) {
+            return -1;
+        }
+
+        int index = getOlderIndex(historyHead);
+
+        if (historyTime[index] <= timestamp) {
+            return index;
+        }
+
+        for (int i = 1; i < historyCount; i++) {
+
+            int older = getOlderIndex(index);
+
+            if (historyTime[older] <= timestamp) {
+                return index;
+            }
+
+            index = older;
+        }
+
+        return -1;
+    }
+
+    private int getOlderIndex(int index) {
+        return (index + historyTime.length - 1) % historyTime.length;
+    }
+}
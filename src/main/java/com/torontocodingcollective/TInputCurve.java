@@ -0,0 +1,174 @@
+package com.torontocodingcollective;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Input shaping curve for a joystick axis.
+ * <p>
+ * The curve is compiled into a lookup table of {@link #TABLE_SIZE} intervals
+ * over the input range 0 to 1.0, and values are calculated by linear
+ * interpolation between the table entries. The curve is symmetric: negative
+ * inputs return the negative of the curve value for the absolute input. Inputs
+ * outside of the range -1.0 to 1.0 are limited to the range.
+ * <p>
+ * The table is allocated when the curve is constructed. Recompiling the curve
+ * {@link #compile(DoubleUnaryOperator)} and calculating values do not allocate
+ * any objects.
+ * <p>
+ * The {@link TCurveType#LINEAR}, {@link TCurveType#PIECEWISE} and
+ * {@link TCurveType#CUBIC} curves are faster to calculate than to interpolate
+ * from the table, so the curves of those types are calculated directly. The
+ * {@link TCurveType#EXPO} curve and curve functions use the table. The
+ * {@code TInputCurveBenchmark} in the test sources compares the two methods
+ * for each curve type.
+ */
+public class TInputCurve {
+
+    /** The number of intervals in the lookup table */
+    public static final int     TABLE_SIZE   = 256;
+
+    /** Weight of the cubic term in the {@link TCurveType#CUBIC} curve */
+    public static final double  CUBIC_WEIGHT = 0.7;
+
+    /** Exponent of the {@link TCurveType#EXPO} curve */
+    public static final double  EXPO_RATE    = 3.0;
+
+    /**
+     * Input curve types
+     */
+    public enum TCurveType {
+
+        /** Output equals the input */
+        LINEAR,
+
+        /**
+         * Inputs up to 0.6 are cut in half, and inputs from 0.6 to 1.0 are scaled
+         * to outputs of 0.3 to 1.0
+         */
+        PIECEWISE,
+
+        /**
+         * Blend of a cubic and linear curve
+         * {@code CUBIC_WEIGHT * x^3 + (1 - CUBIC_WEIGHT) * x}
+         */
+        CUBIC,
+
+        /** Exponential curve {@code (e^(EXPO_RATE * x) - 1) / (e^EXPO_RATE - 1)} */
+        EXPO;
+    }
+
+    private final double[] table               = new double[TABLE_SIZE + 1];
+
+    // Curve type that is calculated instead of interpolated, or null
+    private TCurveType     calculatedCurveType = null;
+
+    /**
+     * Construct an input curve from a curve function
+     *
+     * @param curve
+     *            function of the absolute input in the range 0 to 1.0 which
+     *            should return a value in the range 0 to 1.0
+     */
+    public TInputCurve(DoubleUnaryOperator curve) {
+        compile(curve);
+    }
+
+    /**
+     * Construct an input curve of the specified type
+     *
+     * @param curveType
+     *            {@link TCurveType}
+     */
+    public TInputCurve(TCurveType curveType) {
+
+        this(getCurveFunction(curveType));
+
+        if (curveType != TCurveType.EXPO) {
+            calculatedCurveType = curveType;
+        }
+    }
+
+    /**
+     * Get the curve function for a curve type
+     *
+     * @param curveType
+     *            {@link TCurveType}
+     * @return function of the absolute input in the range 0 to 1.0
+     */
+    public static DoubleUnaryOperator getCurveFunction(TCurveType curveType) {
+        return x -> calculate(curveType, x);
+    }
+
+    /**
+     * Calculate the curve value of a curve type
+     *
+     * @param curveType
+     *            {@link TCurveType}
+     * @param x
+     *            absolute input in the range 0 to 1.0
+     * @return curve value in the range 0 to 1.0
+     */
+    static double calculate(TCurveType curveType, double x) {
+
+        switch (curveType) {
+
+        case PIECEWISE:
+            return x <= 0.6 ? x / 2 : 0.3 + (x - 0.6) * 7.0 / 4.0;
+
+        case CUBIC:
+            return CUBIC_WEIGHT * x * x * x + (1 - CUBIC_WEIGHT) * x;
+
+        case EXPO:
+            return (Math.exp(EXPO_RATE * x) - 1) / (Math.exp(EXPO_RATE) - 1);
+
+        case LINEAR:
+        default:
+            return x;
+        }
+    }
+
+    /**
+     * Compile a curve function into the lookup table of this curve
+     *
+     * @param curve
+     *            function of the absolute input in the range 0 to 1.0 which
+     *            should return a value in the range 0 to 1.0
+     */
+    public void compile(DoubleUnaryOperator curve) {
+
+        calculatedCurveType = null;
+
+        for (int i = 0; i <= TABLE_SIZE; i++) {
+            table[i] = curve.applyAsDouble((double) i / TABLE_SIZE);
+        }
+    }
+
+    /**
+     * Get the curve value for an input
+     *
+     * @param value
+     *            input in the range -1.0 to 1.0
+     * @return the interpolated curve value with the sign of the input
+     */
+    public double get(double value) {
+
+        double absValue = Math.abs(value);
+
+        double result;
+
+        if (absValue >= 1.0) {
+            result = table[TABLE_SIZE];
+        } else if (calculatedCurveType != null) {
+            result = calculate(calculatedCurveType, absValue);
+        } else {
+
+            double position = absValue * TABLE_SIZE;
+            int    index    = (int) position;
+            double fraction = position - index;
+
+            result = table[index] + (table[index + 1] - table[index]) * fraction;
+        }
+
+        return value < 0 ? -result : result;
+    }
+}
@@ -0,0 +1,44 @@
+package com.torontocodingcollective;
+
+import edu.wpi.first.wpilibj.RobotController;
+
+/**
+ * Loop clock
+ * <p>
+ * The loop clock latches the FPGA time once at the start of each robot loop
+ * {@link #latch()}. All of the control code in the loop (command timers,
+ * traction control, odometry) reads the same time, so the loop can be
+ * reproduced exactly by replaying a data log that records the loop time.
+ * <p>
+ * Until the clock is latched for the first time, the current FPGA time is
+ * returned.
+ * <p>
+ * The loop clock must only be used from the robot main thread.
+ */
+public class TLoopClock {
+
+	private static long loopTime = 0;
+
+	/**
+	 * Get the time latched at the start of the current loop
+	 *
+	 * @return time in FPGA microseconds
+	 */
+	public static long getTime() {
+
+		if (loopTime == 0) {
+			return RobotController.getFPGATime();
+		}
+
+		return loopTime;
+	}
+
+	/**
+	 * Latch the time for the current loop
+	 * <p>
+	 * This routine should be called once at the start of each robot loop.
+	 */
+	public static void latch() {
+		loopTime = RobotController.getFPGATime();
+	}
+}
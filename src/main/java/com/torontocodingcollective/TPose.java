@@ -0,0 +1,50 @@
+package com.torontocodingcollective;
+
+/**
+ * The TPose class represents the position and heading of the robot on the
+ * field.
+ * <p>
+ * The x axis is forward and the y axis is to the right of the robot at a
+ * heading of 0 degrees. The heading is in degrees in the range 0 to 360 and
+ * increases clockwise like the gyro angle.
+ */
+public class TPose {
+
+    /** X coordinate in inches */
+    public double x       = 0.0;
+    /** Y coordinate in inches */
+    public double y       = 0.0;
+    /** Heading in degrees 0 <= heading < 360 */
+    public double heading = 0.0;
+
+    public TPose() {
+    }
+
+    public TPose(double x, double y, double heading) {
+        set(x, y, heading);
+    }
+
+    /**
+     * Set the position and heading of this pose
+     * <p>
+     * Used to reuse a pose object in each loop instead of allocating a new one.
+     *
+     * @param x
+     * @param y
+     * @param heading
+     * @return this pose
+     */
+    public TPose set(double x, double y, double heading) {
+        this.x = x;
+        this.y = y;
+        this.heading = TUtil.wrapAngle(heading);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append('(').append(x).append(',').append(y).append(',').append(heading).append(')');
+        return sb.toString();
+    }
+}
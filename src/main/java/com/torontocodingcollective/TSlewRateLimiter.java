@@ -0,0 +1,145 @@
+package com.torontocodingcollective;
+
+/**
+ * Slew rate and jerk limiter for a motor output.
+ * <p>
+ * The limiter moves its output towards the requested value at no more than the
+ * acceleration rate when the magnitude of the output is increasing, and no more
+ * than the braking rate when the magnitude of the output is decreasing (moving
+ * towards zero). When reversing direction, the braking rate is used until the
+ * output reaches zero, and then the acceleration rate is used.
+ * <p>
+ * An optional jerk limit restricts how quickly the rate of change itself can
+ * change, which smooths the start and end of each ramp.
+ * <p>
+ * The {@link #calculate(double)} routine must be called once each loop. The
+ * limiter does not allocate any objects after construction.
+ */
+public class TSlewRateLimiter {
+
+    private final double period;
+
+    private double accelerationRate;
+    private double brakingRate;
+    private double jerk;
+
+    private double value = 0;
+    private double rate  = 0;
+
+    /**
+     * Slew Rate Limiter
+     *
+     * @param accelerationRate
+     *            the maximum change in output per second when the magnitude of the
+     *            output is increasing. A value of zero disables the limit.
+     * @param brakingRate
+     *            the maximum change in output per second when the magnitude of the
+     *            output is decreasing. A value of zero disables the limit.
+     * @param jerk
+     *            the maximum change in rate per second. A value of zero disables
+     *            the jerk limit.
+     * @param period
+     *            the time between calls to {@link #calculate(double)} in seconds
+     */
+    public TSlewRateLimiter(double accelerationRate, double brakingRate, double jerk, double period) {
+        this.period = period;
+        setLimits(accelerationRate, brakingRate, jerk);
+    }
+
+    /**
+     * Calculate the limited output
+     *
+     * @param input
+     *            the requested output
+     * @return the limited output
+     */
+    public double calculate(double input) {
+
+        double delta = input - value;
+
+        if (delta == 0) {
+            rate = 0;
+            return value;
+        }
+
+        // The output is braking if it is moving towards zero
+        boolean braking = value != 0 && Math.signum(delta) != Math.signum(value);
+
+        double maxRate = braking ? brakingRate : accelerationRate;
+
+        double targetRate = delta / period;
+
+        if (maxRate > 0) {
+            targetRate = TUtil.clamp(targetRate, -maxRate, maxRate);
+        }
+
+        if (jerk > 0) {
+
+            // Limit the rate so that it can be ramped down to zero
+            // at the jerk limit before reaching the requested output.
+            double stoppingRate = Math.sqrt(2.0 * jerk * Math.abs(delta));
+            targetRate = TUtil.clamp(targetRate, -stoppingRate, stoppingRate);
+
+            double maxRateChange = jerk * period;
+            rate = TUtil.clamp(targetRate, rate - maxRateChange, rate + maxRateChange);
+
+        } else {
+
+            rate = targetRate;
+        }
+
+        double step = rate * period;
+
+        // Do not pass the requested value, or pass through zero
+        // at the braking rate.
+        if (Math.abs(step) >= Math.abs(delta)) {
+            value = input;
+            rate  = 0;
+        } else if (braking && Math.signum(value + step) != Math.signum(value)) {
+            value = 0;
+        } else {
+            value += step;
+        }
+
+        return value;
+    }
+
+    /**
+     * Get the current output of the limiter
+     *
+     * @return output
+     */
+    public double get() {
+        return value;
+    }
+
+    /**
+     * Reset the limiter to the specified output with no rate of change
+     *
+     * @param value
+     *            the current output
+     */
+    public void reset(double value) {
+        this.value = value;
+        this.rate  = 0;
+    }
+
+    /**
+     * Set the limits used by this limiter
+     *
+     * @param accelerationRate
+     *            the maximum change in output per second when the magnitude of the
+     *            output is increasing. A value of zero disables the limit.
+     * @param brakingRate
+     *            the maximum change in output per second when the magnitude of the
+     *            output is decreasing. A value of zero disables the limit.
+     * @param jerk
+     *            the maximum change in rate per second. A value of zero disables
+     *            the jerk limit.
+     */
+    public void setLimits(double accelerationRate, double brakingRate, double jerk) {
+        this.accelerationRate = Math.abs(accelerationRate);
+        this.brakingRate      = Math.abs(brakingRate);
+        this.jerk             = Math.abs(jerk);
+    }
+}
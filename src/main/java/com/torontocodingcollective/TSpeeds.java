@@ -2,6 +2,27 @@ package com.torontocodingcollective;
 
 public class TSpeeds {
 
+    /**
+     * Desaturation modes used when a speed is outside the range -1.0 to 1.0
+     */
+    public enum TDesaturationMode {
+
+        /** Each side is clipped to the range separately */
+        CLIP,
+
+        /**
+         * Both sides are scaled by the larger magnitude, which keeps the ratio of
+         * the speeds (and the curvature of the path)
+         */
+        PROPORTIONAL,
+
+        /**
+         * The rotation (half the difference of the speeds) is kept and the
+         * throttle (the average of the speeds) is reduced to fit in the range
+         */
+        ROTATION_PRIORITY;
+    }
+
     public double left  = 0.0;
     public double right = 0.0;
 
@@ -12,4 +33,61 @@ public class TSpeeds {
         this.left = leftSpeed;
         this.right = rightSpeed;
     }
+
+    /**
+     * Set the left and right speeds
+     * <p>
+     * Used to reuse a speeds object in each loop instead of allocating a new one.
+     *
+     * @param leftSpeed
+     * @param rightSpeed
+     * @return this speeds object
+     */
+    public TSpeeds set(double leftSpeed, double rightSpeed) {
+        this.left = leftSpeed;
+        this.right = rightSpeed;
+        return this;
+    }
+
+    /**
+     * Limit the left and right speeds to the range -1.0 to 1.0
+     * <p>
+     * Speeds that are already in range are not changed.
+     *
+     * @param mode
+     *            {@link TDesaturationMode} used when a speed is out of range
+     * @return this speeds object
+     */
+    public TSpeeds desaturate(TDesaturationMode mode) {
+
+        double maxMagnitude = Math.max(Math.abs(left), Math.abs(right));
+
+        if (maxMagnitude <= 1.0) {
+            return this;
+        }
+
+        switch (mode) {
+
+        case PROPORTIONAL:
+            return set(left / maxMagnitude, right / maxMagnitude);
+
+        case ROTATION_PRIORITY:
+
+            double throttle = (left + right) / 2;
+            double rotation = (left - right) / 2;
+
+            if (Math.abs(rotation) >= 1.0) {
+                return set(Math.signum(rotation), -Math.signum(rotation));
+            }
+
+            double maxThrottle = 1.0 - Math.abs(rotation);
+            throttle = TUtil.clamp(throttle, -maxThrottle, maxThrottle);
+
+            return set(throttle + rotation, throttle - rotation);
+
+        case CLIP:
+        default:
+            return set(TUtil.clamp(left, -1.0, 1.0), TUtil.clamp(right, -1.0, 1.0));
+        }
+    }
 }
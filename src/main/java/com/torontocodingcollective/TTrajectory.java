@@ -0,0 +1,304 @@
+package com.torontocodingcollective;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Time parameterized path for a differential drive.
+ * <p>
+ * The trajectory is a list of fixed stride records sampled at a constant time
+ * step. Each record contains the {@link #TIME}, {@link #X}, {@link #Y},
+ * {@link #HEADING}, {@link #VELOCITY} and {@link #CURVATURE} of the path at
+ * that time. The position units are inches, the heading is in degrees (0 to
+ * 360 clockwise like the gyro angle) and the curvature is in degrees per inch.
+ * <p>
+ * Because the time step is constant, the record at a time is found by
+ * division, and the values between records are interpolated. Sampling the
+ * trajectory does not allocate any objects.
+ * <p>
+ * Use {@link TTrajectoryGenerator} to generate a trajectory through a list of
+ * waypoints.
+ * <p>
+ * Trajectories are generated at build time by the {@link TTrajectoryCompiler}
+ * and written to a binary trajectory file {@link #write(File)}. The robot
+ * memory maps the file {@link #load(File)}, so the records are read directly
+ * from the file without parsing it or allocating an object for each record.
+ * <p>
+ * File format (big endian):
+ * <ul>
+ * <li>header: int magic {@link #MAGIC}, int version, int stride, int record
+ * count and double time step
+ * <li>records: {@link #STRIDE} doubles for each record
+ * </ul>
+ */
+public class TTrajectory {
+
+    /** Number of values in each record */
+    public static final int STRIDE    = 6;
+
+    /** Record offset of the time in seconds */
+    public static final int TIME      = 0;
+    /** Record offset of the x coordinate in inches */
+    public static final int X         = 1;
+    /** Record offset of the y coordinate in inches */
+    public static final int Y         = 2;
+    /** Record offset of the heading in degrees */
+    public static final int HEADING   = 3;
+    /** Record offset of the velocity in inches/sec */
+    public static final int VELOCITY  = 4;
+    /** Record offset of the curvature in degrees/inch */
+    public static final int CURVATURE = 5;
+
+    /** Trajectory file magic number "TTRJ" */
+    public static final int    MAGIC          = 0x5454524A;
+
+    public static final int    VERSION        = 1;
+
+    public static final String FILE_EXTENSION = ".traj";
+
+    /** Size of the file header in bytes (a multiple of 8 to align the records) */
+    static final int           HEADER_SIZE    = 24;
+
+    private final DoubleBuffer records;
+    private final int          length;
+    private final double       timeStep;
+
+    /**
+     * Construct a trajectory from the records
+     *
+     * @param records
+     *            the values of the records with {@link #STRIDE} values per record
+     * @param timeStep
+     *            the time between records in seconds
+     */
+    public TTrajectory(double[] records, double timeStep) {
+        this(DoubleBuffer.wrap(records), timeStep);
+    }
+
+    private TTrajectory(DoubleBuffer records, double timeStep) {
+        this.records  = records;
+        this.length   = records.capacity() / STRIDE;
+        this.timeStep = timeStep;
+    }
+
+    /**
+     * Load a trajectory file
+     * <p>
+     * The records are memory mapped and are not read until they are used. The
+     * mapping remains valid after the file is closed.
+     *
+     * @param trajectoryFile
+     *            written by {@link #write(File)}
+     * @return the trajectory
+     * @throws IOException
+     *             if the file cannot be read or is not a trajectory file
+     */
+    public static TTrajectory load(File trajectoryFile) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(trajectoryFile.toPath(), StandardOpenOption.READ)) {
+
+            long size = channel.size();
+
+            if (size < HEADER_SIZE) {
+                throw new IOException(trajectoryFile + " is not a trajectory file");
+            }
+
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException(trajectoryFile + " is not a trajectory file");
+            }
+
+            int version = buffer.getInt();
+
+            if (version != VERSION) {
+                throw new IOException(trajectoryFile + " has unsupported version " + version);
+            }
+
+            int    stride      = buffer.getInt();
+            int    recordCount = buffer.getInt();
+            double timeStep    = buffer.getDouble();
+
+            if (stride != STRIDE || recordCount < 1 || timeStep <= 0
+                    || size != HEADER_SIZE + (long) recordCount * STRIDE * Double.BYTES) {
+                throw new IOException(trajectoryFile + " has an invalid header (stride " + stride
+                        + ", records " + recordCount + ", time step " + timeStep + ")");
+            }
+
+            return new TTrajectory(buffer.asDoubleBuffer(), timeStep);
+        }
+    }
+
+    /**
+     * Get a value of a record
+     *
+     * @param index
+     *            of the record
+     * @param offset
+     *            of the value in the record (ie. {@link #VELOCITY})
+     * @return the value
+     */
+    public double get(int index, int offset) {
+        return records.get(index * STRIDE + offset);
+    }
+
+    /**
+     * Get the curvature at a time
+     *
+     * @param time
+     *            since the start of the trajectory in seconds
+     * @return curvature in degrees/inch, positive for a clockwise turn
+     */
+    public double getCurvature(double time) {
+        return interpolate(time, CURVATURE);
+    }
+
+    /**
+     * Get the number of records in the trajectory
+     *
+     * @return record count
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Get the pose at a time
+     *
+     * @param time
+     *            since the start of the trajectory in seconds
+     * @param pose
+     *            the pose owned by the caller to set to the pose at the time
+     * @return the pose
+     */
+    public TPose getPose(double time, TPose pose) {
+
+        int    index    = getIndex(time);
+        double fraction = getFraction(time, index);
+
+        if (fraction == 0) {
+            return pose.set(get(index, X), get(index, Y), get(index, HEADING));
+        }
+
+        double heading = get(index, HEADING);
+
+        return pose.set(
+                interpolate(index, fraction, X),
+                interpolate(index, fraction, Y),
+                heading + TUtil.angleError(get(index + 1, HEADING), heading) * fraction);
+    }
+
+    /**
+     * Get the time between records
+     *
+     * @return time step in seconds
+     */
+    public double getTimeStep() {
+        return timeStep;
+    }
+
+    /**
+     * Get the total time of the trajectory
+     *
+     * @return time of the last record in seconds
+     */
+    public double getTotalTime() {
+        return get(length - 1, TIME);
+    }
+
+    /**
+     * Get the velocity at a time
+     *
+     * @param time
+     *            since the start of the trajectory in seconds
+     * @return velocity in inches/sec
+     */
+    public double getVelocity(double time) {
+        return interpolate(time, VELOCITY);
+    }
+
+    /**
+     * Write this trajectory to a trajectory file
+     *
+     * @param trajectoryFile
+     *            to write. The parent directories are created if required.
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    public void write(File trajectoryFile) throws IOException {
+
+        File parent = trajectoryFile.getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + length * STRIDE * Double.BYTES);
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(STRIDE);
+        buffer.putInt(length);
+        buffer.putDouble(timeStep);
+
+        for (int i = 0; i < length * STRIDE; i++) {
+            buffer.putDouble(records.get(i));
+        }
+
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(trajectoryFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Get the index of the record at or before the time
+     */
+    private int getIndex(double time) {
+
+        if (time <= 0) {
+            return 0;
+        }
+
+        return Math.min((int) (time / timeStep), length - 1);
+    }
+
+    /**
+     * Get the fraction of the time between the record and the next record
+     */
+    private double getFraction(double time, int index) {
+
+        if (index >= length - 1 || time <= 0) {
+            return 0;
+        }
+
+        return time / timeStep - index;
+    }
+
+    private double interpolate(double time, int offset) {
+
+        int index = getIndex(time);
+
+        return interpolate(index, getFraction(time, index), offset);
+    }
+
+    private double interpolate(int index, double fraction, int offset) {
+
+        double value = get(index, offset);
+
+        if (fraction == 0) {
+            return value;
+        }
+
+        return value + (get(index + 1, offset) - value) * fraction;
+    }
+}
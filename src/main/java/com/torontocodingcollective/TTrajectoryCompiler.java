@@ -0,0 +1,169 @@
+package com.torontocodingcollective;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles path definition files into binary trajectory files.
+ * <p>
+ * The compiler runs on the development computer as part of the build (see the
+ * {@code compileTrajectories} task in {@code build.gradle}) so that the robot
+ * does not generate trajectories at startup. Each path file in the path
+ * directory is generated with the {@link TTrajectoryGenerator} and written to
+ * the output directory with the same name and the
+ * {@link TTrajectory#FILE_EXTENSION}.
+ * <p>
+ * Path file format (one entry per line, {@code #} starts a comment):
+ *
+ * <pre>
+ * maxVelocity                60      # inches/sec
+ * maxAcceleration            60      # inches/sec^2
+ * maxCentripetalAcceleration 50      # inches/sec^2
+ * waypoint   0  0  0                 # x, y in inches and heading in degrees
+ * waypoint 120 60  0
+ * </pre>
+ */
+public class TTrajectoryCompiler {
+
+    /** Path definition file extension */
+    public static final String PATH_FILE_EXTENSION = ".path";
+
+    /**
+     * Compile the path files
+     *
+     * @param args
+     *            the path directory and the output directory
+     */
+    public static void main(String... args) {
+
+        if (args.length != 2) {
+            System.out.println("Usage: TTrajectoryCompiler <path directory> <output directory>");
+            System.exit(1);
+        }
+
+        File pathDirectory   = new File(args[0]);
+        File outputDirectory = new File(args[1]);
+
+        File[] pathFiles = pathDirectory.listFiles((dir, name) -> name.endsWith(PATH_FILE_EXTENSION));
+
+        if (pathFiles == null) {
+            System.out.println("Path directory " + pathDirectory + " not found");
+            System.exit(1);
+        }
+
+        try {
+
+            for (File pathFile : pathFiles) {
+
+                String name = pathFile.getName();
+                name = name.substring(0, name.length() - PATH_FILE_EXTENSION.length());
+
+                File trajectoryFile = new File(outputDirectory, name + TTrajectory.FILE_EXTENSION);
+
+                TTrajectory trajectory = compile(pathFile);
+                trajectory.write(trajectoryFile);
+
+                System.out.println("Compiled " + pathFile + " to " + trajectoryFile
+                        + " (" + trajectory.getLength() + " records, " + trajectory.getTotalTime() + "s)");
+            }
+
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Generate the trajectory of a path file
+     *
+     * @param pathFile
+     *            path definition
+     * @return the trajectory
+     * @throws IOException
+     *             if the file cannot be read, or the path is not valid
+     */
+    public static TTrajectory compile(File pathFile) throws IOException {
+
+        double maxVelocity                = 0;
+        double maxAcceleration            = 0;
+        double maxCentripetalAcceleration = 0;
+
+        List<TPose> waypoints = new ArrayList<>();
+
+        List<String> lines = Files.readAllLines(pathFile.toPath(), StandardCharsets.UTF_8);
+
+        for (int i = 0; i < lines.size(); i++) {
+
+            String line = lines.get(i);
+
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            String[] tokens = line.split("\\s+");
+
+            try {
+
+                switch (tokens[0]) {
+
+                case "maxVelocity":
+                    maxVelocity = parseValues(tokens, 1)[0];
+                    break;
+
+                case "maxAcceleration":
+                    maxAcceleration = parseValues(tokens, 1)[0];
+                    break;
+
+                case "maxCentripetalAcceleration":
+                    maxCentripetalAcceleration = parseValues(tokens, 1)[0];
+                    break;
+
+                case "waypoint":
+                    double[] values = parseValues(tokens, 3);
+                    waypoints.add(new TPose(values[0], values[1], values[2]));
+                    break;
+
+                default:
+                    throw new IllegalArgumentException("unknown entry " + tokens[0]);
+                }
+
+            } catch (IllegalArgumentException e) {
+                throw new IOException(pathFile + " line " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+
+        TTrajectory trajectory = TTrajectoryGenerator.generate(waypoints.toArray(new TPose[0]),
+                maxVelocity, maxAcceleration, maxCentripetalAcceleration);
+
+        if (trajectory == null) {
+            throw new IOException(pathFile + " is not a valid path - see previous message for details");
+        }
+
+        return trajectory;
+    }
+
+    private static double[] parseValues(String[] tokens, int count) {
+
+        if (tokens.length != count + 1) {
+            throw new IllegalArgumentException(tokens[0] + " requires " + count + " value(s)");
+        }
+
+        double[] values = new double[count];
+
+        for (int i = 0; i < count; i++) {
+            values[i] = Double.parseDouble(tokens[i + 1]);
+        }
+
+        return values;
+    }
+}
@@ -0,0 +1,203 @@
+package com.torontocodingcollective;
+
+/**
+ * Generates a {@link TTrajectory} through a list of waypoints.
+ * <p>
+ * The path between each pair of waypoints is a cubic Hermite spline that
+ * leaves and arrives at the waypoint headings. The velocity along the path is
+ * limited by the max velocity, the max centripetal acceleration in the turns,
+ * and the max acceleration and deceleration. The trajectory starts and ends at
+ * rest.
+ * <p>
+ * The waypoint coordinates are the same as {@link TPose}: x is forward, y is
+ * to the right and the heading increases clockwise.
+ * <p>
+ * NOTE: Generating a trajectory allocates the path arrays and can take a long
+ * time on the roboRIO. Compile the trajectories at build time with the
+ * {@link TTrajectoryCompiler}, or generate them before the match, not in the
+ * robot loop.
+ */
+public class TTrajectoryGenerator {
+
+    /** Time between the trajectory records in seconds (one robot loop) */
+    public static final double TIME_STEP           = 0.02;
+
+    /** Number of path points calculated on each spline segment */
+    public static final int    SAMPLES_PER_SEGMENT = 200;
+
+    // Length of the spline tangents as a fraction of the waypoint spacing
+    private static final double TANGENT_SCALE      = 1.2;
+
+    /**
+     * Generate a trajectory
+     *
+     * @param waypoints
+     *            at least 2 waypoints (x, y in inches and heading in degrees)
+     * @param maxVelocity
+     *            in inches/sec
+     * @param maxAcceleration
+     *            the acceleration and deceleration in inches/sec<sup>2</sup>
+     * @param maxCentripetalAcceleration
+     *            the acceleration in the turns in inches/sec<sup>2</sup>
+     * @return the trajectory, or {@code null} if the parameters are invalid
+     */
+    public static TTrajectory generate(TPose[] waypoints,
+            double maxVelocity, double maxAcceleration, double maxCentripetalAcceleration) {
+
+        if (waypoints == null || waypoints.length < 2) {
+            System.out.println("A trajectory requires at least 2 waypoints");
+            return null;
+        }
+
+        if (maxVelocity <= 0 || maxAcceleration <= 0 || maxCentripetalAcceleration <= 0) {
+            System.out.println("Invalid trajectory constraints. The max velocity (" + maxVelocity
+                    + "), acceleration (" + maxAcceleration
+                    + ") and centripetal acceleration (" + maxCentripetalAcceleration
+                    + ") must be positive.");
+            return null;
+        }
+
+        int pointCount = (waypoints.length - 1) * SAMPLES_PER_SEGMENT + 1;
+
+        double[] x         = new double[pointCount];
+        double[] y         = new double[pointCount];
+        double[] heading   = new double[pointCount];
+        double[] curvature = new double[pointCount];
+        double[] velocity  = new double[pointCount];
+        double[] time      = new double[pointCount];
+
+        // Calculate the path points on each spline
+        int point = 0;
+
+        for (int segment = 0; segment < waypoints.length - 1; segment++) {
+
+            TPose start = waypoints[segment];
+            TPose end   = waypoints[segment + 1];
+
+            double tangentLength = TANGENT_SCALE * Math.hypot(end.x - start.x, end.y - start.y);
+
+            double startTangentX = tangentLength * Math.cos(Math.toRadians(start.heading));
+            double startTangentY = tangentLength * Math.sin(Math.toRadians(start.heading));
+            double endTangentX   = tangentLength * Math.cos(Math.toRadians(end.heading));
+            double endTangentY   = tangentLength * Math.sin(Math.toRadians(end.heading));
+
+            // The first point of each segment is the last point of the
+            // previous segment
+            for (int i = segment == 0 ? 0 : 1; i <= SAMPLES_PER_SEGMENT; i++) {
+
+                double t  = (double) i / SAMPLES_PER_SEGMENT;
+                double t2 = t * t;
+                double t3 = t2 * t;
+
+                // Hermite basis functions and their derivatives
+                double h00 = 2 * t3 - 3 * t2 + 1;
+                double h10 = t3 - 2 * t2 + t;
+                double h01 = -2 * t3 + 3 * t2;
+                double h11 = t3 - t2;
+
+                double d00 = 6 * t2 - 6 * t;
+                double d10 = 3 * t2 - 4 * t + 1;
+                double d01 = -6 * t2 + 6 * t;
+                double d11 = 3 * t2 - 2 * t;
+
+                double dd00 = 12 * t - 6;
+                double dd10 = 6 * t - 4;
+                double dd01 = -12 * t + 6;
+                double dd11 = 6 * t - 2;
+
+                x[point] = h00 * start.x + h10 * startTangentX + h01 * end.x + h11 * endTangentX;
+                y[point] = h00 * start.y + h10 * startTangentY + h01 * end.y + h11 * endTangentY;
+
+                double dx  = d00 * start.x + d10 * startTangentX + d01 * end.x + d11 * endTangentX;
+                double dy  = d00 * start.y + d10 * startTangentY + d01 * end.y + d11 * endTangentY;
+                double ddx = dd00 * start.x + dd10 * startTangentX + dd01 * end.x + dd11 * endTangentX;
+                double ddy = dd00 * start.y + dd10 * startTangentY + dd01 * end.y + dd11 * endTangentY;
+
+                double speed = Math.hypot(dx, dy);
+
+                if (speed == 0) {
+                    // Coincident waypoints
+                    heading[point]   = start.heading;
+                    curvature[point] = 0;
+                } else {
+                    heading[point]   = TUtil.wrapAngle(Math.toDegrees(Math.atan2(dy, dx)));
+                    curvature[point] = (dx * ddy - dy * ddx) / (speed * speed * speed);
+                }
+
+                point++;
+            }
+        }
+
+        // Limit the velocity in the turns and then limit the acceleration
+        // forwards from the start and the deceleration backwards from the end
+        for (int i = 0; i < pointCount; i++) {
+
+            velocity[i] = maxVelocity;
+
+            if (curvature[i] != 0) {
+                velocity[i] = Math.min(maxVelocity, Math.sqrt(maxCentripetalAcceleration / Math.abs(curvature[i])));
+            }
+        }
+
+        velocity[0] = 0;
+
+        for (int i = 1; i < pointCount; i++) {
+            double distance = Math.hypot(x[i] - x[i - 1], y[i] - y[i - 1]);
+            velocity[i] = Math.min(velocity[i],
+                    Math.sqrt(velocity[i - 1] * velocity[i - 1] + 2 * maxAcceleration * distance));
+        }
+
+        velocity[pointCount - 1] = 0;
+
+        for (int i = pointCount - 2; i >= 0; i--) {
+            double distance = Math.hypot(x[i + 1] - x[i], y[i + 1] - y[i]);
+            velocity[i] = Math.min(velocity[i],
+                    Math.sqrt(velocity[i + 1] * velocity[i + 1] + 2 * maxAcceleration * distance));
+        }
+
+        // Time to reach each point at the average velocity between points
+        time[0] = 0;
+
+        for (int i = 1; i < pointCount; i++) {
+
+            double distance        = Math.hypot(x[i] - x[i - 1], y[i] - y[i - 1]);
+            double averageVelocity = (velocity[i - 1] + velocity[i]) / 2;
+
+            time[i] = time[i - 1] + (averageVelocity > 0 ? distance / averageVelocity : 0);
+        }
+
+        // Sample the path at the trajectory time step
+        int      recordCount = (int) Math.ceil(time[pointCount - 1] / TIME_STEP) + 1;
+        double[] records     = new double[recordCount * TTrajectory.STRIDE];
+
+        point = 0;
+
+        for (int record = 0; record < recordCount; record++) {
+
+            double recordTime = record * TIME_STEP;
+
+            while (point < pointCount - 2 && time[point + 1] <= recordTime) {
+                point++;
+            }
+
+            double fraction = 0;
+
+            if (time[point + 1] > time[point]) {
+                fraction = TUtil.clamp((recordTime - time[point]) / (time[point + 1] - time[point]), 0, 1.0);
+            }
+
+            int offset = record * TTrajectory.STRIDE;
+
+            records[offset + TTrajectory.TIME]      = recordTime;
+            records[offset + TTrajectory.X]         = x[point] + (x[point + 1] - x[point]) * fraction;
+            records[offset + TTrajectory.Y]         = y[point] + (y[point + 1] - y[point]) * fraction;
+            records[offset + TTrajectory.HEADING]   = TUtil.wrapAngle(heading[point]
+                    + TUtil.angleError(heading[point + 1], heading[point]) * fraction);
+            records[offset + TTrajectory.VELOCITY]  = velocity[point] + (velocity[point + 1] - velocity[point]) * fraction;
+            records[offset + TTrajectory.CURVATURE] = Math.toDegrees(
+                    curvature[point] + (curvature[point + 1] - curvature[point]) * fraction);
+        }
+
+        return new TTrajectory(records, TIME_STEP);
+    }
+}
@@ -0,0 +1,175 @@
+package com.torontocodingcollective;
+
+/**
+ * Trapezoidal velocity profile for a move of a fixed distance.
+ * <p>
+ * The profile accelerates at the max acceleration to the max velocity, cruises,
+ * and then decelerates at the max acceleration to stop exactly at the target
+ * distance. If the distance is too short to reach the max velocity, the profile
+ * is triangular.
+ * <p>
+ * The profile always starts and ends at rest and the distance is always
+ * positive. The units of distance, velocity and acceleration must be consistent
+ * (ie. inches, inches/sec, inches/sec^2).
+ */
+public class TTrapezoidProfile {
+
+    private double distance        = 0;
+    private double maxVelocity     = 0;
+    private double maxAcceleration = 0;
+
+    private double accelerationTime = 0;
+    private double cruiseTime       = 0;
+    private double totalTime        = 0;
+    private double peakVelocity     = 0;
+
+    public TTrapezoidProfile() {
+    }
+
+    /**
+     * Trapezoidal Profile
+     *
+     * @param distance
+     *            to travel (must be positive)
+     * @param maxVelocity
+     *            the cruise velocity (must be positive)
+     * @param maxAcceleration
+     *            the acceleration and deceleration (must be positive)
+     */
+    public TTrapezoidProfile(double distance, double maxVelocity, double maxAcceleration) {
+        set(distance, maxVelocity, maxAcceleration);
+    }
+
+    /**
+     * Recalculate this profile for a new move.
+     * <p>
+     * Profiles can be reused by calling this routine rather than constructing a
+     * new profile.
+     *
+     * @param distance
+     *            to travel (must be positive)
+     * @param maxVelocity
+     *            the cruise velocity (must be positive)
+     * @param maxAcceleration
+     *            the acceleration and deceleration (must be positive)
+     */
+    public void set(double distance, double maxVelocity, double maxAcceleration) {
+
+        this.distance        = Math.abs(distance);
+        this.maxVelocity     = Math.abs(maxVelocity);
+        this.maxAcceleration = Math.abs(maxAcceleration);
+
+        if (this.distance == 0 || this.maxVelocity == 0 || this.maxAcceleration == 0) {
+            accelerationTime = 0;
+            cruiseTime       = 0;
+            totalTime        = 0;
+            peakVelocity     = 0;
+            return;
+        }
+
+        accelerationTime = this.maxVelocity / this.maxAcceleration;
+
+        // Distance covered while accelerating (and decelerating)
+        double accelerationDistance = 0.5 * this.maxAcceleration * accelerationTime * accelerationTime;
+
+        if (2 * accelerationDistance > this.distance) {
+
+            // Triangular profile - the max velocity is not reached
+            accelerationTime = Math.sqrt(this.distance / this.maxAcceleration);
+            peakVelocity     = this.maxAcceleration * accelerationTime;
+            cruiseTime       = 0;
+
+        } else {
+
+            peakVelocity = this.maxVelocity;
+            cruiseTime   = (this.distance - 2 * accelerationDistance) / this.maxVelocity;
+        }
+
+        totalTime = 2 * accelerationTime + cruiseTime;
+    }
+
+    /**
+     * Get the distance of this profile
+     *
+     * @return distance
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * Get the position along the profile at the given time
+     *
+     * @param time
+     *            since the start of the profile in seconds
+     * @return position (0 <= position <= distance)
+     */
+    public double getPosition(double time) {
+
+        if (time <= 0) {
+            return 0;
+        }
+
+        if (time >= totalTime) {
+            return distance;
+        }
+
+        if (time < accelerationTime) {
+            return 0.5 * maxAcceleration * time * time;
+        }
+
+        double accelerationDistance = 0.5 * maxAcceleration * accelerationTime * accelerationTime;
+
+        if (time < accelerationTime + cruiseTime) {
+            return accelerationDistance + peakVelocity * (time - accelerationTime);
+        }
+
+        double timeRemaining = totalTime - time;
+
+        return distance - 0.5 * maxAcceleration * timeRemaining * timeRemaining;
+    }
+
+    /**
+     * Get the total time required to complete the profile
+     *
+     * @return time in seconds
+     */
+    public double getTotalTime() {
+        return totalTime;
+    }
+
+    /**
+     * Get the velocity along the profile at the given time
+     *
+     * @param time
+     *            since the start of the profile in seconds
+     * @return velocity (0 <= velocity <= maxVelocity)
+     */
+    public double getVelocity(double time) {
+
+        if (time <= 0 || time >= totalTime) {
+            return 0;
+        }
+
+        if (time < accelerationTime) {
+            return maxAcceleration * time;
+        }
+
+        if (time < accelerationTime + cruiseTime) {
+            return peakVelocity;
+        }
+
+        return maxAcceleration * (totalTime - time);
+    }
+
+    /**
+     * Indicates whether the profile is complete at the given time
+     *
+     * @param time
+     *            since the start of the profile in seconds
+     * @return {@code true} if the profile is complete, {@code false} otherwise
+     */
+    public boolean isFinished(double time) {
+        return time >= totalTime;
+    }
+}
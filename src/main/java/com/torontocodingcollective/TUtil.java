@@ -1,20 +1,207 @@
 package com.torontocodingcollective;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-
+/**
+ * Numeric utilities used by the drive, gyro and PID classes.
+ * <p>
+ * All routines use primitive math only and do not allocate objects, so they
+ * can be called every loop.
+ */
 public class TUtil {
 
-	// Simple rounding routine from StackOverflow for using BigDecimal to round a double
+	// Powers of ten used for rounding
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8,
+			1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15 };
+
+	// Scaled values at or above this magnitude have no fraction to round
+	private static final double   MAX_ROUNDABLE = 1L << 52;
+
+	// Splits a double into two 26 bit halves (2^27 + 1)
+	private static final double   SPLITTER      = 134217729.0;
+
+	/**
+	 * Get the shortest path error between two angles
+	 *
+	 * @param targetAngle
+	 *            in degrees
+	 * @param currentAngle
+	 *            in degrees
+	 * @return error (target - current) in the range -180 < error <= 180 degrees
+	 */
+	public static double angleError(double targetAngle, double currentAngle) {
+
+		double error = (targetAngle - currentAngle) % 360.0;
+
+		if (error > 180.0) {
+			error -= 360.0;
+		}
+
+		if (error <= -180.0) {
+			error += 360.0;
+		}
+
+		return error;
+	}
+
+	// Limit the value to the range min <= value <= max
+	public static double clamp(double value, double min, double max) {
+
+		if (value < min) {
+			return min;
+		}
+
+		if (value > max) {
+			return max;
+		}
+
+		return value;
+	}
+
+	/**
+	 * Apply a deadband to a value
+	 *
+	 * @param value
+	 *            to filter
+	 * @param deadband
+	 *            values with a magnitude less than or equal to the deadband are
+	 *            returned as zero
+	 * @return zero if the value is within the deadband, otherwise the value
+	 */
+	public static double deadband(double value, double deadband) {
+
+		if (Math.abs(value) <= deadband) {
+			return 0;
+		}
+
+		return value;
+	}
+
+	/**
+	 * Round a value to the specified number of decimal places
+	 * <p>
+	 * Values half way between are rounded away from zero (half up). This gives the
+	 * same result as rounding the decimal representation of the value
+	 * {@code BigDecimal.valueOf(value).setScale(decimals, RoundingMode.HALF_UP)}
+	 * for values with up to 15 significant digits, so that values such as 1.005
+	 * round to 1.01.
+	 * <p>
+	 * Negative values that round to zero return 0.0 (not -0.0), like the
+	 * {@code BigDecimal} rounding.
+	 *
+	 * @param value
+	 *            to round
+	 * @param decimals
+	 *            number of decimal places (0 to 15)
+	 * @return rounded value
+	 */
 	public static double round(double value, int decimals) {
 
 		if (decimals < 0) {
 			throw new IllegalArgumentException();
 		}
 
-		return BigDecimal
-				.valueOf(value)
-				.setScale(decimals, RoundingMode.HALF_UP)
-				.doubleValue();
+		if (decimals >= POWERS_OF_TEN.length) {
+			return value;
+		}
+
+		double scale = POWERS_OF_TEN[decimals];
+		double abs   = Math.abs(value);
+
+		// Calculate the exact scaled value as the sum of the
+		// rounded product and the rounding error of the product
+		double scaled = abs * scale;
+
+		// Infinite, NaN or too large to have a decimal fraction
+		if (!(scaled < MAX_ROUNDABLE)) {
+			return value;
+		}
+
+		double scaledError = productError(abs, scale, scaled);
+
+		double whole    = Math.floor(scaled);
+		double fraction = (scaled - whole) + scaledError;
+
+		if (fraction < 0) {
+			whole    -= 1;
+			fraction += 1;
+		} else if (fraction >= 1) {
+			whole    += 1;
+			fraction -= 1;
+		}
+
+		// Round up when the fraction is more than half, or when
+		// the half way decimal value is represented by this value.
+		if (fraction > 0.5 || (whole + 0.5) / scale == abs) {
+			whole += 1;
+		}
+
+		// Adding 0.0 changes -0.0 to 0.0
+		return Math.copySign(whole / scale, value) + 0.0;
+	}
+
+	/**
+	 * Raise the magnitude of a value to a power keeping the sign of the value
+	 * <p>
+	 * This is typically used to shape joystick inputs (ie. an exponent of 2 gives
+	 * a squared response that keeps the direction of the stick).
+	 *
+	 * @param value
+	 *            base value
+	 * @param exponent
+	 *            power to raise the magnitude of the value
+	 * @return signum(value) * |value|^exponent
+	 */
+	public static double signedPow(double value, double exponent) {
+
+		if (exponent == 2.0) {
+			return value * Math.abs(value);
+		}
+
+		if (exponent == 3.0) {
+			return value * value * value;
+		}
+
+		return Math.copySign(Math.pow(Math.abs(value), exponent), value);
+	}
+
+	/**
+	 * Wrap an angle to the range 0 <= angle < 360 degrees
+	 *
+	 * @param angle
+	 *            in degrees
+	 * @return wrapped angle
+	 */
+	public static double wrapAngle(double angle) {
+
+		double wrappedAngle = angle % 360.0;
+
+		if (wrappedAngle < 0) {
+			wrappedAngle += 360.0;
+		}
+
+		// A small negative angle can round up to 360
+		if (wrappedAngle >= 360.0) {
+			wrappedAngle = 0;
+		}
+
+		return wrappedAngle;
+	}
+
+	/**
+	 * Get the rounding error of the product a * b (Dekker's algorithm)
+	 *
+	 * @return the error such that a * b = product + error exactly
+	 */
+	private static double productError(double a, double b, double product) {
+
+		double c  = SPLITTER * a;
+		double aH = c - (c - a);
+		double aL = a - aH;
+
+		c         = SPLITTER * b;
+		double bH = c - (c - b);
+		double bL = b - bH;
+
+		return ((aH * bH - product) + aH * bL + aL * bH) + aL * bL;
 	}
 }
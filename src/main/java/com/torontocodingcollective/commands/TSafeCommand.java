@@ -1,6 +1,7 @@
 package com.torontocodingcollective.commands;
 
 import com.torontocodingcollective.TConst;
+import com.torontocodingcollective.TLoopClock;
 import com.torontocodingcollective.TUtil;
 import com.torontocodingcollective.oi.TOi;
 
@@ -98,13 +99,13 @@ public abstract class TSafeCommand extends CommandBase {
 	@Override
 	public void initialize() {
 
-		startTime = System.currentTimeMillis();
+		startTime = TLoopClock.getTime();
 	}
 
 	@Override
 	public boolean isFinished() {
 
-		double timeSinceInitialized = ((double)(System.currentTimeMillis() - startTime)) / 1000;
+		double timeSinceInitialized = timeSinceInitialized();
 
 		if (timeSinceInitialized > timeout) {
 			logMessage("command timed out after " + timeSinceInitialized + "s");
@@ -114,6 +115,18 @@ public abstract class TSafeCommand extends CommandBase {
 		return false;
 	}
 
+	/**
+	 * Get the time since this command was initialized
+	 * <p>
+	 * The FPGA time is used so that the simulator (and log replay) can control
+	 * the time.
+	 *
+	 * @return time in seconds
+	 */
+	protected double timeSinceInitialized() {
+		return (TLoopClock.getTime() - startTime) / 1.0e6;
+	}
+
 	@Override
 	public void end(boolean interrupted) {
 		if (interrupted) {
@@ -0,0 +1,91 @@
+package com.torontocodingcollective.commands;
+
+import java.util.HashSet;
+
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+
+/**
+ * Scheduler Watchdog
+ * <p>
+ * The {@link CommandScheduler} must only be run once in each robot loop.
+ * Running the scheduler more than once runs every subsystem periodic routine
+ * (and the PIDs updated in the periodic routines) and every command more than
+ * once in the loop.
+ * <p>
+ * The watchdog is a subsystem that counts the number of times its periodic
+ * routine is called by the scheduler in each loop. When the scheduler runs more
+ * than once in a loop, the watchdog prints the code that ran the scheduler.
+ * Each code location is only printed once.
+ * <p>
+ * The {@link #startLoop()} routine must be called at the start of each robot
+ * loop.
+ */
+public class TSchedulerWatchdog extends SubsystemBase {
+
+	private static final String   SCHEDULER_CLASS_NAME = CommandScheduler.class.getName();
+
+	private int                   runCount             = 0;
+	private long                  duplicateRunCount    = 0;
+
+	private final HashSet<String> reportedCallers      = new HashSet<>();
+
+	/**
+	 * Construct a scheduler watchdog.
+	 * <p>
+	 * The watchdog registers itself with the {@link CommandScheduler}.
+	 */
+	public TSchedulerWatchdog() {
+		super();
+	}
+
+	/**
+	 * Get the number of times the scheduler was run more than once in a loop
+	 *
+	 * @return duplicate run count
+	 */
+	public long getDuplicateRunCount() {
+		return duplicateRunCount;
+	}
+
+	@Override
+	public void periodic() {
+
+		runCount++;
+
+		if (runCount > 1) {
+			duplicateRunCount++;
+			reportDuplicateRun();
+		}
+	}
+
+	/**
+	 * Mark the start of the robot loop
+	 */
+	public void startLoop() {
+		runCount = 0;
+	}
+
+	/**
+	 * Print the code that ran the scheduler
+	 */
+	private void reportDuplicateRun() {
+
+		StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
+
+		// Find the caller of the scheduler run() routine
+		String caller = "unknown";
+
+		for (int i = 0; i < stackTrace.length - 1; i++) {
+			if (stackTrace[i].getClassName().equals(SCHEDULER_CLASS_NAME)
+					&& stackTrace[i].getMethodName().equals("run")) {
+				caller = stackTrace[i + 1].toString();
+				break;
+			}
+		}
+
+		if (reportedCallers.add(caller)) {
+			System.out.println("CommandScheduler run " + runCount + " times in one loop, called from " + caller);
+		}
+	}
+}
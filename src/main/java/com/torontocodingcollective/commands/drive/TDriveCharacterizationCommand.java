@@ -0,0 +1,325 @@
+package com.torontocodingcollective.commands.drive;
+
+import com.torontocodingcollective.TLoopClock;
+import com.torontocodingcollective.TUtil;
+import com.torontocodingcollective.commands.TSafeCommand;
+import com.torontocodingcollective.subsystem.TDriveSubsystem;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Drive Characterization Command
+ * <p>
+ * This command drives the robot forward with the speed PIDs disabled and
+ * measures the feed forward gains (kS, kV, kA) for the
+ * {@link com.torontocodingcollective.pid.TSpeedPID}.
+ * <p>
+ * The command runs two tests:
+ * <ls>
+ * <li>a quasistatic test that slowly ramps the motor output in order to measure
+ * the static friction (kS) and velocity (kV) gains.
+ * <li>a dynamic test that applies a step output in order to measure the
+ * acceleration (kA) gain.
+ * </ls>
+ * The robot coasts to a stop between the tests. Each loop the motor output,
+ * normalized encoder speed and normalized acceleration are added to a least
+ * squares fit of {@code output = kS * sign(speed) + kV * speed + kA * acceleration}.
+ * <p>
+ * The speeds are normalized by the max encoder speed of the drive subsystem, so
+ * the characterization must be run in each gear. The robot requires a clear
+ * path of several meters in front of it.
+ */
+public class TDriveCharacterizationCommand extends TSafeCommand {
+
+	private static final String COMMAND_NAME =
+			TDriveCharacterizationCommand.class.getSimpleName();
+
+	/** Time to let the robot coast to a stop between the tests */
+	private static final double COAST_TIME = 2.0;
+
+	/** Samples below this normalized speed are not used in the fit */
+	private static final double MIN_SPEED  = 0.02;
+
+	private enum Phase { QUASISTATIC, COAST, DYNAMIC, DONE };
+
+	private final double          rampRate;
+	private final double          rampTime;
+	private final double          stepOutput;
+	private final double          stepTime;
+
+	private final TDriveSubsystem driveSubsystem;
+
+	private Phase                 phase;
+	private long                  phaseStartTime;
+	private long                  prevSampleTime;
+	private double                prevSpeed;
+	private double                output;
+	private boolean               outputShapingEnabled;
+
+	// Least squares normal equation sums for the
+	// regressors (sign(v), v, a) and the output u
+	private double ss, sv, sa, vv, va, aa;
+	private double su, vu, au;
+	private int    sampleCount;
+
+	private double kS, kV, kA;
+
+	/**
+	 * Drive Characterization Command
+	 *
+	 * @param rampRate
+	 *            rate at which to increase the output during the quasistatic test
+	 *            in output/second (typically 0.05)
+	 * @param rampTime
+	 *            time in seconds to run the quasistatic test
+	 * @param stepOutput
+	 *            output to apply during the dynamic test (typically 0.5)
+	 * @param stepTime
+	 *            time in seconds to run the dynamic test
+	 * @param driveSubsystem
+	 *            that extends the {@link TDriveSubsystem}
+	 */
+	public TDriveCharacterizationCommand(double rampRate, double rampTime,
+			double stepOutput, double stepTime, TDriveSubsystem driveSubsystem) {
+
+		super(rampTime + COAST_TIME + stepTime + 1.0);
+
+		this.rampRate       = rampRate;
+		this.rampTime       = rampTime;
+		this.stepOutput     = stepOutput;
+		this.stepTime       = stepTime;
+		this.driveSubsystem = driveSubsystem;
+
+		addRequirements(driveSubsystem);
+	}
+
+	@Override
+	protected String getCommandName() { return COMMAND_NAME; }
+
+	@Override
+	protected String getParmDesc() {
+		return "rampRate " + rampRate
+				+ ", rampTime " + rampTime
+				+ ", stepOutput " + stepOutput
+				+ ", stepTime " + stepTime
+				+ ", " + super.getParmDesc();
+	}
+
+	@Override
+	public void initialize() {
+
+		// Only print the command start message
+		// if this command was not subclassed
+		if (getCommandName().equals(COMMAND_NAME)) {
+			logMessage(getParmDesc() + " starting");
+		}
+
+		super.initialize();
+
+		// The motor output must be applied directly
+		driveSubsystem.disableSpeedPids();
+
+		outputShapingEnabled = driveSubsystem.isOutputShapingEnabled();
+		driveSubsystem.disableOutputShaping();
+
+		ss = sv = sa = vv = va = aa = 0;
+		su = vu = au = 0;
+		sampleCount = 0;
+
+		prevSpeed      = 0;
+		prevSampleTime = TLoopClock.getTime();
+
+		startPhase(Phase.QUASISTATIC);
+		setOutput(0);
+	}
+
+	@Override
+	public void execute() {
+
+		long   now         = TLoopClock.getTime();
+		double phaseTime   = (now - phaseStartTime) / 1.0e6;
+		double dt          = (now - prevSampleTime) / 1.0e6;
+
+		double speed       = driveSubsystem.getEncoderSpeed() / driveSubsystem.getMaxEncoderSpeed();
+		double acceleration = 0;
+		if (dt > 0) {
+			acceleration = (speed - prevSpeed) / dt;
+		}
+
+		prevSpeed      = speed;
+		prevSampleTime = now;
+
+		// The sample uses the output applied over the last loop
+		switch (phase) {
+
+		case QUASISTATIC:
+			addSample(speed, acceleration, output);
+			if (phaseTime > rampTime) {
+				startPhase(Phase.COAST);
+				setOutput(0);
+				break;
+			}
+			setOutput(Math.min(1.0, rampRate * phaseTime));
+			break;
+
+		case COAST:
+			if (phaseTime > COAST_TIME) {
+				startPhase(Phase.DYNAMIC);
+				setOutput(stepOutput);
+			}
+			break;
+
+		case DYNAMIC:
+			addSample(speed, acceleration, output);
+			if (phaseTime > stepTime) {
+				startPhase(Phase.DONE);
+				setOutput(0);
+			}
+			break;
+
+		case DONE:
+		default:
+			break;
+		}
+	}
+
+	@Override
+	public boolean isFinished() {
+
+		if (phase == Phase.DONE) {
+			return true;
+		}
+
+		// Check for a timeout or cancel
+		if (super.isFinished()) {
+			return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	public void end(boolean interrupted) {
+
+		super.end(interrupted);
+
+		setOutput(0);
+
+		if (outputShapingEnabled) {
+			driveSubsystem.enableOutputShaping();
+		}
+
+		if (!solve()) {
+			logMessage("unable to fit the feed forward gains from " + sampleCount + " samples");
+			return;
+		}
+
+		logMessage("fit " + sampleCount + " samples"
+				+ ": kS " + TUtil.round(kS, 4)
+				+ ", kV " + TUtil.round(kV, 4)
+				+ ", kA " + TUtil.round(kA, 4));
+
+		SmartDashboard.putNumber("Characterization kS", kS);
+		SmartDashboard.putNumber("Characterization kV", kV);
+		SmartDashboard.putNumber("Characterization kA", kA);
+	}
+
+	/** Get the fitted static friction gain */
+	public double getS() {
+		return kS;
+	}
+
+	/** Get the fitted velocity gain */
+	public double getV() {
+		return kV;
+	}
+
+	/** Get the fitted acceleration gain */
+	public double getA() {
+		return kA;
+	}
+
+	private void setOutput(double output) {
+		this.output = output;
+		driveSubsystem.setSpeed(output, output);
+	}
+
+	private void startPhase(Phase phase) {
+		this.phase     = phase;
+		phaseStartTime = TLoopClock.getTime();
+	}
+
+	/**
+	 * Add a sample to the least squares sums
+	 */
+	private void addSample(double speed, double acceleration, double output) {
+
+		// Samples where the robot has not started to move
+		// contain no speed information.
+		if (Math.abs(speed) < MIN_SPEED) {
+			return;
+		}
+
+		double sign = Math.signum(speed);
+
+		ss += sign * sign;
+		sv += sign * speed;
+		sa += sign * acceleration;
+		vv += speed * speed;
+		va += speed * acceleration;
+		aa += acceleration * acceleration;
+
+		su += sign * output;
+		vu += speed * output;
+		au += acceleration * output;
+
+		sampleCount++;
+	}
+
+	/**
+	 * Solve the 3x3 normal equations using Cramer's rule.
+	 *
+	 * @return {@code true} if the gains were calculated, {@code false} if the
+	 *         samples could not be fit.
+	 */
+	private boolean solve() {
+
+		if (sampleCount < 3) {
+			return false;
+		}
+
+		double det = determinant(
+				ss, sv, sa,
+				sv, vv, va,
+				sa, va, aa);
+
+		if (Math.abs(det) < 1e-12) {
+			return false;
+		}
+
+		kS = determinant(
+				su, sv, sa,
+				vu, vv, va,
+				au, va, aa) / det;
+
+		kV = determinant(
+				ss, su, sa,
+				sv, vu, va,
+				sa, au, aa) / det;
+
+		kA = determinant(
+				ss, sv, su,
+				sv, vv, vu,
+				sa, va, au) / det;
+
+		return true;
+	}
+
+	private static double determinant(
+			double a, double b, double c,
+			double d, double e, double f,
+			double g, double h, double i) {
+
+		return a * (e * i - f * h) - b * (d * i - f * g) + c * (d * h - e * g);
+	}
+}
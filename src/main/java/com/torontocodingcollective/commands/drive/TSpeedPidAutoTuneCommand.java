@@ -0,0 +1,190 @@
+package com.torontocodingcollective.commands.drive;
+
+import com.torontocodingcollective.TUtil;
+import com.torontocodingcollective.commands.TSafeCommand;
+import com.torontocodingcollective.pid.TRelayAutoTuner;
+import com.torontocodingcollective.subsystem.TDriveSubsystem;
+import com.torontocodingcollective.subsystem.TDriveSubsystem.TSide;
+
+import edu.wpi.first.wpilibj.Preferences;
+import edu.wpi.first.wpilibj.TimedRobot;
+
+/**
+ * Speed PID Auto Tune Command
+ * <p>
+ * This command drives the robot forward with the speed PIDs disabled. Each side
+ * of the drive is driven at the speed setpoint plus or minus a relay output and
+ * the ultimate gain and period of the speed oscillation is measured separately
+ * for each side. See {@link TRelayAutoTuner}.
+ * <p>
+ * When the tuning completes, the proposed gains are applied to the speed PIDs of
+ * the drive subsystem and saved in the robot {@link Preferences} under the keys
+ * {@link #LEFT_SPEED_PID_KP_KEY}, {@link #LEFT_SPEED_PID_KI_KEY},
+ * {@link #RIGHT_SPEED_PID_KP_KEY} and {@link #RIGHT_SPEED_PID_KI_KEY} so that
+ * they can be loaded when the drive subsystem is constructed.
+ * <p>
+ * The speeds are normalized by the max encoder speed of the drive subsystem.
+ * The robot requires a clear path of several meters in front of it.
+ * <p>
+ * The robot project does not have a drive model for the simulator, so the
+ * encoders do not move in the simulator and the tuning times out. Run this
+ * command on the robot.
+ */
+public class TSpeedPidAutoTuneCommand extends TSafeCommand {
+
+	private static final String COMMAND_NAME =
+			TSpeedPidAutoTuneCommand.class.getSimpleName();
+
+	/** Preferences keys for the tuned speed PID gains */
+	public static final String  LEFT_SPEED_PID_KP_KEY  = "Left Speed PID kP";
+	public static final String  LEFT_SPEED_PID_KI_KEY  = "Left Speed PID kI";
+	public static final String  RIGHT_SPEED_PID_KP_KEY = "Right Speed PID kP";
+	public static final String  RIGHT_SPEED_PID_KI_KEY = "Right Speed PID kI";
+
+	/** Normalized speed error band that prevents encoder noise from switching the relay */
+	private static final double HYSTERESIS             = 0.01;
+
+	private final double          speedSetpoint;
+	private final double          relayOutput;
+	private final int             cycles;
+
+	private final TDriveSubsystem driveSubsystem;
+
+	private final TRelayAutoTuner leftTuner;
+	private final TRelayAutoTuner rightTuner;
+
+	private boolean               outputShapingEnabled;
+
+	/**
+	 * Speed PID Auto Tune Command
+	 *
+	 * @param speedSetpoint
+	 *            the normalized speed around which to oscillate (typically 0.5)
+	 * @param relayOutput
+	 *            motor output added to and subtracted from the speed setpoint
+	 *            (typically 0.1)
+	 * @param cycles
+	 *            the number of oscillations to measure (typically 4)
+	 * @param timeout
+	 *            the time after which this command will end automatically
+	 * @param driveSubsystem
+	 *            that extends the {@link TDriveSubsystem}
+	 */
+	public TSpeedPidAutoTuneCommand(double speedSetpoint, double relayOutput, int cycles,
+			double timeout, TDriveSubsystem driveSubsystem) {
+
+		super(timeout);
+
+		this.speedSetpoint  = speedSetpoint;
+		this.relayOutput    = relayOutput;
+		this.cycles         = cycles;
+		this.driveSubsystem = driveSubsystem;
+
+		leftTuner  = new TRelayAutoTuner(relayOutput, HYSTERESIS, cycles);
+		rightTuner = new TRelayAutoTuner(relayOutput, HYSTERESIS, cycles);
+
+		addRequirements(driveSubsystem);
+	}
+
+	@Override
+	protected String getCommandName() { return COMMAND_NAME; }
+
+	@Override
+	protected String getParmDesc() {
+		return "speed " + speedSetpoint
+				+ ", relayOutput " + relayOutput
+				+ ", cycles " + cycles
+				+ ", " + super.getParmDesc();
+	}
+
+	@Override
+	public void initialize() {
+
+		// Only print the command start message
+		// if this command was not subclassed
+		if (getCommandName().equals(COMMAND_NAME)) {
+			logMessage(getParmDesc() + " starting");
+		}
+
+		super.initialize();
+
+		// The relay drives the motors directly
+		driveSubsystem.disableSpeedPids();
+
+		outputShapingEnabled = driveSubsystem.isOutputShapingEnabled();
+		driveSubsystem.disableOutputShaping();
+
+		leftTuner.reset();
+		rightTuner.reset();
+	}
+
+	@Override
+	public void execute() {
+
+		double time = timeSinceInitialized();
+
+		double leftOutput  = speedSetpoint + leftTuner.calculate(getSpeedError(TSide.LEFT), time);
+		double rightOutput = speedSetpoint + rightTuner.calculate(getSpeedError(TSide.RIGHT), time);
+
+		// Once a side has finished tuning it holds the speed setpoint
+		// while the other side completes.
+		driveSubsystem.setSpeed(leftOutput, rightOutput);
+	}
+
+	@Override
+	public boolean isFinished() {
+
+		if (leftTuner.isComplete() && rightTuner.isComplete()) {
+			return true;
+		}
+
+		// Check for a timeout or cancel
+		if (super.isFinished()) {
+			return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	public void end(boolean interrupted) {
+
+		super.end(interrupted);
+
+		driveSubsystem.setSpeed(0, 0);
+
+		if (outputShapingEnabled) {
+			driveSubsystem.enableOutputShaping();
+		}
+
+		if (!leftTuner.isComplete() || !rightTuner.isComplete()) {
+			logMessage("tuning incomplete after "
+					+ leftTuner.getCycleCount() + " left cycles, "
+					+ rightTuner.getCycleCount() + " right cycles");
+			return;
+		}
+
+		saveGains(TSide.LEFT,  leftTuner,  LEFT_SPEED_PID_KP_KEY,  LEFT_SPEED_PID_KI_KEY);
+		saveGains(TSide.RIGHT, rightTuner, RIGHT_SPEED_PID_KP_KEY, RIGHT_SPEED_PID_KI_KEY);
+	}
+
+	private double getSpeedError(TSide side) {
+		return speedSetpoint - driveSubsystem.getEncoderSpeed(side) / driveSubsystem.getMaxEncoderSpeed();
+	}
+
+	private void saveGains(TSide side, TRelayAutoTuner tuner, String kPKey, String kIKey) {
+
+		double kP = tuner.getProposedKp();
+		double kI = tuner.getProposedKi(TimedRobot.kDefaultPeriod);
+
+		logMessage(side + " Ku " + TUtil.round(tuner.getUltimateGain(), 4)
+				+ ", Tu " + TUtil.round(tuner.getUltimatePeriod(), 3) + "s"
+				+ ": kP " + TUtil.round(kP, 4)
+				+ ", kI " + TUtil.round(kI, 5));
+
+		driveSubsystem.setSpeedPidGain(side, kP, kI);
+
+		Preferences.setDouble(kPKey, kP);
+		Preferences.setDouble(kIKey, kI);
+	}
+}
@@ -108,6 +108,8 @@ public class TDriveOnHeadingCommand extends TSafeCommand {
 	@Override
 	public void initialize() {
 
+		super.initialize();
+
 		// Only print the command start message
 		// if this command was not subclassed
 		if (getCommandName().equals(COMMAND_NAME)) {
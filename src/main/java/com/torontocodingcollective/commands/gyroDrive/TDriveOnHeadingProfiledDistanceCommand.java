@@ -0,0 +1,196 @@
+package com.torontocodingcollective.commands.gyroDrive;
+
+import com.torontocodingcollective.TConst;
+import com.torontocodingcollective.TTrapezoidProfile;
+import com.torontocodingcollective.subsystem.TGyroDriveSubsystem;
+
+/**
+ * Drive on a specified heading for a specified distance using a trapezoidal
+ * motion profile.
+ * <p>
+ * The speed is ramped up to the max speed at the specified acceleration and
+ * ramped down again so that the robot decelerates into the target distance.
+ * The profile speed is used as the speed setpoint and is corrected by the
+ * distance error from the profile position.
+ * <p>
+ * This command should be used with the speed PIDs enabled so that the robot
+ * follows the profile speed. The drive output shaping is bypassed while this
+ * command runs.
+ */
+public class TDriveOnHeadingProfiledDistanceCommand extends TDriveOnHeadingCommand {
+
+	private static final String COMMAND_NAME =
+			TDriveOnHeadingProfiledDistanceCommand.class.getSimpleName();
+
+	/** Speed correction (normalized speed) per inch of profile position error */
+	private static final double       DISTANCE_KP        = 0.05;
+
+	/** The command ends when the robot is this close to the target distance */
+	private static final double       DISTANCE_TOLERANCE = 1.0; // in inches
+
+	private final double              distanceInches;
+	private final double              maxSpeed;
+	private final double              acceleration;
+	private boolean                   error              = false;
+
+	private final TTrapezoidProfile   profile            = new TTrapezoidProfile();
+	private double                    maxSpeedInchesPerSec;
+	private boolean                   outputShapingEnabled;
+
+	private final TGyroDriveSubsystem driveSubsystem;
+
+	/**
+	 * Construct a new DriveOnHeadingProfiledDistanceCommand
+	 *
+	 * @param distanceInches
+	 *            distance to travel in inches. If the distance is negative, then
+	 *            the command will end immediately and print an error to the
+	 *            DriverStation
+	 * @param heading
+	 *            in the range 0 <= heading < 360. If the heading is not in this
+	 *            range, then the command will end immediately and print an error to
+	 *            the DriverStation
+	 * @param maxSpeed
+	 *            the cruise speed in the range 0 <= speed <= 1.0.
+	 * @param acceleration
+	 *            the acceleration and deceleration in speed units per second. An
+	 *            acceleration of 2.0 will reach a full speed of 1.0 in 0.5 seconds.
+	 * @param timeout
+	 *            the time after which this command will end automatically. A value
+	 *            of {@link TConst#NO_COMMAND_TIMEOUT} will be used as an infinite
+	 *            timeout.
+	 * @param brakeWhenFinished
+	 *            {@code true} to brake when the command finishes {@code false} to
+	 *            coast into the next command.
+	 * @param driveSubsystem
+	 *            that extends the TGyroDriveSubsystem
+	 */
+	public TDriveOnHeadingProfiledDistanceCommand(double distanceInches, double heading,
+			double maxSpeed, double acceleration, double timeout,
+			boolean brakeWhenFinished, TGyroDriveSubsystem driveSubsystem) {
+
+		super(heading, 0, timeout, brakeWhenFinished, driveSubsystem);
+
+		this.driveSubsystem = driveSubsystem;
+		this.distanceInches = distanceInches;
+		this.maxSpeed       = Math.min(1.0, Math.abs(maxSpeed));
+		this.acceleration   = Math.abs(acceleration);
+
+		if (distanceInches < 0) {
+			System.out.println(
+					"Distance on " + COMMAND_NAME
+					+ " must be >= 0 inches. " + distanceInches
+					+ " is invalid.  Command ending immediately");
+			error = true;
+		}
+	}
+
+	@Override
+	protected String getCommandName() { return COMMAND_NAME; }
+
+	@Override
+	protected String getParmDesc() {
+		return "dist " + this.distanceInches
+				+ ", maxSpeed " + this.maxSpeed
+				+ ", accel " + this.acceleration
+				+ ", " + super.getParmDesc();
+	}
+
+	@Override
+	public void initialize() {
+
+		// Only print the command start message
+		// if this command was not subclassed
+		if (getCommandName().equals(COMMAND_NAME)) {
+			logMessage(getParmDesc() + " starting");
+		}
+
+		if (error) {
+			super.initialize();
+			return;
+		}
+
+		// The profile already limits the acceleration, so
+		// bypass the drive output shaping.
+		outputShapingEnabled = driveSubsystem.isOutputShapingEnabled();
+		driveSubsystem.disableOutputShaping();
+
+		// Start the profile from rest
+		setSpeed(0);
+
+		super.initialize();
+		driveSubsystem.resetEncoders();
+
+		// Convert the normalized speeds to inches/sec
+		// in order to build the profile in inches.
+		maxSpeedInchesPerSec = driveSubsystem.getMaxEncoderSpeed();
+		if (driveSubsystem.getEncoderCountsPerInch() != 0) {
+			maxSpeedInchesPerSec /= driveSubsystem.getEncoderCountsPerInch();
+		}
+
+		profile.set(distanceInches,
+				maxSpeed * maxSpeedInchesPerSec,
+				acceleration * maxSpeedInchesPerSec);
+	}
+
+	@Override
+	public void execute() {
+
+		// If there is an error, then do nothing
+		if (error) {
+			driveSubsystem.setSpeed(0.0d, 0.0d);
+			return;
+		}
+
+		double time = timeSinceInitialized();
+
+		// Follow the profile speed and correct for any
+		// difference between the profile position and the
+		// measured distance.
+		double positionError = profile.getPosition(time) - driveSubsystem.getDistanceInches();
+
+		double speed = profile.getVelocity(time) / maxSpeedInchesPerSec
+				+ positionError * DISTANCE_KP;
+
+		setSpeed(speed);
+
+		super.execute();
+	}
+
+	@Override
+	public boolean isFinished() {
+
+		if (error) {
+			logMessage("Ended with error - see previous message for details");
+			return true;
+		}
+
+		// Check for errors, timeout or cancel
+		if (super.isFinished()) {
+			return true;
+		}
+
+		if (profile.isFinished(timeSinceInitialized())
+				&& driveSubsystem.getDistanceInches() >= distanceInches - DISTANCE_TOLERANCE) {
+			return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	public void end(boolean isInterrupted) {
+
+		if (!error) {
+			logMessage("Command ending at distance " +
+					driveSubsystem.getDistanceInches() + "inches"
+					+ " after " + timeSinceInitialized() + "s");
+		}
+
+		super.end(isInterrupted);
+
+		if (outputShapingEnabled) {
+			driveSubsystem.enableOutputShaping();
+		}
+	}
+}
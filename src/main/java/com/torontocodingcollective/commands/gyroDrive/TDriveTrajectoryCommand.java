@@ -0,0 +1,200 @@
+package com.torontocodingcollective.commands.gyroDrive;
+
+import com.torontocodingcollective.TConst;
+import com.torontocodingcollective.TPose;
+import com.torontocodingcollective.TTrajectory;
+import com.torontocodingcollective.TUtil;
+import com.torontocodingcollective.commands.TSafeCommand;
+import com.torontocodingcollective.subsystem.TGyroDriveSubsystem;
+
+/**
+ * Drive Trajectory Command
+ * <p>
+ * This command drives the robot forward along a {@link TTrajectory}.
+ * <p>
+ * The robot pose is set to the start of the trajectory when the command starts.
+ * In each loop the robot drives at the trajectory velocity on the trajectory
+ * heading using the gyro PID. The speed is corrected by the distance to the
+ * trajectory position along the path, and the heading is corrected by the
+ * distance across the path. The trajectory headings are gyro headings.
+ */
+public class TDriveTrajectoryCommand extends TSafeCommand {
+
+	private static final String COMMAND_NAME =
+			TDriveTrajectoryCommand.class.getSimpleName();
+
+	/** Speed correction (normalized speed) per inch of position error along the path */
+	private static final double       DISTANCE_KP            = 0.05;
+
+	/** Heading correction in degrees per inch of position error across the path */
+	private static final double       CROSS_TRACK_KP         = 1.0;
+
+	/** Maximum heading correction in degrees */
+	private static final double       MAX_HEADING_CORRECTION = 30.0;
+
+	/** The command ends when the robot is this close to the end of the trajectory */
+	private static final double       DISTANCE_TOLERANCE     = 2.0; // in inches
+
+	private final TTrajectory         trajectory;
+	private final boolean             brakeWhenFinished;
+	private boolean                   error                  = false;
+
+	private final TPose               targetPose             = new TPose();
+	private final TPose               pose                   = new TPose();
+
+	private double                    maxSpeedInchesPerSec;
+	private double                    alongTrackError        = 0;
+	private boolean                   outputShapingEnabled;
+
+	private final TGyroDriveSubsystem driveSubsystem;
+
+	/**
+	 * Construct a new DriveTrajectoryCommand
+	 *
+	 * @param trajectory
+	 *            to follow. If the trajectory is {@code null}, then the command
+	 *            will end immediately and print an error to the DriverStation
+	 * @param timeout
+	 *            the time after which this command will end automatically. A value
+	 *            of {@link TConst#NO_COMMAND_TIMEOUT} will be used as an infinite
+	 *            timeout.
+	 * @param brakeWhenFinished
+	 *            {@code true} to brake when the command finishes {@code false} to
+	 *            coast into the next command.
+	 * @param driveSubsystem
+	 *            that extends the TGyroDriveSubsystem
+	 */
+	public TDriveTrajectoryCommand(TTrajectory trajectory, double timeout,
+			boolean brakeWhenFinished, TGyroDriveSubsystem driveSubsystem) {
+
+		super(timeout);
+
+		this.trajectory        = trajectory;
+		this.brakeWhenFinished = brakeWhenFinished;
+		this.driveSubsystem    = driveSubsystem;
+
+		addRequirements(driveSubsystem);
+
+		if (trajectory == null) {
+			System.out.println("No trajectory on " + COMMAND_NAME + ". Command ending immediately");
+			error = true;
+		}
+	}
+
+	@Override
+	protected String getCommandName() { return COMMAND_NAME; }
+
+	@Override
+	protected String getParmDesc() {
+		return "time " + (trajectory == null ? 0 : trajectory.getTotalTime())
+				+ ", brake " + this.brakeWhenFinished
+				+ ", " + super.getParmDesc();
+	}
+
+	@Override
+	public void initialize() {
+
+		super.initialize();
+
+		// Only print the command start message
+		// if this command was not subclassed
+		if (getCommandName().equals(COMMAND_NAME)) {
+			logMessage(getParmDesc() + " starting");
+		}
+
+		if (error) {
+			return;
+		}
+
+		// The trajectory already limits the acceleration, so
+		// bypass the drive output shaping.
+		outputShapingEnabled = driveSubsystem.isOutputShapingEnabled();
+		driveSubsystem.disableOutputShaping();
+
+		// Start the pose at the start of the trajectory on the current
+		// gyro heading so that the pose heading matches the gyro.
+		trajectory.getPose(0, targetPose);
+		driveSubsystem.resetPose(targetPose.x, targetPose.y, driveSubsystem.getGyroAngle());
+
+		// Convert the normalized speeds to inches/sec
+		maxSpeedInchesPerSec = driveSubsystem.getMaxEncoderSpeed();
+		if (driveSubsystem.getEncoderCountsPerInch() != 0) {
+			maxSpeedInchesPerSec /= driveSubsystem.getEncoderCountsPerInch();
+		}
+	}
+
+	@Override
+	public void execute() {
+
+		// If there is an error, then do nothing
+		if (error) {
+			driveSubsystem.setSpeed(0.0d, 0.0d);
+			return;
+		}
+
+		double time = timeSinceInitialized();
+
+		trajectory.getPose(time, targetPose);
+		driveSubsystem.getPose(pose);
+
+		// Position error along and across the trajectory heading
+		double headingRadians = Math.toRadians(targetPose.heading);
+		double dx             = targetPose.x - pose.x;
+		double dy             = targetPose.y - pose.y;
+
+		alongTrackError = dx * Math.cos(headingRadians) + dy * Math.sin(headingRadians);
+
+		double crossTrackError = -dx * Math.sin(headingRadians) + dy * Math.cos(headingRadians);
+
+		double speed = trajectory.getVelocity(time) / maxSpeedInchesPerSec
+				+ alongTrackError * DISTANCE_KP;
+
+		// Turn towards the trajectory (clockwise when the trajectory is
+		// to the right of the robot)
+		double heading = TUtil.wrapAngle(targetPose.heading
+				+ TUtil.clamp(crossTrackError * CROSS_TRACK_KP, -MAX_HEADING_CORRECTION, MAX_HEADING_CORRECTION));
+
+		driveSubsystem.driveOnHeading(TUtil.clamp(speed, 0, 1.0), heading);
+	}
+
+	@Override
+	public boolean isFinished() {
+
+		if (error) {
+			logMessage("Ended with error - see previous message for details");
+			return true;
+		}
+
+		// Check for a timeout or cancel
+		if (super.isFinished()) {
+			return true;
+		}
+
+		if (timeSinceInitialized() >= trajectory.getTotalTime()
+				&& alongTrackError < DISTANCE_TOLERANCE) {
+			return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	public void end(boolean interrupted) {
+
+		if (!error) {
+			logMessage("Command ending at " + driveSubsystem.getPose(pose)
+					+ " after " + timeSinceInitialized() + "s");
+		}
+
+		super.end(interrupted);
+
+		if (brakeWhenFinished) {
+			driveSubsystem.setSpeed(0, 0);
+			driveSubsystem.disableGyroPid();
+		}
+
+		if (outputShapingEnabled) {
+			driveSubsystem.enableOutputShaping();
+		}
+	}
+}
@@ -0,0 +1,174 @@
+package com.torontocodingcollective.commands.gyroDrive;
+
+import com.torontocodingcollective.TUtil;
+import com.torontocodingcollective.commands.TSafeCommand;
+import com.torontocodingcollective.pid.TRelayAutoTuner;
+import com.torontocodingcollective.subsystem.TGyroDriveSubsystem;
+
+import edu.wpi.first.wpilibj.Preferences;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Gyro PID Auto Tune Command
+ * <p>
+ * This command pivots the robot back and forth around its starting heading
+ * using a relay output and measures the ultimate gain and period of the
+ * rotation. See {@link TRelayAutoTuner}.
+ * <p>
+ * When the tuning completes, the proposed gains are applied to the gyro PID of
+ * the drive subsystem and saved in the robot {@link Preferences} under the keys
+ * {@link #GYRO_PID_KP_KEY} and {@link #GYRO_PID_KI_KEY} so that they can be
+ * loaded when the drive subsystem is constructed.
+ * <p>
+ * The robot project does not have a drive or gyro model for the simulator, so
+ * the gyro does not move in the simulator and the tuning times out. Run this
+ * command on the robot.
+ */
+public class TGyroPidAutoTuneCommand extends TSafeCommand {
+
+	private static final String COMMAND_NAME =
+			TGyroPidAutoTuneCommand.class.getSimpleName();
+
+	/** Preferences key for the tuned gyro PID proportional gain */
+	public static final String  GYRO_PID_KP_KEY = "Gyro PID kP";
+
+	/** Preferences key for the tuned gyro PID integral gain */
+	public static final String  GYRO_PID_KI_KEY = "Gyro PID kI";
+
+	/** Heading error band in degrees that prevents gyro noise from switching the relay */
+	private static final double HYSTERESIS      = 1.0;
+
+	private final double              relayOutput;
+	private final int                 cycles;
+
+	private final TGyroDriveSubsystem driveSubsystem;
+	private final TRelayAutoTuner     tuner;
+
+	private double                    heading;
+	private boolean                   outputShapingEnabled;
+
+	/**
+	 * Gyro PID Auto Tune Command
+	 *
+	 * @param relayOutput
+	 *            motor output applied (in opposite directions) to each side of the
+	 *            drive in order to pivot the robot (typically 0.3)
+	 * @param cycles
+	 *            the number of oscillations to measure (typically 4)
+	 * @param timeout
+	 *            the time after which this command will end automatically
+	 * @param driveSubsystem
+	 *            that extends the {@link TGyroDriveSubsystem}
+	 */
+	public TGyroPidAutoTuneCommand(double relayOutput, int cycles, double timeout,
+			TGyroDriveSubsystem driveSubsystem) {
+
+		super(timeout);
+
+		this.relayOutput    = relayOutput;
+		this.cycles         = cycles;
+		this.driveSubsystem = driveSubsystem;
+
+		tuner = new TRelayAutoTuner(relayOutput, HYSTERESIS, cycles);
+
+		addRequirements(driveSubsystem);
+	}
+
+	@Override
+	protected String getCommandName() { return COMMAND_NAME; }
+
+	@Override
+	protected String getParmDesc() {
+		return "relayOutput " + relayOutput
+				+ ", cycles " + cycles
+				+ ", " + super.getParmDesc();
+	}
+
+	@Override
+	public void initialize() {
+
+		// Only print the command start message
+		// if this command was not subclassed
+		if (getCommandName().equals(COMMAND_NAME)) {
+			logMessage(getParmDesc() + " starting");
+		}
+
+		super.initialize();
+
+		// The relay drives the motors directly
+		driveSubsystem.disableGyroPid();
+		driveSubsystem.disableSpeedPids();
+
+		outputShapingEnabled = driveSubsystem.isOutputShapingEnabled();
+		driveSubsystem.disableOutputShaping();
+
+		// Oscillate around the current heading
+		heading = driveSubsystem.getGyroAngle();
+
+		tuner.reset();
+	}
+
+	@Override
+	public void execute() {
+
+		// Normalize the error for the shortest path.
+		double error = TUtil.angleError(heading, driveSubsystem.getGyroAngle());
+
+		double output = tuner.calculate(error, timeSinceInitialized());
+
+		// A positive error requires a clockwise rotation
+		driveSubsystem.setSpeed(output, -output);
+	}
+
+	@Override
+	public boolean isFinished() {
+
+		if (tuner.isComplete()) {
+			return true;
+		}
+
+		// Check for a timeout or cancel
+		if (super.isFinished()) {
+			return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	public void end(boolean interrupted) {
+
+		super.end(interrupted);
+
+		driveSubsystem.setSpeed(0, 0);
+
+		if (outputShapingEnabled) {
+			driveSubsystem.enableOutputShaping();
+		}
+
+		if (!tuner.isComplete()) {
+			logMessage("tuning incomplete after " + tuner.getCycleCount() + " cycles");
+			return;
+		}
+
+		// When rotating to a heading the gyro PID output is split
+		// between the two sides, so the PID gain is doubled
+		// relative to the relay output applied to each side.
+		double kP = 2 * tuner.getProposedKp();
+		double kI = 2 * tuner.getProposedKi(TimedRobot.kDefaultPeriod);
+
+		logMessage("Ku " + TUtil.round(tuner.getUltimateGain(), 4)
+				+ ", Tu " + TUtil.round(tuner.getUltimatePeriod(), 3) + "s"
+				+ ": kP " + TUtil.round(kP, 4)
+				+ ", kI " + TUtil.round(kI, 5));
+
+		SmartDashboard.putNumber("Gyro AutoTune Ku", tuner.getUltimateGain());
+		SmartDashboard.putNumber("Gyro AutoTune Tu", tuner.getUltimatePeriod());
+
+		driveSubsystem.setGyroPidGain(kP, kI);
+
+		Preferences.setDouble(GYRO_PID_KP_KEY, kP);
+		Preferences.setDouble(GYRO_PID_KI_KEY, kI);
+	}
+}
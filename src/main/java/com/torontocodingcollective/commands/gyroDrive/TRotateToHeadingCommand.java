@@ -4,6 +4,7 @@ import com.torontocodingcollective.TConst;
 import com.torontocodingcollective.TUtil;
 import com.torontocodingcollective.commands.TSafeCommand;
 import com.torontocodingcollective.subsystem.TGyroDriveSubsystem;
+import com.torontocodingcollective.subsystem.TGyroDriveSubsystem.TRotationControl;
 
 /**
  * Rotate To Heading Command
@@ -12,7 +13,9 @@ import com.torontocodingcollective.subsystem.TGyroDriveSubsystem;
  * heading.
  * <p>
  * This command will end when the angle is reached and the rotational speed is
- * below the threshold
+ * below the threshold. The time to settle on the heading is logged when the
+ * command finishes so that the rotation controllers
+ * {@link TRotationControl} can be compared.
  */
 public class TRotateToHeadingCommand extends TSafeCommand {
 
@@ -23,6 +26,7 @@ public class TRotateToHeadingCommand extends TSafeCommand {
 
 	private final double              heading;
 	private final double              maxRotationOutput;
+	private final TRotationControl    rotationControl;
 
 	private final TGyroDriveSubsystem driveSubsystem;
 
@@ -51,9 +55,41 @@ public class TRotateToHeadingCommand extends TSafeCommand {
 	public TRotateToHeadingCommand(double heading, double maxRotationOutput, double timeout,
 			TGyroDriveSubsystem driveSubsystem) {
 
+		this(heading, maxRotationOutput, null, timeout, driveSubsystem);
+	}
+
+	/**
+	 * Rotate to the specified heading using the specified rotation controller
+	 * <p>
+	 * This command will use the maxRotation speed specified as long as it does not
+	 * exceed the speed set in the subsystem.
+	 *
+	 * @param heading
+	 *            0 <= heading < 360
+	 * @param maxRotationOutput
+	 *            a speed of -1 will indicate to use the default set in the
+	 *            subsystem. The subsystem maxRotationOutput will be used to
+	 *            override this value if it is set higher than the value in the
+	 *            subsystem. See {@link TGyroDriveSubsystem#setMaxRotationOutput()}
+	 * @param rotationControl
+	 *            the {@link TRotationControl} used to rotate the robot. A value of
+	 *            {@code null} will use the default set in the subsystem. See
+	 *            {@link TGyroDriveSubsystem#setRotationControl(TRotationControl)}
+	 * @param timeout
+	 *            the time after which this command will end automatically. A value
+	 *            of {@link TConst#NO_COMMAND_TIMEOUT} will be used as an infinite
+	 *            timeout.
+	 * @param driveSubsystem
+	 *            that extends the TGyroDriveSubsystem
+	 */
+	public TRotateToHeadingCommand(double heading, double maxRotationOutput,
+			TRotationControl rotationControl, double timeout,
+			TGyroDriveSubsystem driveSubsystem) {
+
 		super(timeout);
 
-		this.driveSubsystem = driveSubsystem;
+		this.driveSubsystem  = driveSubsystem;
+		this.rotationControl = rotationControl;
 
 		addRequirements(driveSubsystem);
 
@@ -112,12 +148,15 @@ public class TRotateToHeadingCommand extends TSafeCommand {
 	protected String getParmDesc() {
 		return "target heading " + this.heading
 				+ ", maxRotation " + this.maxRotationOutput
+				+ ", control " + getRotationControl()
 				+ ", " + super.getParmDesc();
 	}
 
 	@Override
 	public void initialize() {
 
+		super.initialize();
+
 		// Only print the command start message
 		// if this command was not subclassed
 		if (getCommandName().equals(COMMAND_NAME)) {
@@ -131,9 +170,11 @@ public class TRotateToHeadingCommand extends TSafeCommand {
 		}
 
 		if (maxRotationOutput <= 0) {
-			driveSubsystem.rotateToHeading(heading);
+			driveSubsystem.rotateToHeading(heading, driveSubsystem.getMaxRotationOutput(),
+					getRotationControl());
 		} else {
-			driveSubsystem.rotateToHeading(heading, maxRotationOutput);
+			driveSubsystem.rotateToHeading(heading, maxRotationOutput,
+					getRotationControl());
 		}
 	}
 
@@ -160,13 +201,23 @@ public class TRotateToHeadingCommand extends TSafeCommand {
 		if (Math.abs(headingError) <= 1.5 && Math.abs(rotationRate) < 1.5) {
 			logMessage("finished at heading " + TUtil.round(driveSubsystem.getGyroAngle(), 1)
 			+ " with error " + TUtil.round(headingError, 2)
-			+ ", rotation rate " + TUtil.round(rotationRate, 1));
+			+ ", rotation rate " + TUtil.round(rotationRate, 1)
+			+ ", settled in " + TUtil.round(timeSinceInitialized(), 2) + "s");
 			return true;
 		}
 
 		return false;
 	}
 
+	private TRotationControl getRotationControl() {
+
+		if (rotationControl == null) {
+			return driveSubsystem.getRotationControl();
+		}
+
+		return rotationControl;
+	}
+
 	@Override
 	public void end(boolean interrupted) {
 
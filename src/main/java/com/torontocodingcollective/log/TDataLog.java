@@ -0,0 +1,520 @@
+package com.torontocodingcollective.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.DoubleSupplier;
+
+import com.torontocodingcollective.TLoopClock;
+
+import edu.wpi.first.wpilibj.RobotBase;
+
+/**
+ * Binary data log
+ * <p>
+ * The data log records the value of every registered channel each time
+ * {@link #record()} is called (once per loop). Records are written into a
+ * preallocated off-heap ring buffer and a background thread drains the ring
+ * buffer to a binary log file.
+ * <p>
+ * Input channels {@link #addInputChannel(String, DoubleSupplier)} are sampled
+ * at the start of the loop {@link #sampleInputs()} so that the log records the
+ * inputs that were used by the loop. Data and event records are stamped with
+ * the loop time {@link TLoopClock#getTime()}.
+ * <p>
+ * Recording never blocks and does not allocate. If the writer thread falls
+ * behind and the ring buffer is full, the record is dropped and counted
+ * {@link #getDroppedRecordCount()}.
+ * <p>
+ * File format (big endian):
+ * <ul>
+ * <li>header: int magic {@link #MAGIC}, int version, int channel count, and
+ * for each channel an int name length followed by the name bytes
+ * <li>records: int type, int payload length, long timestamp (FPGA
+ * microseconds) followed by the payload padded to a multiple of 8 bytes
+ * </ul>
+ * A {@link #DATA_RECORD} payload contains one double for each channel in the
+ * order the channels were added. An {@link #EVENT_RECORD} payload contains an
+ * int event code followed by the event text.
+ */
+public class TDataLog {
+
+    /** Log file magic number "TLOG" */
+    public static final int    MAGIC                 = 0x544C4F47;
+
+    public static final int    VERSION               = 1;
+
+    public static final int    DATA_RECORD           = 0;
+    public static final int    EVENT_RECORD          = 1;
+
+    /** Event codes used for command events */
+    public static final int    EVENT_COMMAND_INITIALIZE = 1;
+    public static final int    EVENT_COMMAND_FINISH     = 2;
+    public static final int    EVENT_COMMAND_INTERRUPT  = 3;
+
+    public static final String LOG_FILE_EXTENSION    = ".tlog";
+
+    /** Size of the record header (type, length, timestamp) */
+    static final int           RECORD_HEADER_SIZE    = 16;
+
+    private static final int   DEFAULT_BUFFER_SIZE   = 1 << 20;
+
+    /** Time for the writer thread to wait when there is nothing to write */
+    private static final long  WRITER_IDLE_NANOS     = 5_000_000L;
+
+    /** Time to wait for the previous writer thread when the log is started */
+    private static final long  WRITER_CLOSE_MILLIS   = 1000;
+
+    private final ArrayList<String>         channelNames     = new ArrayList<>();
+    private final ArrayList<DoubleSupplier> channelSuppliers = new ArrayList<>();
+    private final ArrayList<Boolean>        channelInputs    = new ArrayList<>();
+
+    private DoubleSupplier[]   suppliers;
+    private boolean[]          inputs;
+
+    // Values of the input channels sampled at the start of the loop
+    private double[]           inputValues;
+
+    private final int          bufferSize;
+    private final int          bufferMask;
+    private ByteBuffer         buffer;
+
+    // Byte positions in the ring buffer. The positions only increase
+    // and are masked to get the offset in the buffer.
+    private final AtomicLong   writePosition         = new AtomicLong();
+    private final AtomicLong   readPosition          = new AtomicLong();
+
+    private long               droppedRecordCount    = 0;
+
+    private final String       directory;
+    private File               logFile;
+    private Thread             writerThread;
+
+    private volatile boolean   isRunning             = false;
+
+    /**
+     * Construct a data log in the default log directory
+     * {@link #getDefaultLogDirectory()} with a 1MB ring buffer
+     */
+    public TDataLog() {
+        this(getDefaultLogDirectory(), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Construct a data log
+     *
+     * @param directory
+     *            the directory for the log files
+     * @param bufferSize
+     *            size of the ring buffer in bytes. The size is rounded up to a
+     *            power of two.
+     */
+    public TDataLog(String directory, int bufferSize) {
+
+        this.directory = directory;
+
+        int size = Integer.highestOneBit(Math.max(4096, bufferSize - 1)) << 1;
+
+        this.bufferSize = size;
+        this.bufferMask = size - 1;
+    }
+
+    /**
+     * Get the default log directory
+     * <p>
+     * Logs are written to a USB stick on the roboRIO if one is present
+     * ({@code /U/logs}), otherwise to {@code /home/lvuser/logs}. In the simulator,
+     * logs are written to the {@code logs} directory in the project.
+     *
+     * @return log directory
+     */
+    public static String getDefaultLogDirectory() {
+
+        if (RobotBase.isSimulation()) {
+            return "logs";
+        }
+
+        if (new File("/U").isDirectory()) {
+            return "/U/logs";
+        }
+
+        return "/home/lvuser/logs";
+    }
+
+    /**
+     * Add a channel to record each loop
+     * <p>
+     * Channels must be added before the log is started.
+     *
+     * @param name
+     *            of the channel
+     * @param supplier
+     *            of the channel value
+     */
+    public void addChannel(String name, DoubleSupplier supplier) {
+
+        if (isRunning) {
+            System.out.println("Cannot add channel " + name + " after the data log is started");
+            return;
+        }
+
+        channelNames.add(name);
+        channelSuppliers.add(supplier);
+        channelInputs.add(false);
+    }
+
+    /**
+     * Add an input channel to record each loop
+     * <p>
+     * Input channels are sampled at the start of the loop by
+     * {@link #sampleInputs()} instead of when the record is written, so the
+     * recorded value is the value used by the loop. Channels must be added
+     * before the log is started.
+     *
+     * @param name
+     *            of the channel
+     * @param supplier
+     *            of the channel value
+     */
+    public void addInputChannel(String name, DoubleSupplier supplier) {
+
+        if (isRunning) {
+            System.out.println("Cannot add channel " + name + " after the data log is started");
+            return;
+        }
+
+        channelNames.add(name);
+        channelSuppliers.add(supplier);
+        channelInputs.add(true);
+    }
+
+    /**
+     * Stop the data log
+     * <p>
+     * The writer thread writes all of the remaining records and closes the log
+     * file. If the log is started again, {@link #start()} waits for the writer
+     * thread to finish.
+     */
+    public synchronized void close() {
+
+        if (!isRunning) {
+            return;
+        }
+
+        isRunning = false;
+        LockSupport.unpark(writerThread);
+    }
+
+    /**
+     * Get the number of records that were dropped because the ring buffer was
+     * full
+     *
+     * @return dropped record count
+     */
+    public long getDroppedRecordCount() {
+        return droppedRecordCount;
+    }
+
+    /**
+     * Get the current log file
+     *
+     * @return log file or {@code null} if the log is not started
+     */
+    public File getLogFile() {
+        return logFile;
+    }
+
+    /**
+     * Indicates whether the data log is running
+     *
+     * @return {@code true} if running, {@code false} otherwise
+     */
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    /**
+     * Log an event
+     * <p>
+     * Events are used to record infrequent state changes such as commands
+     * starting and ending. Only the first 255 characters of the text are
+     * recorded.
+     *
+     * @param eventCode
+     *            code identifying the event
+     * @param text
+     *            describing the event
+     */
+    public void logEvent(int eventCode, String text) {
+
+        if (!isRunning) {
+            return;
+        }
+
+        int textLength    = Math.min(text.length(), 255);
+        int payloadLength = 4 + textLength;
+
+        long position = reserve(payloadLength);
+
+        if (position < 0) {
+            return;
+        }
+
+        putHeader(position, EVENT_RECORD, payloadLength, TLoopClock.getTime());
+
+        long offset = position + RECORD_HEADER_SIZE;
+
+        buffer.putInt((int) (offset & bufferMask), eventCode);
+        offset += 4;
+
+        for (int i = 0; i < textLength; i++) {
+            buffer.put((int) (offset & bufferMask), (byte) text.charAt(i));
+            offset++;
+        }
+
+        publish(position, payloadLength);
+    }
+
+    /**
+     * Record the value of every channel
+     * <p>
+     * This routine should be called once per loop after the commands have run.
+     */
+    public void record() {
+
+        if (!isRunning) {
+            return;
+        }
+
+        int payloadLength = suppliers.length * 8;
+
+        long position = reserve(payloadLength);
+
+        if (position < 0) {
+            return;
+        }
+
+        putHeader(position, DATA_RECORD, payloadLength, TLoopClock.getTime());
+
+        long offset = position + RECORD_HEADER_SIZE;
+
+        for (int i = 0; i < suppliers.length; i++) {
+
+            double value = inputs[i] ? inputValues[i] : suppliers[i].getAsDouble();
+
+            buffer.putDouble((int) (offset & bufferMask), value);
+            offset += 8;
+        }
+
+        publish(position, payloadLength);
+    }
+
+    /**
+     * Sample the input channels
+     * <p>
+     * This routine should be called once at the start of each loop after the
+     * robot sensors are read.
+     */
+    public void sampleInputs() {
+
+        if (!isRunning) {
+            return;
+        }
+
+        for (int i = 0; i < suppliers.length; i++) {
+            if (inputs[i]) {
+                inputValues[i] = suppliers[i].getAsDouble();
+            }
+        }
+    }
+
+    /**
+     * Start the data log
+     * <p>
+     * This routine allocates the ring buffer and starts the writer thread which
+     * creates the log file.
+     * <p>
+     * If the log was closed, the writer thread of the previous log file uses the
+     * ring buffer until it has written the remaining records, so the log is not
+     * started until that thread finishes.
+     */
+    public synchronized void start() {
+
+        if (isRunning) {
+            return;
+        }
+
+        if (writerThread != null) {
+
+            try {
+                writerThread.join(WRITER_CLOSE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (writerThread.isAlive()) {
+                System.out.println("Cannot start data log, the previous log " + logFile + " is still being written");
+                return;
+            }
+
+            writerThread = null;
+        }
+
+        suppliers   = channelSuppliers.toArray(new DoubleSupplier[0]);
+        inputs      = new boolean[suppliers.length];
+        inputValues = new double[suppliers.length];
+
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = channelInputs.get(i);
+        }
+
+        buffer = ByteBuffer.allocateDirect(bufferSize);
+
+        writePosition.set(0);
+        readPosition.set(0);
+
+        String fileName = "log_" + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date())
+                + LOG_FILE_EXTENSION;
+
+        logFile = new File(directory, fileName);
+
+        isRunning = true;
+
+        writerThread = new Thread(this::runWriter, "TDataLog writer");
+        writerThread.setDaemon(true);
+        writerThread.setPriority(Thread.MIN_PRIORITY);
+        writerThread.start();
+    }
+
+    /**
+     * Get the padded size of a record with the given payload length
+     */
+    private static int getRecordSize(int payloadLength) {
+        return RECORD_HEADER_SIZE + ((payloadLength + 7) & ~7);
+    }
+
+    private void publish(long position, int payloadLength) {
+        writePosition.lazySet(position + getRecordSize(payloadLength));
+    }
+
+    private void putHeader(long position, int type, int payloadLength, long timestamp) {
+
+        // Records are 8 byte aligned, so the header can wrap to the start of
+        // the ring buffer after the first 8 bytes. Each field is masked
+        // separately, and no field is split by the wrap.
+        buffer.putInt((int) (position & bufferMask), type);
+        buffer.putInt((int) ((position + 4) & bufferMask), payloadLength);
+        buffer.putLong((int) ((position + 8) & bufferMask), timestamp);
+    }
+
+    /**
+     * Reserve space in the ring buffer for a record
+     *
+     * @return the position of the record, or -1 if the ring buffer is full
+     */
+    private long reserve(int payloadLength) {
+
+        long position = writePosition.get();
+
+        if (position + getRecordSize(payloadLength) - readPosition.get() > bufferSize) {
+            droppedRecordCount++;
+            return -1;
+        }
+
+        return position;
+    }
+
+    /**
+     * Write the ring buffer to the log file until the log is closed.
+     */
+    private void runWriter() {
+
+        File parent = logFile.getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+
+        try (FileChannel channel = FileChannel.open(logFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            writeFileHeader(channel);
+
+            // The writer uses its own view of the ring buffer so that
+            // the position and limit do not affect the recording thread
+            ByteBuffer view = buffer.duplicate();
+
+            while (true) {
+
+                boolean running = isRunning;
+
+                long read  = readPosition.get();
+                long write = writePosition.get();
+
+                if (read == write) {
+
+                    if (!running) {
+                        break;
+                    }
+
+                    LockSupport.parkNanos(WRITER_IDLE_NANOS);
+                    continue;
+                }
+
+                // Write up to the end of the ring buffer
+                int offset = (int) (read & bufferMask);
+                int length = (int) Math.min(write - read, bufferSize - offset);
+
+                view.clear();
+                view.position(offset);
+                view.limit(offset + length);
+
+                while (view.hasRemaining()) {
+                    channel.write(view);
+                }
+
+                readPosition.lazySet(read + length);
+            }
+
+            channel.force(true);
+
+        } catch (IOException e) {
+            System.out.println("Data log " + logFile + " failed: " + e.getMessage());
+            isRunning = false;
+        }
+    }
+
+    private void writeFileHeader(FileChannel channel) throws IOException {
+
+        int headerSize = 12;
+        for (String name : channelNames) {
+            headerSize += 4 + name.getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(headerSize);
+
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(channelNames.size());
+
+        for (String name : channelNames) {
+            byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            header.putInt(nameBytes.length);
+            header.put(nameBytes);
+        }
+
+        header.flip();
+
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.torontocodingcollective.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+/**
+ * Data log reader
+ * <p>
+ * Reads a log file written by {@link TDataLog}. The whole log is read into
+ * memory when the reader is constructed.
+ * <p>
+ * A log that ends part way through a record (for example if the robot was
+ * turned off while writing) is read up to the last complete record.
+ */
+public class TDataLogReader {
+
+    private final String[]           channelNames;
+
+    private long[]                   dataTimestamps  = new long[1024];
+    private double[][]               dataValues      = new double[1024][];
+    private int                      dataRecordCount = 0;
+
+    private final ArrayList<Long>    eventTimestamps = new ArrayList<>();
+    private final ArrayList<Integer> eventCodes      = new ArrayList<>();
+    private final ArrayList<String>  eventText       = new ArrayList<>();
+
+    /**
+     * Read a data log file
+     *
+     * @param logFile
+     *            written by {@link TDataLog}
+     * @throws IOException
+     *             if the file cannot be read or is not a data log
+     */
+    public TDataLogReader(File logFile) throws IOException {
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(logFile.toPath()));
+
+        if (buffer.remaining() < 12 || buffer.getInt() != TDataLog.MAGIC) {
+            throw new IOException(logFile + " is not a data log");
+        }
+
+        int version = buffer.getInt();
+
+        if (version != TDataLog.VERSION) {
+            throw new IOException(logFile + " has unsupported version " + version);
+        }
+
+        channelNames = new String[buffer.getInt()];
+
+        for (int i = 0; i < channelNames.length; i++) {
+            byte[] name = new byte[buffer.getInt()];
+            buffer.get(name);
+            channelNames[i] = new String(name, StandardCharsets.UTF_8);
+        }
+
+        while (buffer.remaining() >= TDataLog.RECORD_HEADER_SIZE) {
+
+            int  type          = buffer.getInt();
+            int  payloadLength = buffer.getInt();
+            long timestamp     = buffer.getLong();
+
+            int  paddedLength  = (payloadLength + 7) & ~7;
+
+            if (buffer.remaining() < paddedLength) {
+                break;
+            }
+
+            int payloadStart = buffer.position();
+
+            switch (type) {
+
+            case TDataLog.DATA_RECORD:
+                addDataRecord(buffer, timestamp, payloadLength / 8);
+                break;
+
+            case TDataLog.EVENT_RECORD:
+                eventTimestamps.add(timestamp);
+                eventCodes.add(buffer.getInt());
+                byte[] text = new byte[payloadLength - 4];
+                buffer.get(text);
+                eventText.add(new String(text, StandardCharsets.US_ASCII));
+                break;
+
+            default:
+                System.out.println("Unknown record type " + type + " in " + logFile);
+                break;
+            }
+
+            buffer.position(payloadStart + paddedLength);
+        }
+    }
+
+    private void addDataRecord(ByteBuffer buffer, long timestamp, int valueCount) {
+
+        if (dataRecordCount == dataTimestamps.length) {
+
+            long[]     timestamps = new long[dataRecordCount * 2];
+            double[][] values     = new double[dataRecordCount * 2][];
+
+            System.arraycopy(dataTimestamps, 0, timestamps, 0, dataRecordCount);
+            System.arraycopy(dataValues,     0, values,     0, dataRecordCount);
+
+            dataTimestamps = timestamps;
+            dataValues     = values;
+        }
+
+        double[] values = new double[valueCount];
+
+        for (int i = 0; i < valueCount; i++) {
+            values[i] = buffer.getDouble();
+        }
+
+        dataTimestamps[dataRecordCount] = timestamp;
+        dataValues[dataRecordCount]     = values;
+
+        dataRecordCount++;
+    }
+
+    /**
+     * Get the number of channels in each data record
+     *
+     * @return channel count
+     */
+    public int getChannelCount() {
+        return channelNames.length;
+    }
+
+    /**
+     * Get the index of a channel in the data records
+     *
+     * @param name
+     *            of the channel
+     * @return channel index or -1 if the channel is not in the log
+     */
+    public int getChannelIndex(String name) {
+
+        for (int i = 0; i < channelNames.length; i++) {
+            if (channelNames[i].equals(name)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Get the name of a channel
+     *
+     * @param channel
+     *            index
+     * @return channel name
+     */
+    public String getChannelName(int channel) {
+        return channelNames[channel];
+    }
+
+    /**
+     * Get the number of data records
+     *
+     * @return data record count
+     */
+    public int getDataRecordCount() {
+        return dataRecordCount;
+    }
+
+    /**
+     * Get the time of a data record
+     *
+     * @param record
+     *            index
+     * @return FPGA time in microseconds
+     */
+    public long getDataTimestamp(int record) {
+        return dataTimestamps[record];
+    }
+
+    /**
+     * Get the value of a channel in a data record
+     *
+     * @param record
+     *            index
+     * @param channel
+     *            index {@link #getChannelIndex(String)}
+     * @return recorded value
+     */
+    public double getValue(int record, int channel) {
+        return dataValues[record][channel];
+    }
+
+    /**
+     * Get the number of event records
+     *
+     * @return event count
+     */
+    public int getEventCount() {
+        return eventCodes.size();
+    }
+
+    /**
+     * Get the event code of an event
+     *
+     * @param event
+     *            index
+     * @return event code (ie. {@link TDataLog#EVENT_COMMAND_INITIALIZE})
+     */
+    public int getEventCode(int event) {
+        return eventCodes.get(event);
+    }
+
+    /**
+     * Get the text of an event
+     *
+     * @param event
+     *            index
+     * @return event text
+     */
+    public String getEventText(int event) {
+        return eventText.get(event);
+    }
+
+    /**
+     * Get the time of an event
+     *
+     * @param event
+     *            index
+     * @return FPGA time in microseconds
+     */
+    public long getEventTimestamp(int event) {
+        return eventTimestamps.get(event);
+    }
+}
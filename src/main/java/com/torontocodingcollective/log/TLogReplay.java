@@ -0,0 +1,274 @@
+package com.torontocodingcollective.log;
+
+import java.util.ArrayList;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+
+/**
+ * Data log replay
+ * <p>
+ * The log replay runs the robot loop once for each data record in a
+ * {@link TDataLog} file in the simulator. Before each loop, the recorded input
+ * values (sensors, driver station controllers and robot state) are applied to
+ * the registered inputs, and after each loop the registered outputs (motor
+ * outputs) are compared to the recorded values.
+ * <p>
+ * The simulator time is paused and stepped to the recorded time of each
+ * record, so the replay is deterministic and runs as fast as the loop can be
+ * run.
+ * <p>
+ * Inputs are typically log backed sensors
+ * ({@link com.torontocodingcollective.sensors.encoder.TReplayEncoder},
+ * {@link com.torontocodingcollective.sensors.gyro.TReplayGyro}) that replace
+ * the robot sensors.
+ * <p>
+ * The recorded inputs must be the values latched at the start of each loop
+ * (see {@link TDataLog#addInputChannel(String, DoubleSupplier)}), and the
+ * record time must be the loop time
+ * {@link com.torontocodingcollective.TLoopClock}.
+ */
+public class TLogReplay {
+
+    /** The maximum number of mismatches that are printed */
+    private static final int MAX_PRINTED_MISMATCHES = 20;
+
+    private static class Input {
+
+        final int            channel;
+        final DoubleConsumer consumer;
+
+        Input(int channel, DoubleConsumer consumer) {
+            this.channel  = channel;
+            this.consumer = consumer;
+        }
+    }
+
+    private static class Output {
+
+        final int            channel;
+        final DoubleSupplier supplier;
+        final double         tolerance;
+
+        double               maxError      = 0;
+        int                  mismatchCount = 0;
+
+        Output(int channel, DoubleSupplier supplier, double tolerance) {
+            this.channel   = channel;
+            this.supplier  = supplier;
+            this.tolerance = tolerance;
+        }
+    }
+
+    private final TDataLogReader    log;
+
+    private final ArrayList<Input>  inputs        = new ArrayList<>();
+    private final ArrayList<Output> outputs       = new ArrayList<>();
+
+    private int                     mismatchCount = 0;
+
+    /**
+     * Construct a log replay
+     *
+     * @param log
+     *            {@link TDataLogReader} containing the recorded data
+     */
+    public TLogReplay(TDataLogReader log) {
+        this.log = log;
+    }
+
+    /**
+     * Add an input that is set from the recorded channel value before each loop
+     *
+     * @param channel
+     *            name of the recorded channel
+     * @param input
+     *            that accepts the recorded value
+     */
+    public void addInput(String channel, DoubleConsumer input) {
+
+        int channelIndex = log.getChannelIndex(channel);
+
+        if (channelIndex < 0) {
+            System.out.println("Replay input " + channel + " is not in the log");
+            return;
+        }
+
+        inputs.add(new Input(channelIndex, input));
+    }
+
+    /**
+     * Add the inputs for a driver station controller.
+     * <p>
+     * The controller must be recorded using the channels
+     * {@code "<name> Axis <n>"}, {@code "<name> Buttons"} and
+     * {@code "<name> POV"}.
+     *
+     * @param port
+     *            driver station port of the controller
+     * @param name
+     *            of the controller channels
+     * @param axisCount
+     *            number of recorded axes
+     */
+    public void addJoystickInputs(int port, String name, int axisCount) {
+
+        DriverStationSim.setJoystickAxisCount(port, axisCount);
+        DriverStationSim.setJoystickButtonCount(port, 32);
+        DriverStationSim.setJoystickPOVCount(port, 1);
+
+        for (int i = 0; i < axisCount; i++) {
+            final int axis = i;
+            addInput(name + " Axis " + axis, value -> DriverStationSim.setJoystickAxis(port, axis, value));
+        }
+
+        addInput(name + " Buttons", value -> DriverStationSim.setJoystickButtons(port, (int) value));
+        addInput(name + " POV",     value -> DriverStationSim.setJoystickPOV(port, 0, (int) value));
+    }
+
+    /**
+     * Add an output that is compared to the recorded channel value after each
+     * loop
+     *
+     * @param channel
+     *            name of the recorded channel
+     * @param output
+     *            supplier of the replayed value
+     * @param tolerance
+     *            the maximum difference between the recorded and replayed value
+     */
+    public void addOutput(String channel, DoubleSupplier output, double tolerance) {
+
+        int channelIndex = log.getChannelIndex(channel);
+
+        if (channelIndex < 0) {
+            System.out.println("Replay output " + channel + " is not in the log");
+            return;
+        }
+
+        outputs.add(new Output(channelIndex, output, tolerance));
+    }
+
+    /**
+     * Add the inputs for the robot state.
+     * <p>
+     * The robot state must be recorded using the channels {@code "Enabled"} and
+     * {@code "Autonomous"} with a value of 1 for {@code true} and 0 for
+     * {@code false}.
+     */
+    public void addRobotStateInputs() {
+
+        DriverStationSim.setDsAttached(true);
+
+        addInput("Enabled",    value -> DriverStationSim.setEnabled(value != 0));
+        addInput("Autonomous", value -> DriverStationSim.setAutonomous(value != 0));
+    }
+
+    /**
+     * Get the number of replayed values that did not match the recorded values
+     *
+     * @return mismatch count
+     */
+    public int getMismatchCount() {
+        return mismatchCount;
+    }
+
+    /**
+     * Replay the log
+     * <p>
+     * The loop is run once for each data record in the log. The routine prints a
+     * summary of the outputs that did not match the recorded values.
+     *
+     * @param loop
+     *            that runs one robot loop
+     * @return {@code true} if all outputs matched the recorded values,
+     *         {@code false} otherwise
+     */
+    public boolean run(Runnable loop) {
+
+        mismatchCount = 0;
+
+        for (Output output : outputs) {
+            output.maxError      = 0;
+            output.mismatchCount = 0;
+        }
+
+        int recordCount = log.getDataRecordCount();
+
+        if (recordCount == 0) {
+            System.out.println("Replay log has no data records");
+            return true;
+        }
+
+        long startTime = log.getDataTimestamp(0);
+        long prevTime  = startTime;
+
+        SimHooks.pauseTiming();
+
+        try {
+
+            for (int record = 0; record < recordCount; record++) {
+
+                long time = log.getDataTimestamp(record);
+
+                if (time > prevTime) {
+                    // The simulator truncates the step to whole microseconds
+                    SimHooks.stepTiming((time - prevTime + 0.5) / 1.0e6);
+                }
+                prevTime = time;
+
+                for (int i = 0; i < inputs.size(); i++) {
+                    Input input = inputs.get(i);
+                    input.consumer.accept(log.getValue(record, input.channel));
+                }
+
+                DriverStationSim.notifyNewData();
+
+                loop.run();
+
+                for (int i = 0; i < outputs.size(); i++) {
+                    compareOutput(outputs.get(i), record, (time - startTime) / 1.0e6);
+                }
+            }
+
+        } finally {
+            SimHooks.resumeTiming();
+        }
+
+        System.out.println("Replayed " + recordCount + " loops ("
+                + (prevTime - startTime) / 1.0e6 + "s), "
+                + mismatchCount + " mismatches");
+
+        for (Output output : outputs) {
+            System.out.println("  " + log.getChannelName(output.channel)
+                    + ": " + output.mismatchCount + " mismatches, max error " + output.maxError);
+        }
+
+        return mismatchCount == 0;
+    }
+
+    private void compareOutput(Output output, int record, double time) {
+
+        double recorded = log.getValue(record, output.channel);
+        double replayed = output.supplier.getAsDouble();
+
+        double error = Math.abs(replayed - recorded);
+
+        output.maxError = Math.max(output.maxError, error);
+
+        if (error <= output.tolerance) {
+            return;
+        }
+
+        output.mismatchCount++;
+        mismatchCount++;
+
+        if (mismatchCount <= MAX_PRINTED_MISMATCHES) {
+            System.out.println("Replay mismatch at " + time + "s (loop " + record + ") "
+                    + log.getChannelName(output.channel)
+                    + ": recorded " + recorded + ", replayed " + replayed);
+        }
+    }
+}
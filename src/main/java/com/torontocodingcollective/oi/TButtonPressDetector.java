@@ -12,14 +12,16 @@ package com.torontocodingcollective.oi;
  * The button must be released before the next press is detected.
  * <p>
  * Use the {@link #get()} method rather than the button's get() routine.
+ * <p>
+ * The detector is a view over the {@link TGameControllerEvents} of the game
+ * controller, and the presses are detected when the game controller is updated
+ * {@link TGameController#updatePeriodic()}.
  */
 public class TButtonPressDetector {
 
-	private final TGameController gameController;
-	private final TButton         button;
-	private final TStick          stick;
-	private final TTrigger        trigger;
-	private boolean               previousButtonState;
+	private final TGameControllerEvents events;
+	private final int                   bit;
+	private int                         lastPressCount;
 
 	/**
 	 * Declare a button press detector over the specified button on the
@@ -35,11 +37,7 @@ public class TButtonPressDetector {
 	 *            to use for the button press detector
 	 */
 	public TButtonPressDetector(TGameController gameController, TButton button) {
-		this.gameController = gameController;
-		this.button = button;
-		this.stick = null;
-		this.trigger = null;
-		this.previousButtonState = getCurrentButtonState();
+		this(gameController, TGameControllerEvents.getBit(button));
 	}
 
 	/**
@@ -52,11 +50,7 @@ public class TButtonPressDetector {
 	 *            (push) to use for the button press detector
 	 */
 	public TButtonPressDetector(TGameController gameController, TStick stick) {
-		this.gameController = gameController;
-		this.button = null;
-		this.stick = stick;
-		this.trigger = null;
-		this.previousButtonState = getCurrentButtonState();
+		this(gameController, TGameControllerEvents.getBit(stick));
 	}
 
 	/**
@@ -74,11 +68,13 @@ public class TButtonPressDetector {
 	 *            to use for the button press detector
 	 */
 	public TButtonPressDetector(TGameController gameController, TTrigger trigger) {
-		this.gameController = gameController;
-		this.button = null;
-		this.stick = null;
-		this.trigger = trigger;
-		this.previousButtonState = getCurrentButtonState();
+		this(gameController, TGameControllerEvents.getBit(trigger));
+	}
+
+	private TButtonPressDetector(TGameController gameController, int bit) {
+		this.events = gameController.getEvents();
+		this.bit = bit;
+		this.lastPressCount = events.getPressCount(bit);
 	}
 
 	/**
@@ -87,51 +83,19 @@ public class TButtonPressDetector {
 	 * NOTE: This routine should only be called once per controller cycle since
 	 * subsequent calls will always return {@code false}
 	 *
-	 * @return {@code true} if a press was detected since the last call or
-	 *         {@code false} otherwise
+	 * @return {@code true} if a press was detected since the last call and the
+	 *         button is still pressed, or {@code false} otherwise
 	 */
 	public boolean get() {
 
-		boolean currentButtonState = getCurrentButtonState();
-
-		// If the button was previously pressed then
-		// just update the button state
-		if (previousButtonState) {
-			previousButtonState = currentButtonState;
-		} else {
-
-			// If the button was not previously pressed, then
-			// return true if there is a new button press.
-			if (currentButtonState) {
-				previousButtonState = true;
-				return true;
-			}
-		}
-
-		return false;
-	}
-
-	/*
-	 * Get the button state based of the button attached to the button press
-	 * detector (based on type of button).
-	 *
-	 * @return boolean {@code true} if pressed, {@code false} otherwise
-	 */
-	private boolean getCurrentButtonState() {
-
-		if (button != null) {
-			return gameController.getButton(button);
-		}
+		int pressCount = events.getPressCount(bit);
 
-		if (trigger != null) {
-			return gameController.getButton(trigger);
-		}
+		// Only report a new press if the button has not been released
+		boolean pressed = pressCount != lastPressCount && events.isDown(bit);
 
-		if (stick != null) {
-			return gameController.getButton(stick);
-		}
+		lastPressCount = pressCount;
 
-		return true;
+		return pressed;
 	}
 
 }
@@ -1,5 +1,7 @@
 package com.torontocodingcollective.oi;
 
+import com.torontocodingcollective.TUtil;
+
 import edu.wpi.first.wpilibj.Joystick;
 
 /**
@@ -9,6 +11,15 @@ import edu.wpi.first.wpilibj.Joystick;
  * {@link edu.wpi.first.wpilibj.Joystick} class to access all buttons and axis
  * by name for a standard game controller.
  * <p>
+ * The axes, buttons and POV of the controller are read once per loop into a
+ * snapshot {@link #updatePeriodic()}, and all of the axis, button, trigger and
+ * POV routines return the values from the snapshot. This gives consistent
+ * values to all users of the controller in the same loop.
+ * <p>
+ * The pressed, released, held and toggle state of each button, trigger and
+ * POV direction are detected once per loop and are available from
+ * {@link #getEvents()}.
+ * <p>
  * This abstract class has 3 known implementations <br>
  * {@link TGameController_Logitech} <br>
  * {@link TGameController_PS} <br>
@@ -24,8 +35,6 @@ public abstract class TGameController extends Joystick {
      * value of zero is returned. Most GameControllers will have a deadband of less
      * than 0.07.
      * <p>
-     * Changes to this value will take place immediately.
-     * <p>
      * In order to test the deadband of the sticks on your controller set this value
      * to 0 to turn off the deadband filter.
      * <p>
@@ -34,9 +43,20 @@ public abstract class TGameController extends Joystick {
      * <p>
      * For the default deadband of .07, values of .08 and higher will not be
      * filtered.
+     * <p>
+     * Changes to this value take effect on the next {@link #updatePeriodic()}.
      */
     public double axisDeadband = 0.07;
 
+    // Snapshot of the controller read once per loop
+    private final TGameControllerState  state;
+
+    // Button edges detected once per loop
+    private final TGameControllerEvents events;
+
+    // Rounded and deadband filtered axis values for this loop
+    private final double[]              filteredAxes = new double[TGameControllerState.MAX_AXES];
+
     /**
      * Construct an instance of a GameController.
      * <p>
@@ -47,6 +67,9 @@ public abstract class TGameController extends Joystick {
      */
     protected TGameController(int port) {
         super(port);
+        state  = new TGameControllerState(port);
+        events = new TGameControllerEvents(this);
+        updatePeriodic();
     }
 
     /**
@@ -112,6 +135,17 @@ public abstract class TGameController extends Joystick {
      */
     protected abstract String getButtonString();;
 
+    /**
+     * Get the button edge events of this controller
+     * <p>
+     * The events are updated by {@link #updatePeriodic()}.
+     *
+     * @return {@link TGameControllerEvents} for this controller
+     */
+    public TGameControllerEvents getEvents() {
+        return events;
+    }
+
     /**
      * Round the axis to the nearest 100th.
      * 
@@ -123,14 +157,57 @@ public abstract class TGameController extends Joystick {
      */
     protected double getFilteredRawAxis(int axisNumber) {
 
-        // Round to the nearest 100th
-        double axisValue = Math.round(super.getRawAxis(axisNumber) * 100.0) / 100.0;
-
-        if (Math.abs(axisValue) <= axisDeadband) {
+        if (axisNumber < 0 || axisNumber >= state.getAxisCount()) {
             return 0;
         }
 
-        return axisValue;
+        return filteredAxes[axisNumber];
+    }
+
+    /**
+     * Get the POV angle from the snapshot of this controller
+     *
+     * @return POV angle in degrees or -1 if the POV is not pressed
+     */
+    @Override
+    public int getPOV() {
+        return state.getPOV();
+    }
+
+    /**
+     * Get the raw axis value from the snapshot of this controller
+     *
+     * @param axis
+     *            the DriverStation axis index
+     * @return raw axis value
+     */
+    @Override
+    public double getRawAxis(int axis) {
+        return state.getAxis(axis);
+    }
+
+    /**
+     * Get the raw button value from the snapshot of this controller
+     *
+     * @param button
+     *            the DriverStation button number (starting at 1)
+     * @return {@code true} if pressed, {@code false} otherwise
+     */
+    @Override
+    public boolean getRawButton(int button) {
+        return state.isButtonPressed(button);
+    }
+
+    /**
+     * Get the packed state of this controller (axes, buttons and POV)
+     * <p>
+     * The packed state is used for telemetry and logging and is much less
+     * expensive than {@link #toString()}.
+     *
+     * @return {@link TGameControllerState} snapshot for this loop
+     */
+    public TGameControllerState getState() {
+        return state;
     }
 
     /**
@@ -145,10 +222,27 @@ public abstract class TGameController extends Joystick {
      *         specified.
      */
     public TStickPosition getStickPosition(TStick stick) {
+        return getStickPosition(stick, new TStickPosition());
+    }
+
+    /**
+     * Get the stick position of the specified stick into a stick position owned
+     * by the caller.
+     * <p>
+     * This routine does not allocate a new stick position, and should be used in
+     * routines that run every loop.
+     * 
+     * @param stick
+     *            {@link TStick#LEFT} or {@link TStick#RIGHT}
+     * @param stickPosition
+     *            the TStickPosition to set to the (x,y) coordinates of the stick
+     * @return the stickPosition or {@code null} if an invalid stick is specified.
+     */
+    public TStickPosition getStickPosition(TStick stick, TStickPosition stickPosition) {
         switch (stick) {
         case LEFT:
         case RIGHT:
-            return new TStickPosition(getAxis(stick, TAxis.X), getAxis(stick, TAxis.Y));
+            return stickPosition.set(getAxis(stick, TAxis.X), getAxis(stick, TAxis.Y));
         default:
             System.out.println("Unsupported stick type " + stick + " for TGameController.getStickPosition()");
             return null;
@@ -176,13 +270,15 @@ public abstract class TGameController extends Joystick {
      */
     public boolean isStickActive(TStick stick) {
 
-        TStickPosition stickPosition = getStickPosition(stick);
-
-        if (stickPosition == null) {
+        switch (stick) {
+        case LEFT:
+        case RIGHT:
+            break;
+        default:
             return false;
         }
 
-        if (Math.abs(stickPosition.x) > 0 || Math.abs(stickPosition.y) > 0) {
+        if (Math.abs(getAxis(stick, TAxis.X)) > 0 || Math.abs(getAxis(stick, TAxis.Y)) > 0) {
             return true;
         }
 
@@ -247,6 +343,29 @@ public abstract class TGameController extends Joystick {
         super.setRumble(RumbleType.kRightRumble, volume);
     }
 
+    /**
+     * Read the snapshot of the controller for this loop
+     * <p>
+     * This routine reads the axes, buttons and POV from the DriverStation,
+     * applies the rounding and deadband to each axis and detects the button
+     * edges {@link #getEvents()}. It must be called once per loop before the
+     * controller is used (typically at the start of the OI periodic routine).
+     */
+    public void updatePeriodic() {
+
+        state.update();
+
+        for (int i = 0; i < state.getAxisCount(); i++) {
+
+            // Round to the nearest 100th
+            double axisValue = TUtil.round(state.getAxis(i), 2);
+
+            filteredAxes[i] = TUtil.deadband(axisValue, axisDeadband);
+        }
+
+        events.update();
+    }
+
     @Override
     public String toString() {
 
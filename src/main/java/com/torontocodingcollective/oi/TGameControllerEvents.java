@@ -0,0 +1,355 @@
+package com.torontocodingcollective.oi;
+
+import com.torontocodingcollective.TLoopClock;
+
+/**
+ * Button edge detection for a game controller
+ * <p>
+ * Every button, stick button, trigger (as a button) and POV direction of a
+ * {@link TGameController} is assigned a bit in a 64 bit mask. The mask is read
+ * once per loop when the controller is updated, and the pressed and released
+ * edges are found by comparing the mask to the mask from the previous loop:
+ * <br>
+ * {@code pressed  = current & ~previous} <br>
+ * {@code released = previous & ~current}
+ * <p>
+ * The events also track the time each input was pressed (to detect an input
+ * held for a number of milliseconds), the number of presses of each input,
+ * and a toggle state for each input that changes on each press.
+ * <p>
+ * All users of the controller see the same edges in the same loop.
+ * {@link TButtonPressDetector}, {@link TToggle} and {@link TPOVPressDetector}
+ * are views over the events of the controller.
+ * <p>
+ * Use {@link #getBit(TButton)}, {@link #getBit(TStick)},
+ * {@link #getBit(TTrigger)} or {@link #getPOVBit(int)} to get the bit of an
+ * input.
+ */
+public class TGameControllerEvents {
+
+    private static final TButton[]  BUTTONS            = TButton.values();
+    private static final TStick[]   STICKS             = TStick.values();
+    private static final TTrigger[] TRIGGERS           = TTrigger.values();
+
+    private static final int        STICK_BIT_OFFSET   = BUTTONS.length;
+    private static final int        TRIGGER_BIT_OFFSET = STICK_BIT_OFFSET + STICKS.length;
+    private static final int        POV_BIT_OFFSET     = TRIGGER_BIT_OFFSET + TRIGGERS.length;
+
+    /** Bit of the POV pressed in any direction */
+    public static final int         POV_ANY_BIT        = POV_BIT_OFFSET + 4;
+
+    private final TGameController   gameController;
+
+    private boolean                 initialized        = false;
+
+    private long                    currentMask        = 0;
+    private long                    pressedMask        = 0;
+    private long                    releasedMask       = 0;
+    private long                    toggleMask         = 0;
+
+    // Loop time in microseconds
+    private long                    updateTime         = 0;
+
+    private final long[]            pressTimes         = new long[64];
+    private final int[]             pressCounts        = new int[64];
+
+    /**
+     * Construct the events for a game controller
+     *
+     * @param gameController
+     *            the controller used to read the inputs
+     */
+    public TGameControllerEvents(TGameController gameController) {
+        this.gameController = gameController;
+    }
+
+    /**
+     * Get the bit of a button
+     *
+     * @param button
+     *            {@link TButton}
+     * @return bit index
+     */
+    public static int getBit(TButton button) {
+        return button.ordinal();
+    }
+
+    /**
+     * Get the bit of a stick button
+     *
+     * @param stick
+     *            {@link TStick}
+     * @return bit index
+     */
+    public static int getBit(TStick stick) {
+        return STICK_BIT_OFFSET + stick.ordinal();
+    }
+
+    /**
+     * Get the bit of a trigger used as a button
+     *
+     * @param trigger
+     *            {@link TTrigger}
+     * @return bit index
+     */
+    public static int getBit(TTrigger trigger) {
+        return TRIGGER_BIT_OFFSET + trigger.ordinal();
+    }
+
+    /**
+     * Get the bit of a POV direction
+     * <p>
+     * A diagonal POV angle (ie. 45 deg) presses both adjacent directions.
+     *
+     * @param angle
+     *            0 (up), 90 (right), 180 (down) or 270 (left)
+     * @return bit index or -1 if the angle is not a POV direction
+     */
+    public static int getPOVBit(int angle) {
+
+        switch (angle) {
+        case 0:
+            return POV_BIT_OFFSET;
+        case 90:
+            return POV_BIT_OFFSET + 1;
+        case 180:
+            return POV_BIT_OFFSET + 2;
+        case 270:
+            return POV_BIT_OFFSET + 3;
+        default:
+            return -1;
+        }
+    }
+
+    /**
+     * Get the mask of inputs that are down in this loop
+     *
+     * @return input bitmask
+     */
+    public long getCurrentMask() {
+        return currentMask;
+    }
+
+    /**
+     * Get the number of times an input was pressed
+     *
+     * @param bit
+     *            of the input
+     * @return press count
+     */
+    public int getPressCount(int bit) {
+
+        if (bit < 0 || bit >= 64) {
+            return 0;
+        }
+
+        return pressCounts[bit];
+    }
+
+    /**
+     * Get the mask of inputs that were pressed in this loop
+     *
+     * @return input bitmask
+     */
+    public long getPressedMask() {
+        return pressedMask;
+    }
+
+    /**
+     * Get the mask of inputs that were released in this loop
+     *
+     * @return input bitmask
+     */
+    public long getReleasedMask() {
+        return releasedMask;
+    }
+
+    /**
+     * Get the toggle state of an input
+     * <p>
+     * The toggle state changes each time the input is pressed.
+     *
+     * @param bit
+     *            of the input
+     * @return toggle state
+     */
+    public boolean getToggle(int bit) {
+        return isSet(toggleMask, bit);
+    }
+
+    /**
+     * Indicates whether an input is down in this loop
+     *
+     * @param bit
+     *            of the input
+     * @return {@code true} if down, {@code false} otherwise
+     */
+    public boolean isDown(int bit) {
+        return isSet(currentMask, bit);
+    }
+
+    /**
+     * Indicates whether an input has been held down for at least the specified
+     * time
+     *
+     * @param bit
+     *            of the input
+     * @param millis
+     *            hold time in milliseconds
+     * @return {@code true} if held for the time, {@code false} otherwise
+     */
+    public boolean isHeldFor(int bit, long millis) {
+
+        if (!isDown(bit)) {
+            return false;
+        }
+
+        return updateTime - pressTimes[bit] >= millis * 1000;
+    }
+
+    /**
+     * Indicates whether an input was pressed in this loop
+     *
+     * @param bit
+     *            of the input
+     * @return {@code true} if pressed in this loop, {@code false} otherwise
+     */
+    public boolean isPressed(int bit) {
+        return isSet(pressedMask, bit);
+    }
+
+    /**
+     * Indicates whether an input was released in this loop
+     *
+     * @param bit
+     *            of the input
+     * @return {@code true} if released in this loop, {@code false} otherwise
+     */
+    public boolean isReleased(int bit) {
+        return isSet(releasedMask, bit);
+    }
+
+    /**
+     * Set the toggle state of an input
+     *
+     * @param bit
+     *            of the input
+     * @param state
+     *            of the toggle
+     */
+    public void setToggle(int bit, boolean state) {
+
+        if (bit < 0 || bit >= 64) {
+            return;
+        }
+
+        if (state) {
+            toggleMask |= 1L << bit;
+        } else {
+            toggleMask &= ~(1L << bit);
+        }
+    }
+
+    /**
+     * Read the inputs from the game controller and detect the edges
+     * <p>
+     * This routine is called by the {@link TGameController#updatePeriodic()}
+     * after the controller snapshot is read.
+     * <p>
+     * Inputs that are down when the first update is run are not counted as
+     * pressed, and are held from the time of the first update.
+     */
+    public void update() {
+
+        updateTime = TLoopClock.getTime();
+
+        long mask = readMask();
+
+        long previousMask = currentMask;
+
+        if (!initialized) {
+
+            // Inputs held at the first update are held from this time
+            previousMask = mask;
+
+            for (int i = 0; i < pressTimes.length; i++) {
+                pressTimes[i] = updateTime;
+            }
+
+            initialized = true;
+        }
+
+        currentMask  = mask;
+        pressedMask  = mask & ~previousMask;
+        releasedMask = previousMask & ~mask;
+        toggleMask  ^= pressedMask;
+
+        // Record the time and count of each press
+        long pressed = pressedMask;
+
+        while (pressed != 0) {
+
+            int bit = Long.numberOfTrailingZeros(pressed);
+
+            pressTimes[bit] = updateTime;
+            pressCounts[bit]++;
+
+            pressed &= pressed - 1;
+        }
+    }
+
+    private static boolean isSet(long mask, int bit) {
+
+        if (bit < 0 || bit >= 64) {
+            return false;
+        }
+
+        return (mask & (1L << bit)) != 0;
+    }
+
+    private long readMask() {
+
+        long mask = 0;
+
+        for (int i = 0; i < BUTTONS.length; i++) {
+            if (gameController.getButton(BUTTONS[i])) {
+                mask |= 1L << i;
+            }
+        }
+
+        for (int i = 0; i < STICKS.length; i++) {
+            if (gameController.getButton(STICKS[i])) {
+                mask |= 1L << (STICK_BIT_OFFSET + i);
+            }
+        }
+
+        for (int i = 0; i < TRIGGERS.length; i++) {
+            if (gameController.getButton(TRIGGERS[i])) {
+                mask |= 1L << (TRIGGER_BIT_OFFSET + i);
+            }
+        }
+
+        int pov = gameController.getPOV();
+
+        if (pov >= 0) {
+
+            mask |= 1L << POV_ANY_BIT;
+
+            // Diagonals press both adjacent directions
+            if (pov >= 315 || pov <= 45) {
+                mask |= 1L << getPOVBit(0);
+            }
+            if (pov >= 45 && pov <= 135) {
+                mask |= 1L << getPOVBit(90);
+            }
+            if (pov >= 135 && pov <= 225) {
+                mask |= 1L << getPOVBit(180);
+            }
+            if (pov >= 225 && pov <= 315) {
+                mask |= 1L << getPOVBit(270);
+            }
+        }
+
+        return mask;
+    }
+}
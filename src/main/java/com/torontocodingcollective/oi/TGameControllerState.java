@@ -0,0 +1,164 @@
+package com.torontocodingcollective.oi;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Packed state of a game controller
+ * <p>
+ * The state contains the raw axis values, the button bitmask and the POV of
+ * the controller read from the DriverStation. The state can be packed into a
+ * numeric array {@link #toArray()} for telemetry with the layout: <br>
+ * {@code [buttons, pov, axis0, axis1, ...]}
+ * <p>
+ * The state is preallocated and reading the state does not allocate unless
+ * the number of axes on the controller changes.
+ */
+public class TGameControllerState {
+
+    /** Maximum number of axes on a DriverStation controller */
+    public static final int MAX_AXES      = 12;
+
+    /** Index of the button bitmask in the packed array */
+    public static final int BUTTONS_INDEX = 0;
+
+    /** Index of the POV in the packed array */
+    public static final int POV_INDEX     = 1;
+
+    /** Index of the first axis in the packed array */
+    public static final int AXIS_INDEX    = 2;
+
+    private final int       port;
+
+    private final double[]  axes          = new double[MAX_AXES];
+    private int             axisCount     = 0;
+    private int             buttons       = 0;
+    private int             pov           = -1;
+
+    private double[]        packed        = new double[AXIS_INDEX];
+
+    /**
+     * Construct the state for the controller on a DriverStation port
+     *
+     * @param port
+     *            the DriverStation port of the controller
+     */
+    public TGameControllerState(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Get the raw value of an axis
+     *
+     * @param axis
+     *            the DriverStation axis index
+     * @return raw axis value or 0 if the axis is not on the controller
+     */
+    public double getAxis(int axis) {
+
+        if (axis < 0 || axis >= axisCount) {
+            return 0;
+        }
+
+        return axes[axis];
+    }
+
+    /**
+     * Get the number of axes on the controller
+     *
+     * @return axis count
+     */
+    public int getAxisCount() {
+        return axisCount;
+    }
+
+    /**
+     * Get the button bitmask
+     * <p>
+     * Button 1 is the lowest bit.
+     *
+     * @return button bitmask
+     */
+    public int getButtons() {
+        return buttons;
+    }
+
+    /**
+     * Get the POV angle
+     *
+     * @return POV angle in degrees or -1 if the POV is not pressed
+     */
+    public int getPOV() {
+        return pov;
+    }
+
+    /**
+     * Indicates whether a button is pressed
+     *
+     * @param buttonNumber
+     *            the DriverStation button number (starting at 1)
+     * @return {@code true} if pressed, {@code false} otherwise
+     */
+    public boolean isButtonPressed(int buttonNumber) {
+
+        if (buttonNumber < 1 || buttonNumber > 32) {
+            return false;
+        }
+
+        return (buttons & (1 << (buttonNumber - 1))) != 0;
+    }
+
+    /**
+     * Get the state packed into a numeric array
+     * <p>
+     * The array is {@code [buttons, pov, axis0, axis1, ...]}. The returned array
+     * is owned by this state and is updated by {@link #update()}.
+     *
+     * @return packed state
+     */
+    public double[] toArray() {
+        return packed;
+    }
+
+    /**
+     * Read the state of the controller from the DriverStation
+     *
+     * @return {@code true} if the state changed since the last update,
+     *         {@code false} otherwise
+     */
+    public boolean update() {
+
+        boolean changed = false;
+
+        int newAxisCount = Math.min(DriverStation.getStickAxisCount(port), MAX_AXES);
+
+        if (newAxisCount != axisCount) {
+            axisCount = newAxisCount;
+            packed    = new double[AXIS_INDEX + axisCount];
+            changed   = true;
+        }
+
+        for (int i = 0; i < axisCount; i++) {
+
+            double value = DriverStation.getStickAxis(port, i);
+
+            if (value != axes[i] || changed) {
+                axes[i]                = value;
+                packed[AXIS_INDEX + i] = value;
+                changed                = true;
+            }
+        }
+
+        int newButtons = DriverStation.getStickButtons(port);
+        int newPov     = DriverStation.getStickPOVCount(port) > 0 ? DriverStation.getStickPOV(port, 0) : -1;
+
+        if (newButtons != buttons || newPov != pov || changed) {
+            buttons               = newButtons;
+            pov                   = newPov;
+            packed[BUTTONS_INDEX] = buttons;
+            packed[POV_INDEX]     = pov;
+            changed               = true;
+        }
+
+        return changed;
+    }
+}
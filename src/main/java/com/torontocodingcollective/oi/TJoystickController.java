@@ -1,5 +1,7 @@
 package com.torontocodingcollective.oi;
 
+import com.torontocodingcollective.TUtil;
+
 import edu.wpi.first.wpilibj.Joystick;
 
 /**
@@ -59,13 +61,9 @@ public abstract class TJoystickController extends Joystick {
     protected double filterAxisValue(double axisValue) {
 
         // Round to the nearest 100th
-        double roundedValue = Math.round(axisValue * 100) / 100;
+        double roundedValue = TUtil.round(axisValue, 2);
 
-        if (Math.abs(roundedValue) <= axisDeadband) {
-            return 0;
-        }
-
-        return roundedValue;
+        return TUtil.deadband(roundedValue, axisDeadband);
     };
 
     /**
@@ -136,9 +134,24 @@ public abstract class TJoystickController extends Joystick {
      * @return
      */
     public TStickPosition getStickPosition() {
-        return new TStickPosition(getAxis(TAxis.X), getAxis(TAxis.Y));
+        return getStickPosition(new TStickPosition());
     };
 
+    /**
+     * Get the stick position for this joystick into a stick position owned by
+     * the caller.
+     * <p>
+     * This routine does not allocate a new stick position, and should be used in
+     * routines that run every loop.
+     * 
+     * @param stickPosition
+     *            the TStickPosition to set to the (x,y) coordinates of the stick
+     * @return the stickPosition
+     */
+    public TStickPosition getStickPosition(TStickPosition stickPosition) {
+        return stickPosition.set(getAxis(TAxis.X), getAxis(TAxis.Y));
+    }
+
     /**
      * Get the trigger on theTJoystickController
      * <p>
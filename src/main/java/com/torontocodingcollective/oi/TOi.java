@@ -41,6 +41,30 @@ public abstract class TOi extends SubsystemBase {
 	 */
 	public abstract TStickPosition getDriveStickPosition(TStick stick);
 
+	/**
+	 * Get the stick position for the specified stick into a stick position owned
+	 * by the caller
+	 * <p>
+	 * Subclasses should override this routine so that it does not allocate a new
+	 * stick position each loop.
+	 *
+	 * @param stick         the {@link TStick#LEFT} or {@link TStick#RIGHT} stick
+	 *                      for the driver
+	 * @param stickPosition the {@link TStickPosition} to set
+	 * @return the stickPosition or {@code null} if the stick is not used for
+	 *         driving
+	 */
+	public TStickPosition getDriveStickPosition(TStick stick, TStickPosition stickPosition) {
+
+		TStickPosition position = getDriveStickPosition(stick);
+
+		if (position == null) {
+			return null;
+		}
+
+		return stickPosition.set(position.x, position.y);
+	}
+
 	/**
 	 * Return the state of the reset button.
 	 * <p>
@@ -14,11 +14,16 @@ package com.torontocodingcollective.oi;
  * since it is unlikely that the underlying POV will return a 45 deg increment
  * on the first press. It is recommended to only use this class to detect values
  * of 0, 90, 180 and 270 degrees.
+ * <p>
+ * The detector is a view over the {@link TGameControllerEvents} of the game
+ * controller, and the presses are detected when the game controller is updated
+ * {@link TGameController#updatePeriodic()}.
  */
 public class TPOVPressDetector {
 
-    private final TGameController gameController;
-    private int                   previousPovValue;
+    private final TGameController       gameController;
+    private final TGameControllerEvents events;
+    private int                         lastPressCount;
 
     /**
      * Declare a press detector over the POV <br>
@@ -28,7 +33,8 @@ public class TPOVPressDetector {
      */
     public TPOVPressDetector(TGameController gameController) {
         this.gameController = gameController;
-        this.previousPovValue = gameController.getPOV();
+        this.events = gameController.getEvents();
+        this.lastPressCount = events.getPressCount(TGameControllerEvents.POV_ANY_BIT);
     }
 
     /**
@@ -37,30 +43,21 @@ public class TPOVPressDetector {
      * NOTE: This routine should only be called once per controller cycle since
      * subsequent calls will always return {@value -1}
      * 
-     * @return {@code true} if a press was detected since the last call or
-     *         {@code false} otherwise
+     * @return the POV angle if a press was detected since the last call and the
+     *         POV is still pressed, or {@code -1} otherwise
      */
     public int get() {
 
-        int newPOVValue = gameController.getPOV();
+        int pressCount = events.getPressCount(TGameControllerEvents.POV_ANY_BIT);
 
-        // If the button was previously pressed (!= -1) then
-        // do not update the POV angle until the POV is released.
-        if (previousPovValue != -1) {
+        // Only report a new press if the POV has not been released
+        boolean pressed = pressCount != lastPressCount
+                && events.isDown(TGameControllerEvents.POV_ANY_BIT);
 
-            // Only update the value if the new value
-            // is not pressed (-1).
-            if (newPOVValue == -1) {
-                previousPovValue = -1;
-            }
-        } else {
+        lastPressCount = pressCount;
 
-            // If the POV was not previously pressed (previous value = -1),
-            // then return the new angle value if there is a new button press.
-            if (newPOVValue != -1) {
-                previousPovValue = newPOVValue;
-                return newPOVValue;
-            }
+        if (pressed) {
+            return gameController.getPOV();
         }
 
         return -1;
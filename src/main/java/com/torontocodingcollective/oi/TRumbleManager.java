@@ -1,6 +1,7 @@
 package com.torontocodingcollective.oi;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import com.torontocodingcollective.telemetry.TTelemetry;
+import com.torontocodingcollective.telemetry.TTelemetry.TTier;
 
 /**
  * The RumbleManager class is used to control the rumble on a GameController.
@@ -8,7 +9,6 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 public class TRumbleManager {
 
     private final TGameController gameController;
-    private String                smartDashboardName;
     private long                  timerEndTime    = 0;
     private int                   pulseCount      = 0;
     private double                pulseOnSeconds  = 0;
@@ -22,7 +22,8 @@ public class TRumbleManager {
 
     public TRumbleManager(String name, TGameController gameController) {
         this.gameController = gameController;
-        this.smartDashboardName = name + " rumble";
+
+        TTelemetry.addBoolean(name + " rumble", () -> state == State.ON, TTier.NORMAL);
     }
 
     public void rumbleOn() {
@@ -108,8 +109,6 @@ public class TRumbleManager {
     public void updatePeriodic() {
 
         updateRumble();
-
-        SmartDashboard.putBoolean(smartDashboardName, state == State.ON);
     }
 
 }
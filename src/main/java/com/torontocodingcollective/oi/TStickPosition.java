@@ -4,7 +4,8 @@ package com.torontocodingcollective.oi;
  * The TStickPosition class is used to represent the x,y coordinates (position)
  * of a stick.
  * <p>
- * The stick position is immutable.
+ * A stick position can be reused in each loop {@link #set(double, double)} to
+ * avoid allocating a new stick position.
  */
 public class TStickPosition {
 
@@ -13,10 +14,15 @@ public class TStickPosition {
     /** Y coordinate of this stick position */
     public double y;
 
+    /**
+     * Construct a stick position at (0,0)
+     */
+    public TStickPosition() {
+        this(0, 0);
+    }
+
     /**
      * Construct a stick position based on the passed in x and y
-     * <p>
-     * Stick positions are immutable
      * 
      * @param x
      * @param y
@@ -26,6 +32,19 @@ public class TStickPosition {
         this.y = y;
     }
 
+    /**
+     * Set the x and y coordinates of this stick position
+     *
+     * @param x
+     * @param y
+     * @return this stick position
+     */
+    public TStickPosition set(double x, double y) {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
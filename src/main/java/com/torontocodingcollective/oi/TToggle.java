@@ -1,22 +1,23 @@
 package com.torontocodingcollective.oi;
 
 /**
- * The TToggle class implements a Toggle on the passed in button. The
- * {@link #updatePeriodic() } method must be called each loop for this toggle in
- * order for the toggle to track each button state. The toggle switches state on
- * a transition from not pressed, button {@code false} to pressed, button
- * {@code true}.
+ * The TToggle class implements a Toggle on the passed in button. The toggle
+ * switches state on a transition from not pressed, button {@code false} to
+ * pressed, button {@code true}.
+ * <p>
+ * A toggle over a game controller button is a view over the toggle state in the
+ * {@link TGameControllerEvents} of the game controller, which is updated when
+ * the game controller is updated {@link TGameController#updatePeriodic()}. All
+ * toggles over the same button share the same state.
  * <p>
  * Use the {@link #get()} method to get the current state of the toggle.
  */
 public class TToggle {
 
-    private boolean               toggleState;
-    private final TGameController gameController;
-    private final TButton         button;
-    private final TStick          stick;
-    private final TTrigger        trigger;
-    private boolean               previousButtonState;
+    private final TGameControllerEvents events;
+    private final int                   bit;
+    private boolean                     toggleState;
+    private boolean                     previousButtonState;
 
     /**
      * Declare a generic toggle.
@@ -27,10 +28,8 @@ public class TToggle {
      * update the state of the toggle based on the current state of the input
      */
     public TToggle() {
-        this.gameController = null;
-        this.button = null;
-        this.stick = null;
-        this.trigger = null;
+        this.events = null;
+        this.bit = -1;
         this.toggleState = false;
         this.previousButtonState = false;
     }
@@ -69,12 +68,7 @@ public class TToggle {
      *            of the toggle
      */
     public TToggle(TGameController gameController, TButton button, boolean initialState) {
-        this.gameController = gameController;
-        this.button = button;
-        this.stick = null;
-        this.trigger = null;
-        this.toggleState = initialState;
-        this.previousButtonState = gameController.getButton(button);
+        this(gameController, TGameControllerEvents.getBit(button), initialState);
     }
 
     /**
@@ -102,12 +96,7 @@ public class TToggle {
      *            of the toggle
      */
     public TToggle(TGameController gameController, TStick stick, boolean initialState) {
-        this.gameController = gameController;
-        this.button = null;
-        this.stick = stick;
-        this.trigger = null;
-        this.toggleState = initialState;
-        this.previousButtonState = gameController.getButton(stick);
+        this(gameController, TGameControllerEvents.getBit(stick), initialState);
     }
 
     /**
@@ -142,12 +131,15 @@ public class TToggle {
      *            of the toggle
      */
     public TToggle(TGameController gameController, TTrigger trigger, boolean initialState) {
-        this.gameController = gameController;
-        this.button = null;
-        this.stick = null;
-        this.trigger = trigger;
+        this(gameController, TGameControllerEvents.getBit(trigger), initialState);
+    }
+
+    private TToggle(TGameController gameController, int bit, boolean initialState) {
+        this.events = gameController.getEvents();
+        this.bit = bit;
         this.toggleState = initialState;
-        this.previousButtonState = gameController.getButton(trigger);
+        this.previousButtonState = events.isDown(bit);
+        events.setToggle(bit, initialState);
     }
 
     /**
@@ -156,6 +148,11 @@ public class TToggle {
      * @return {@code true} or {@code false}
      */
     public boolean get() {
+
+        if (events != null) {
+            return events.getToggle(bit);
+        }
+
         return toggleState;
     }
 
@@ -166,47 +163,37 @@ public class TToggle {
      *            value {@code true} or {@code false}
      */
     public void set(boolean set) {
+
+        if (events != null) {
+            events.setToggle(bit, set);
+        }
+
         toggleState = set;
     }
 
     /**
      * UpdatePeriodic
      * <p>
-     * This routine must be called every loop in order to update the state of the
-     * toggle based on the game controller and button.
+     * The state of a toggle over a game controller button is updated when the
+     * game controller is updated {@link TGameController#updatePeriodic()}, and
+     * this routine does nothing.
      */
     public void updatePeriodic() {
-
-        boolean curButtonState = false;
-
-        if (gameController != null) {
-	        if (button != null) {
-	            curButtonState = gameController.getButton(button);
-	        }
-	        if (stick != null) {
-	            curButtonState = gameController.getButton(stick);
-	        }
-	        if (trigger != null) {
-	            curButtonState = gameController.getButton(trigger);
-	        }
-        }
-
-        updatePeriodic(curButtonState);
+        // The toggle state is updated by the game controller events
     }
 
     /**
      * UpdatePeriodic
      * <p>
-     * This routine must be called every loop in order to update the state of the
-     * toggle based on the game controller and button.  If the constructor
-     * does not pass in a game controller and button, use this routine to 
-     * update the toggle based on another criteria
+     * If the constructor does not pass in a game controller and button, this
+     * routine must be called every loop to update the toggle based on another
+     * criteria
      * @param currentInputState of the toggle input
      */
     public void updatePeriodic(boolean currentInputState) {
 
         if (currentInputState && !previousButtonState) {
-            toggleState = !toggleState;
+            set(!get());
         }
         previousButtonState = currentInputState;
     }
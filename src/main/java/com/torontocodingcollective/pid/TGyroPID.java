@@ -1,5 +1,7 @@
 package com.torontocodingcollective.pid;
 
+import com.torontocodingcollective.TUtil;
+
 import edu.wpi.first.math.controller.PIDController;
 
 /**
@@ -59,15 +61,8 @@ public class TGyroPID extends PIDController {
         // Add the proportional output
         double proportionalOutput = super.getP() * error;
 
-        // The output cannot steer more than 1.0
-        if (proportionalOutput > 1.0) {
-            proportionalOutput = 1.0;
-        }
-
-        // The output cannot steer less than -1.0
-        if (proportionalOutput < -1.0) {
-            proportionalOutput = -1.0;
-        }
+        // The output cannot steer more than 1.0 or less than -1.0
+        proportionalOutput = TUtil.clamp(proportionalOutput, -1.0, 1.0);
 
         double totalOutput = proportionalOutput;
 
@@ -98,15 +93,8 @@ public class TGyroPID extends PIDController {
 
             totalOutput = proportionalOutput + integralOutput;
 
-            // The output cannot steer more than 1.0
-            if (totalOutput > 1.0) {
-                totalOutput = 1.0;
-            }
-
-            // The output cannot steer less than -1.0
-            if (totalOutput < -1.0) {
-                totalOutput = -1.0;
-            }
+            // The output cannot steer more than 1.0 or less than -1.0
+            totalOutput = TUtil.clamp(totalOutput, -1.0, 1.0);
         }
 
         output = totalOutput;
@@ -148,26 +136,11 @@ public class TGyroPID extends PIDController {
             return 0;
         }
 
-        // Normalize the gyro angle.
-        // Current gyro angle is -infinity to +infinity
-        double normalizedGyroAngle = currentGyroAngle % 360.0d;
-
-        if (normalizedGyroAngle < 0) {
-            normalizedGyroAngle = normalizedGyroAngle + 360.0;
-        }
-
         // Calculate the error
         // Normalize the error for the shortest path.
         // The normalized error should be -180 and +180.
-        error = super.getSetpoint() - normalizedGyroAngle;
+        error = TUtil.angleError(super.getSetpoint(), currentGyroAngle);
 
-        if (error > 180) {
-            error = error - 360.0;
-        }
-
-        if (error < -180) {
-            error = error + 360.0;
-        }
         return error;
     }
 
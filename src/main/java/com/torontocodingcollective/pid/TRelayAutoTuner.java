@@ -0,0 +1,213 @@
+package com.torontocodingcollective.pid;
+
+/**
+ * Relay feedback auto tuner (Astrom-Hagglund).
+ * <p>
+ * The auto tuner replaces the PID controller with a relay that drives the
+ * output to {@code +relayOutput} when the error is positive and
+ * {@code -relayOutput} when the error is negative. For most plants this
+ * produces a stable oscillation (limit cycle) of the process variable.
+ * <p>
+ * The period of the oscillation is the ultimate period (Tu) and the ultimate
+ * gain is calculated from the relay output (d) and the oscillation amplitude
+ * (a) as {@code Ku = 4d / (pi * sqrt(a^2 - h^2))} where h is the relay
+ * hysteresis.
+ * <p>
+ * The {@link #calculate(double, double)} routine must be called once each loop
+ * and the returned value applied to the plant.
+ */
+public class TRelayAutoTuner {
+
+    private final double relayOutput;
+    private final double hysteresis;
+    private final int    requiredCycles;
+
+    private double output;
+
+    private boolean isComplete;
+
+    private int    cycleCount;
+    private double lastRisingTime;
+    private double periodSum;
+
+    private double cycleMaxError;
+    private double cycleMinError;
+    private double amplitudeSum;
+
+    private double ultimateGain;
+    private double ultimatePeriod;
+
+    /**
+     * Relay Auto Tuner
+     *
+     * @param relayOutput
+     *            the amplitude of the relay output (d)
+     * @param hysteresis
+     *            the error band around zero in which the relay does not switch.
+     *            The hysteresis prevents noise from switching the relay.
+     * @param requiredCycles
+     *            the number of oscillation cycles to average. The first cycle is
+     *            not used since the oscillation has not settled.
+     */
+    public TRelayAutoTuner(double relayOutput, double hysteresis, int requiredCycles) {
+        this.relayOutput    = Math.abs(relayOutput);
+        this.hysteresis     = Math.abs(hysteresis);
+        this.requiredCycles = Math.max(1, requiredCycles);
+        reset();
+    }
+
+    /**
+     * Calculate the relay output
+     *
+     * @param error
+     *            the difference between the setpoint and the process variable
+     * @param time
+     *            the current time in seconds
+     * @return the relay output to apply to the plant. When the tuning is complete,
+     *         the output will be zero.
+     */
+    public double calculate(double error, double time) {
+
+        if (isComplete) {
+            output = 0;
+            return output;
+        }
+
+        cycleMaxError = Math.max(cycleMaxError, error);
+        cycleMinError = Math.min(cycleMinError, error);
+
+        if (output <= 0 && error > hysteresis) {
+
+            // A rising switch marks the start of a new cycle
+            output = relayOutput;
+
+            if (lastRisingTime >= 0) {
+
+                cycleCount++;
+
+                // Skip the first cycle which includes the
+                // initial transient
+                if (cycleCount > 1) {
+                    periodSum    += time - lastRisingTime;
+                    amplitudeSum += (cycleMaxError - cycleMinError) / 2.0;
+                }
+
+                if (cycleCount > requiredCycles) {
+                    complete();
+                    return output;
+                }
+            }
+
+            lastRisingTime = time;
+            cycleMaxError  = error;
+            cycleMinError  = error;
+
+        } else if (output >= 0 && error < -hysteresis) {
+
+            output = -relayOutput;
+        }
+
+        return output;
+    }
+
+    /**
+     * Get the number of completed oscillation cycles
+     */
+    public int getCycleCount() {
+        return cycleCount;
+    }
+
+    /**
+     * Get the proposed integral gain for a PID that sums the error once per loop.
+     * <p>
+     * The gain is calculated using the Ziegler-Nichols PI rule Ti = Tu / 1.2
+     *
+     * @param loopPeriod
+     *            the period of the PID loop in seconds
+     * @return the proposed integral gain or 0 if the tuning is not complete.
+     */
+    public double getProposedKi(double loopPeriod) {
+        if (!isComplete) {
+            return 0;
+        }
+        double integralTime = ultimatePeriod / 1.2;
+        return getProposedKp() * loopPeriod / integralTime;
+    }
+
+    /**
+     * Get the proposed proportional gain.
+     * <p>
+     * The gain is calculated using the Ziegler-Nichols PI rule Kp = 0.45 * Ku
+     *
+     * @return the proposed proportional gain or 0 if the tuning is not complete.
+     */
+    public double getProposedKp() {
+        if (!isComplete) {
+            return 0;
+        }
+        return 0.45 * ultimateGain;
+    }
+
+    /**
+     * Get the measured ultimate gain (Ku)
+     *
+     * @return ultimate gain or 0 if the tuning is not complete.
+     */
+    public double getUltimateGain() {
+        return ultimateGain;
+    }
+
+    /**
+     * Get the measured ultimate period (Tu)
+     *
+     * @return ultimate period in seconds or 0 if the tuning is not complete.
+     */
+    public double getUltimatePeriod() {
+        return ultimatePeriod;
+    }
+
+    /**
+     * Indicates whether the tuning is complete
+     *
+     * @return {@code true} if the required number of cycles were measured,
+     *         {@code false} otherwise
+     */
+    public boolean isComplete() {
+        return isComplete;
+    }
+
+    /**
+     * Reset the auto tuner in order to start a new tuning
+     */
+    public void reset() {
+        output         = 0;
+        isComplete     = false;
+        cycleCount     = 0;
+        lastRisingTime = -1;
+        periodSum      = 0;
+        amplitudeSum   = 0;
+        cycleMaxError  = 0;
+        cycleMinError  = 0;
+        ultimateGain   = 0;
+        ultimatePeriod = 0;
+    }
+
+    private void complete() {
+
+        int measuredCycles = cycleCount - 1;
+
+        ultimatePeriod = periodSum / measuredCycles;
+
+        double amplitude = amplitudeSum / measuredCycles;
+
+        // Correct the amplitude for the hysteresis band
+        double effectiveAmplitude = Math.sqrt(Math.max(
+                amplitude * amplitude - hysteresis * hysteresis,
+                1e-9));
+
+        ultimateGain = 4.0 * relayOutput / (Math.PI * effectiveAmplitude);
+
+        isComplete = true;
+        output     = 0;
+    }
+}
@@ -1,6 +1,10 @@
 package com.torontocodingcollective.pid;
 
+import com.torontocodingcollective.TUtil;
+
 import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.util.sendable.SendableBuilder;
+import edu.wpi.first.wpilibj.TimedRobot;
 
 /**
  * Class implements a Proportional (PID) Control Loop for motor speed control.
@@ -8,15 +12,34 @@ import edu.wpi.first.math.controller.PIDController;
  * The PID controller calculate routine must be called at a consistent rate
  * (every control loop) when the PID is enabled.
  * <p>
+ * The feed forward term uses a simple motor model
+ * {@code kS * sign(setpoint) + kV * setpoint + kA * acceleration} where the
+ * setpoint is the normalized speed (-1.0 to 1.0) and the acceleration is the
+ * change in the setpoint per second. The default feed forward gains (kS = 0,
+ * kV = 1.0, kA = 0) use the setpoint as the feed forward term.
+ * <p>
  * This PID controller uses the Smartdashboard communications features of the
  * wpiLib PID controller, but does not use its control loop functionality.
  */
 public class TSpeedPID extends PIDController {
 
+    /** Default static friction feed forward gain */
+    public static final double DEFAULT_KS = 0.0d;
+    /** Default velocity feed forward gain (the setpoint is the feed forward) */
+    public static final double DEFAULT_KV = 1.0d;
+    /** Default acceleration feed forward gain */
+    public static final double DEFAULT_KA = 0.0d;
+
     private double output;
     private double totalError;
     private boolean isEnabled;
 
+    private double kS = DEFAULT_KS;
+    private double kV = DEFAULT_KV;
+    private double kA = DEFAULT_KA;
+
+    private double previousSetpoint = 0;
+
     public TSpeedPID(double kP) {
         this(kP, 0.0d);
     }
@@ -27,6 +50,11 @@ public class TSpeedPID extends PIDController {
         this.isEnabled = false;
     }
 
+    public TSpeedPID(double kP, double kI, double kS, double kV, double kA) {
+        this(kP, kI);
+        setFeedforward(kS, kV, kA);
+    }
+
     /**
      * Calculate the PID output.
      * <p>
@@ -50,8 +78,14 @@ public class TSpeedPID extends PIDController {
             return 0;
         }
 
+        double setpoint = super.getSetpoint();
+
+        // The acceleration is the change in setpoint over one loop period
+        double acceleration = (setpoint - previousSetpoint) / TimedRobot.kDefaultPeriod;
+        previousSetpoint = setpoint;
+
         // Don't use PID to go stop - controllers should be set to brake instead
-        if (Math.abs(super.getSetpoint()) < 0.03) {
+        if (Math.abs(setpoint) < 0.03) {
             totalError = 0;
             output = 0;
             return 0;
@@ -73,25 +107,18 @@ public class TSpeedPID extends PIDController {
 
         // Calculate the total output for the proportional
         // and feed forward terms. In a speed controller
-        // the feed forward term is always 1.0 (the speed
-        // setpoint is used as the feed forward term).
+        // the feed forward term is calculated from the
+        // setpoint using the kS, kV, kA motor model.
 
         // Use a temporary totalOutput variable for
         // all calculations. Limit the totalOutput
         // and assign the value to the output variable at the
         // end in order to prevent reads of intermediary
         // output results.
-        double totalOutput = super.getSetpoint() + proportionalOutput;
+        double totalOutput = calculateFeedforward(setpoint, acceleration) + proportionalOutput;
 
-        // The output cannot drive more than 1.0
-        if (totalOutput > 1.0) {
-            totalOutput = 1.0;
-        }
-
-        // The output cannot drive less than -1.0
-        if (totalOutput < -1.0) {
-            totalOutput = -1.0;
-        }
+        // The output cannot drive more than 1.0 or less than -1.0
+        totalOutput = TUtil.clamp(totalOutput, -1.0, 1.0);
 
         // Calculate the integral contribution.
         // Integral controllers are very prone to saturation
@@ -133,6 +160,19 @@ public class TSpeedPID extends PIDController {
         return output;
     }
 
+    /**
+     * Calculate the feed forward output for the given setpoint and acceleration
+     *
+     * @param setpoint
+     *            normalized speed setpoint (-1.0 to 1.0)
+     * @param acceleration
+     *            change in the normalized speed setpoint per second
+     * @return the feed forward output
+     */
+    public double calculateFeedforward(double setpoint, double acceleration) {
+        return kS * Math.signum(setpoint) + kV * setpoint + kA * acceleration;
+    }
+
     public void disable() {
         isEnabled = false;
         totalError = 0;
@@ -143,12 +183,71 @@ public class TSpeedPID extends PIDController {
         isEnabled = true;
         totalError = 0;
         output = 0;
+        previousSetpoint = super.getSetpoint();
     }
 
     public double get() {
         return output;
     }
 
+    /** Get the static friction feed forward gain */
+    public double getS() {
+        return kS;
+    }
+
+    /** Get the velocity feed forward gain */
+    public double getV() {
+        return kV;
+    }
+
+    /** Get the acceleration feed forward gain */
+    public double getA() {
+        return kA;
+    }
+
+    /**
+     * Set the feed forward gains for this TSpeedPID.
+     * <p>
+     * The gains are typically measured using the
+     * {@link com.torontocodingcollective.commands.drive.TDriveCharacterizationCommand}.
+     *
+     * @param kS
+     *            static friction gain - the output required to start the motor
+     * @param kV
+     *            velocity gain - the output per normalized unit of speed
+     * @param kA
+     *            acceleration gain - the output per normalized unit of speed per
+     *            second
+     */
+    public void setFeedforward(double kS, double kV, double kA) {
+        this.kS = kS;
+        this.kV = kV;
+        this.kA = kA;
+    }
+
+    /** Set the static friction feed forward gain */
+    public void setS(double kS) {
+        this.kS = kS;
+    }
+
+    /** Set the velocity feed forward gain */
+    public void setV(double kV) {
+        this.kV = kV;
+    }
+
+    /** Set the acceleration feed forward gain */
+    public void setA(double kA) {
+        this.kA = kA;
+    }
+
+    @Override
+    public void initSendable(SendableBuilder builder) {
+        super.initSendable(builder);
+        builder.addDoubleProperty("s", this::getS, this::setS);
+        builder.addDoubleProperty("v", this::getV, this::setV);
+        builder.addDoubleProperty("a", this::getA, this::setA);
+    }
+
     public boolean isEnabled() {
         return this.isEnabled;
     }
@@ -16,14 +16,14 @@ import edu.wpi.first.wpilibj.Encoder;
  * interface is used to unify that interface
  * <p>
  * Known implementations: {@link TCanCtreEncoder}, {@link TDioQuadEncoder},
- * {@link TDioCounterEncoder}
+ * {@link TDioCounterEncoder}, {@link TReplayEncoder}
  */
 public class TEncoder {
 
 	boolean isInverted = false;
 	int     offset     = 0;
 
-	private enum EncoderType { COUNTER, QUAD_ENCODER, TALON_SRX, SPARK_MAX, VENOM };
+	private enum EncoderType { COUNTER, QUAD_ENCODER, TALON_SRX, SPARK_MAX, VENOM, REPLAY };
 
 	private final EncoderType encoderType;
 
@@ -37,6 +37,16 @@ public class TEncoder {
 	private double prevEncoderPosition = 0;
 	private int    encoderCountsPerRevolution = 1;
 
+	/**
+	 * Encoder constructor for encoders that do not use a hardware device.
+	 * <p>
+	 * The subclass must override {@link #get()} and {@link #getRate()}.
+	 */
+	protected TEncoder() {
+
+		this.encoderType = EncoderType.REPLAY;
+	}
+
 	/**
 	 * Encoder constructor. Construct a Encoder given a TalonSRX device.
 	 * The encoder must be a quadrature encoder plugged into the TalonSRX.
@@ -0,0 +1,67 @@
+package com.torontocodingcollective.sensors.encoder;
+
+/**
+ * Replay encoder
+ * <p>
+ * The replay encoder returns the distance and rate values recorded in a data
+ * log. The values are set each loop by the log replay
+ * {@link com.torontocodingcollective.log.TLogReplay}.
+ * <p>
+ * The recorded values already include any encoder resets performed by the
+ * robot code, so the {@link #reset()}, {@link #set(int)} and
+ * {@link #setInverted(boolean)} routines do not change the returned values.
+ */
+public class TReplayEncoder extends TEncoder {
+
+	private int    distance = 0;
+	private double rate     = 0;
+
+	public TReplayEncoder() {
+		super();
+	}
+
+	@Override
+	public int get() {
+		return distance;
+	}
+
+	@Override
+	public double getRate() {
+		return rate;
+	}
+
+	@Override
+	public void reset() {
+		// The recorded distance includes the reset
+	}
+
+	@Override
+	public void set(int encoderCount) {
+		// The recorded distance includes the encoder count
+	}
+
+	/**
+	 * Set the recorded distance
+	 *
+	 * @param distance
+	 *            in encoder counts
+	 */
+	public void setDistance(int distance) {
+		this.distance = distance;
+	}
+
+	@Override
+	public void setInverted(boolean isInverted) {
+		// The recorded values include the inversion
+	}
+
+	/**
+	 * Set the recorded rate
+	 *
+	 * @param rate
+	 *            in encoder counts/second
+	 */
+	public void setRate(double rate) {
+		this.rate = rate;
+	}
+}
@@ -25,18 +25,34 @@ public class TGyro implements Gyro, Sendable {
 
 	public enum TGyroType {
 
-		ANALOG     (false),
-		AXDRS450   (false),
-		NAV_X      (true),
-		PIGEON_IMU (true);
+		ANALOG     (false, true,  false),
+		AXDRS450   (false, true,  false),
+		NAV_X      (true,  true,  true),
+		PIGEON_IMU (true,  false, true),
+
+		/** Recorded gyro values used for log replay {@link TReplayGyro} */
+		REPLAY     (false, true,  true);
 
 		private final boolean supportsPitch;
+		private final boolean supportsRate;
+		private final boolean supportsAcceleration;
 
-		private TGyroType(boolean supportsPitch) {
-			this.supportsPitch = supportsPitch;
+		private TGyroType(boolean supportsPitch, boolean supportsRate, boolean supportsAcceleration) {
+			this.supportsPitch        = supportsPitch;
+			this.supportsRate         = supportsRate;
+			this.supportsAcceleration = supportsAcceleration;
 		}
 	};
 
+	/**
+	 * Accelerometer axis that points to the front of the robot
+	 * <p>
+	 * The axis depends on how the gyro board is mounted on the robot.
+	 */
+	public enum TAccelerationAxis {
+		X, Y
+	};
+
 	/** Default sensitivity is for a VEX analog yaw rate gyro */
 	public static final double DEFAULT_ANALOG_GYRO_SENSITIVITY = .00172;
 
@@ -52,6 +68,17 @@ public class TGyro implements Gyro, Sendable {
 
 	private double        lastRawAngle = 0;
 
+	// Pigeon IMU accelerometer values (x, y, z) reused on each read
+	private final short[] pigeonAccelerometer = new short[3];
+
+	// Forward axis of the accelerometer
+	private TAccelerationAxis accelerationAxis          = TAccelerationAxis.X;
+	private boolean           isAccelerationInverted    = false;
+
+	// The acceleration is read every loop, so a read error is only
+	// reported once until the next successful read
+	private boolean           accelerationErrorReported = false;
+
 	public TGyro(TGyroType gyroType, boolean isInverted) {
 
 		this.gyroType      = gyroType;
@@ -251,6 +278,91 @@ public class TGyro implements Gyro, Sendable {
 		}
 	}
 
+	/**
+	 * Return the forward acceleration read off the gyro accelerometer
+	 * <p>
+	 * Not all gyros have an accelerometer and this routine will return
+	 * {@code Double.NaN} always if the acceleration is not supported. A value of
+	 * zero would be read as a chassis that is not accelerating, so
+	 * {@code Double.NaN} is also returned if the accelerometer cannot be read.
+	 * <p>
+	 * The forward axis of the accelerometer is set with
+	 * {@link #setAccelerationAxis(TAccelerationAxis, boolean)}.
+	 * <p>
+	 * NOTE: The NavX value has gravity removed. The Pigeon IMU value is the
+	 * biased accelerometer reading and includes the component of gravity when the
+	 * robot is pitched.
+	 *
+	 * @return acceleration in g or {@code Double.NaN} if acceleration is not
+	 *         supported or not available
+	 */
+	public double getAcceleration() {
+
+		if (!supportsAcceleration()) {
+			return Double.NaN;
+		}
+
+		switch (gyroType) {
+
+		case NAV_X:
+			return getAcceleration(accelerationAxis == TAccelerationAxis.Y
+					? navXGyro.getWorldLinearAccelY()
+					: navXGyro.getWorldLinearAccelX());
+
+		case PIGEON_IMU:
+			com.ctre.phoenix.ErrorCode errCd = pigeonIMU.getBiasedAccelerometer(pigeonAccelerometer);
+
+			if (errCd != com.ctre.phoenix.ErrorCode.OK) {
+				if (!accelerationErrorReported) {
+					System.out.println("Error getting acceleration from Pigeon IMU (" +
+							errCd + "). Errors are not reported again until the next good read.");
+					accelerationErrorReported = true;
+				}
+				return Double.NaN;
+			}
+			accelerationErrorReported = false;
+
+			// The accelerometer values are fixed point with 16384 = 1g.
+			return getAcceleration(
+					pigeonAccelerometer[accelerationAxis == TAccelerationAxis.Y ? 1 : 0] / 16384.0d);
+
+		default:
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * Get the forward acceleration from the raw acceleration
+	 *
+	 * @param rawAcceleration
+	 * @return acceleration normalized for the inversion of the accelerometer axis
+	 */
+	private double getAcceleration(double rawAcceleration) {
+
+		if (isAccelerationInverted) {
+			return -rawAcceleration;
+		}
+
+		return rawAcceleration;
+	}
+
+	/**
+	 * Set the accelerometer axis that points to the front of the robot
+	 * <p>
+	 * The default axis is the {@link TAccelerationAxis#X} axis, not inverted.
+	 * Check the axis on the robot whenever the gyro board is mounted by driving
+	 * forward: the acceleration should be positive.
+	 *
+	 * @param accelerationAxis
+	 *            {@link TAccelerationAxis}
+	 * @param isInverted
+	 *            {@code true} if the axis points to the back of the robot
+	 */
+	public void setAccelerationAxis(TAccelerationAxis accelerationAxis, boolean isInverted) {
+		this.accelerationAxis       = accelerationAxis;
+		this.isAccelerationInverted = isInverted;
+	}
+
 	/**
 	 * Set the sensitivity of the analog gyro
 	 * <p>
@@ -333,14 +445,8 @@ public class TGyro implements Gyro, Sendable {
 	 */
 	private double normalizedAngle(double rawAngle) {
 
-		double angle = rawAngle % 360.0;
-
-		if (angle < 0) {
-			angle += 360.0;
-		}
-
 		// Round the angle to 3 decimal places
-		return TUtil.round(angle, 3);
+		return TUtil.wrapAngle(TUtil.round(TUtil.wrapAngle(rawAngle), 3));
 	}
 
 	/**
@@ -370,6 +476,18 @@ public class TGyro implements Gyro, Sendable {
 		offset += angle;
 	}
 
+	/**
+	 * Indicates whether this gyro supports the forward acceleration
+	 * {@link #getAcceleration()}
+	 *
+	 * @return boolean {@code true} indicates that acceleration is supported
+	 *         {@code false} indicates acceleration is not supported and
+	 *         {@link #getAcceleration()} always returns {@code Double.NaN}
+	 */
+	public boolean supportsAcceleration() {
+		return this.gyroType.supportsAcceleration;
+	}
+
 	/**
 	 * Indicates whether this gyro supports pitch
 	 *
@@ -380,6 +498,18 @@ public class TGyro implements Gyro, Sendable {
 		return this.gyroType.supportsPitch;
 	}
 
+	/**
+	 * Indicates whether this gyro supports the rate of rotation
+	 * {@link #getRate()}
+	 *
+	 * @return boolean {@code true} indicates that rate is supported {@code false}
+	 *         indicates rate is not supported and {@link #getRate()} always
+	 *         returns 0
+	 */
+	public boolean supportsRate() {
+		return this.gyroType.supportsRate;
+	}
+
 	@Override
 	public void close() throws Exception {
 
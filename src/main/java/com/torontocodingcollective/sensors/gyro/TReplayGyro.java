@@ -0,0 +1,85 @@
+package com.torontocodingcollective.sensors.gyro;
+
+/**
+ * Replay gyro
+ * <p>
+ * The replay gyro returns the angle, rate and acceleration values recorded in
+ * a data log.
+ * The values are set each loop by the log replay
+ * {@link com.torontocodingcollective.log.TLogReplay}.
+ * <p>
+ * The recorded angle already includes any gyro resets performed by the robot
+ * code, so the {@link #setGyroAngle(double)}, {@link #reset()} and
+ * {@link #calibrate()} routines do not change the returned angle.
+ */
+public class TReplayGyro extends TGyro {
+
+	private double angle        = 0;
+	private double rate         = 0;
+	private double acceleration = Double.NaN;
+
+	public TReplayGyro() {
+		super(TGyroType.REPLAY, false);
+	}
+
+	@Override
+	public void calibrate() {
+		// The recorded gyro was calibrated on the robot
+	}
+
+	@Override
+	public void close() throws Exception {
+		// Nothing to close
+	}
+
+	@Override
+	public double getAcceleration() {
+		return acceleration;
+	}
+
+	@Override
+	public double getAngle() {
+		return angle;
+	}
+
+	@Override
+	public double getRate() {
+		return rate;
+	}
+
+	/**
+	 * Set the recorded acceleration
+	 *
+	 * @param acceleration
+	 *            in g, or {@code Double.NaN} if the recorded gyro acceleration
+	 *            was not available {@link TGyro#getAcceleration()}
+	 */
+	public void setAcceleration(double acceleration) {
+		this.acceleration = acceleration;
+	}
+
+	/**
+	 * Set the recorded angle
+	 *
+	 * @param angle
+	 *            in degrees (0 <= angle < 360)
+	 */
+	public void setAngle(double angle) {
+		this.angle = angle;
+	}
+
+	@Override
+	public void setGyroAngle(double angle) {
+		// The recorded angle includes the gyro angle setting
+	}
+
+	/**
+	 * Set the recorded rate
+	 *
+	 * @param rate
+	 *            in degrees/second
+	 */
+	public void setRate(double rate) {
+		this.rate = rate;
+	}
+}
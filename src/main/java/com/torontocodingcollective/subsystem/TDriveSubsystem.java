@@ -1,12 +1,18 @@
 package com.torontocodingcollective.subsystem;
 
+import com.torontocodingcollective.TLoopClock;
+import com.torontocodingcollective.TSlewRateLimiter;
 import com.torontocodingcollective.TSpeeds;
+import com.torontocodingcollective.TSpeeds.TDesaturationMode;
 import com.torontocodingcollective.TUtil;
 import com.torontocodingcollective.motorcontroller.TMotorController;
 import com.torontocodingcollective.pid.TSpeedPID;
 import com.torontocodingcollective.sensors.encoder.TEncoder;
+import com.torontocodingcollective.telemetry.TTelemetry;
+import com.torontocodingcollective.telemetry.TTelemetry.TTier;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 
 /**
@@ -14,17 +20,33 @@ import edu.wpi.first.wpilibj2.command.SubsystemBase;
  * <p>
  * The DriveSubsystem is a left right drive with encoders on each side of the
  * drive train. The DriveSubsystm can be used with drive PIDs on or off.
+ * <p>
+ * The encoders are read once at the start of each loop {@link #latchSensors()}
+ * so that all of the code in the loop uses the same sensor values.
  */
 public abstract class TDriveSubsystem extends SubsystemBase {
 
 	public enum TSide { LEFT, RIGHT }
 
+	/** Output scale multiplier applied in each loop that a side is slipping */
+	public static final double       TRACTION_OUTPUT_CUT       = 0.8;
+	/** Minimum output scale when a side is slipping */
+	public static final double       TRACTION_MIN_OUTPUT_SCALE = 0.3;
+	/** Output scale recovered per second when a side is not slipping */
+	public static final double       TRACTION_RECOVERY_RATE    = 2.0;
+
 	protected final TMotorController leftMotorController;
 	protected final TMotorController rightMotorController;
 
 	protected TEncoder               leftEncoder          = null;
 	protected TEncoder               rightEncoder         = null;
 
+	// Encoder values latched at the start of the loop
+	private int                      leftDistance         = 0;
+	private int                      rightDistance        = 0;
+	private double                   leftRate             = 0;
+	private double                   rightRate            = 0;
+
 	private final TSpeedPID          leftSpeedPid;
 	private final TSpeedPID          rightSpeedPid;
 
@@ -33,6 +55,34 @@ public abstract class TDriveSubsystem extends SubsystemBase {
 
 	boolean                          speedPidsEnabled     = false;
 
+	private final TSlewRateLimiter   leftOutputLimiter    = new TSlewRateLimiter(0, 0, 0, TimedRobot.kDefaultPeriod);
+	private final TSlewRateLimiter   rightOutputLimiter   = new TSlewRateLimiter(0, 0, 0, TimedRobot.kDefaultPeriod);
+
+	private boolean                  outputShapingEnabled = false;
+
+	private TDesaturationMode        desaturationMode     = TDesaturationMode.PROPORTIONAL;
+	private final TSpeeds            desaturatedSpeeds    = new TSpeeds();
+
+	// Last output set on each motor controller
+	private double                   leftMotorOutput      = 0;
+	private double                   rightMotorOutput     = 0;
+
+	// Scale applied to the output of both sides (ie. to limit current)
+	private double                   maxOutput            = 1.0;
+
+	// Traction control
+	private boolean                  tractionEnabled      = false;
+	private double                   maxWheelAcceleration = 0;
+	private double                   slipMargin           = 0;
+	private double                   leftTractionScale    = 1.0;
+	private double                   rightTractionScale   = 1.0;
+	private boolean                  leftSlipping         = false;
+	private boolean                  rightSlipping        = false;
+	private int                      slipEventCount       = 0;
+	private double                   previousLeftRate     = 0;
+	private double                   previousRightRate    = 0;
+	private long                     previousRateTime     = 0;
+
 	/**
 	 * Drive subsystem with left/right drive.
 	 * <p>
@@ -93,6 +143,8 @@ public abstract class TDriveSubsystem extends SubsystemBase {
 		rightSpeedPid = new TSpeedPID(kP, kI);
 
 		speedPidsEnabled = false;
+
+		initTelemetry();
 	}
 
 	/**
@@ -113,6 +165,62 @@ public abstract class TDriveSubsystem extends SubsystemBase {
 		}
 	}
 
+	/**
+	 * Disable the output shaping for the Drive subsystem.
+	 * <p>
+	 * Output shaping should be disabled by commands that already follow a motion
+	 * profile. The output shaping continues to track the requested speeds so that
+	 * it can be re-enabled without a step in the output.
+	 */
+	public void disableOutputShaping() {
+		outputShapingEnabled = false;
+	}
+
+	/**
+	 * Disable the traction control for the Drive subsystem.
+	 * <p>
+	 * The motor output is no longer cut when the wheels slip.
+	 */
+	public void disableTractionControl() {
+
+		tractionEnabled    = false;
+		leftTractionScale  = 1.0;
+		rightTractionScale = 1.0;
+		leftSlipping       = false;
+		rightSlipping      = false;
+	}
+
+	/**
+	 * Enable the output shaping for the Drive subsystem.
+	 * <p>
+	 * When enabled, the speeds passed to {@link #setSpeed(double, double)} are
+	 * slew rate (and optionally jerk) limited on each side using the limits set
+	 * in {@link #setOutputShaping(double, double, double)}.
+	 */
+	public void enableOutputShaping() {
+		outputShapingEnabled = true;
+	}
+
+	/**
+	 * Enable the traction control for the Drive subsystem.
+	 * <p>
+	 * When enabled, the wheel acceleration on each side is compared to the
+	 * chassis acceleration {@link #getChassisAcceleration()} or to the max
+	 * wheel acceleration set in {@link #setTractionControl(double, double)}, and
+	 * the motor output on a slipping side is cut until the wheel regains
+	 * traction.
+	 * <p>
+	 * NOTE: If there are no encoders, traction control cannot be enabled
+	 */
+	public void enableTractionControl() {
+
+		if (leftEncoder == null || rightEncoder == null) {
+			return;
+		}
+
+		tractionEnabled = true;
+	}
+
 	/**
 	 * Enable the speed PIDs for the Drive subsystem.
 	 * <p>
@@ -146,6 +254,20 @@ public abstract class TDriveSubsystem extends SubsystemBase {
 		}
 	}
 
+	/**
+	 * Get the forward acceleration of the chassis measured by a sensor that does
+	 * not depend on the wheels (ie. an accelerometer)
+	 * <p>
+	 * Override this routine in a subsystem with an accelerometer. The
+	 * acceleration must be in inches/sec<sup>2</sup>.
+	 *
+	 * @return acceleration in inches/sec<sup>2</sup> or {@code Double.NaN} if
+	 *         the chassis acceleration is not available.
+	 */
+	protected double getChassisAcceleration() {
+		return Double.NaN;
+	}
+
 	/**
 	 * Get the distance in inches
 	 * <p>
@@ -166,6 +288,15 @@ public abstract class TDriveSubsystem extends SubsystemBase {
 		return TUtil.round(getEncoderDistance() / encoderCountsPerInch, 2);
 	}
 
+	/**
+	 * Get the encoder counts per inch
+	 *
+	 * @return encoder counts per inch or 0 if not set
+	 */
+	public double getEncoderCountsPerInch() {
+		return encoderCountsPerInch;
+	}
+
 	/**
 	 * Get the raw distance covered since the last encoder reset
 	 * <p>
@@ -180,7 +311,36 @@ public abstract class TDriveSubsystem extends SubsystemBase {
 			return -1;
 		}
 
-		return (leftEncoder.get() + rightEncoder.get()) / 2;
+		return (leftDistance + rightDistance) / 2;
+	}
+
+	/**
+	 * Get the raw distance of the encoder on the specified side since the last
+	 * encoder reset
+	 *
+	 * @param side
+	 *            {@link TSide#LEFT} or {@link TSide#RIGHT}
+	 * @return encoder distance in counts or 0 if there is no encoder on the
+	 *         specified side.
+	 */
+	public int getEncoderDistance(TSide side) {
+
+		if (side == null) {
+			return 0;
+		}
+
+		switch (side) {
+
+		case LEFT:
+			return leftEncoder == null ? 0 : leftDistance;
+
+		case RIGHT:
+			return rightEncoder == null ? 0 : rightDistance;
+
+		default:
+			System.out.println("Cannot get encoder distance on side " + side.toString());
+			return 0;
+		}
 	}
 
 	/**
@@ -195,7 +355,85 @@ public abstract class TDriveSubsystem extends SubsystemBase {
 			return -1;
 		}
 
-		return (leftEncoder.getRate() + rightEncoder.getRate()) / 2.0d;
+		return (leftRate + rightRate) / 2.0d;
+	}
+
+	/**
+	 * Get the speed of the encoder on the specified side in counts/second
+	 *
+	 * @param side
+	 *            {@link TSide#LEFT} or {@link TSide#RIGHT}
+	 * @return encoder speed or 0 if there is no encoder on the specified side.
+	 */
+	public double getEncoderSpeed(TSide side) {
+
+		if (side == null) {
+			return 0;
+		}
+
+		switch (side) {
+
+		case LEFT:
+			return leftEncoder == null ? 0 : leftRate;
+
+		case RIGHT:
+			return rightEncoder == null ? 0 : rightRate;
+
+		default:
+			System.out.println("Cannot get encoder speed on side " + side.toString());
+			return 0;
+		}
+	}
+
+	/**
+	 * Get the last output set on the motor controller on the specified side
+	 * <p>
+	 * The output is tracked by the drive subsystem and does not read the motor
+	 * controller.
+	 *
+	 * @param side
+	 *            {@link TSide#LEFT} or {@link TSide#RIGHT}
+	 * @return motor output (-1.0 to 1.0)
+	 */
+	public double getMotorOutput(TSide side) {
+
+		if (side == null) {
+			return 0;
+		}
+
+		switch (side) {
+
+		case LEFT:
+			return leftMotorOutput;
+
+		case RIGHT:
+			return rightMotorOutput;
+
+		default:
+			System.out.println("Cannot get motor output on side " + side.toString());
+			return 0;
+		}
+	}
+
+	/**
+	 * Get the number of times a side of the drive started to slip since the last
+	 * reset {@link #resetSlipEventCount()}
+	 * <p>
+	 * The slip event count is used to tune the traction control limits.
+	 *
+	 * @return slip event count
+	 */
+	public int getSlipEventCount() {
+		return slipEventCount;
+	}
+
+	/**
+	 * Get the max output scale applied to the motor output on both sides
+	 *
+	 * @return max output (0 to 1.0)
+	 */
+	public double getMaxOutput() {
+		return maxOutput;
 	}
 
 	/**
@@ -226,41 +464,132 @@ public abstract class TDriveSubsystem extends SubsystemBase {
 		}
 	}
 
+	/**
+	 * Get the output of the speed PID on the specified side
+	 *
+	 * @param side
+	 *            {@link TSide#LEFT} or {@link TSide#RIGHT}
+	 * @return speed PID output or 0 if the speed PIDs are not enabled
+	 */
+	public double getSpeedPidOutput(TSide side) {
+
+		if (side == null || !speedPidsEnabled) {
+			return 0;
+		}
+
+		switch (side) {
+
+		case LEFT:
+			return leftSpeedPid.get();
+
+		case RIGHT:
+			return rightSpeedPid.get();
+
+		default:
+			System.out.println("Cannot get speed pid output on side " + side.toString());
+			return 0;
+		}
+	}
+
+	/**
+	 * Register the drive values published to the SmartDashboard
+	 * {@link TTelemetry}
+	 */
+	private void initTelemetry() {
+
+		TTelemetry.addNumber("L Enc Dist",   () -> getEncoderDistance(TSide.LEFT),                   TTier.NORMAL);
+		TTelemetry.addNumber("L Enc Speed",  () -> getEncoderSpeed(TSide.LEFT),  1, TTier.NORMAL);
+		TTelemetry.addNumber("R Enc Dist",   () -> getEncoderDistance(TSide.RIGHT),                  TTier.NORMAL);
+		TTelemetry.addNumber("R Enc Speed",  () -> getEncoderSpeed(TSide.RIGHT), 1, TTier.NORMAL);
+		TTelemetry.addNumber("AvgEnc Dist",  () -> getEncoderDistance(),                             TTier.NORMAL);
+		TTelemetry.addNumber("AvgEnc Speed", () -> getEncoderSpeed(),            1, TTier.NORMAL);
+		TTelemetry.addNumber("Dist Inches",  () -> getDistanceInches(),          .1, TTier.NORMAL);
+
+		TTelemetry.addBoolean("Speed PIDs Active", () -> speedPidsEnabled, TTier.SLOW);
+
+		TTelemetry.addData("LeftPid",  leftSpeedPid);
+		TTelemetry.addData("RightPid", rightSpeedPid);
+
+		TTelemetry.addNumber("Left Output",  () -> leftMotorController.get(),  .01, TTier.FAST);
+		TTelemetry.addNumber("Right Output", () -> rightMotorController.get(), .01, TTier.FAST);
+
+		TTelemetry.addNumber("L Traction", () -> leftTractionScale,  .01, TTier.NORMAL);
+		TTelemetry.addNumber("R Traction", () -> rightTractionScale, .01, TTier.NORMAL);
+		TTelemetry.addNumber("Slip Events", () -> slipEventCount, TTier.SLOW);
+	}
+
+	/**
+	 * Indicates whether the output shaping is enabled
+	 *
+	 * @return {@code true} if enabled, {@code false} otherwise
+	 */
+	public boolean isOutputShapingEnabled() {
+		return outputShapingEnabled;
+	}
+
+	/**
+	 * Indicates whether the traction control is enabled
+	 *
+	 * @return {@code true} if enabled, {@code false} otherwise
+	 */
+	public boolean isTractionControlEnabled() {
+		return tractionEnabled;
+	}
+
+	/**
+	 * Read the encoders for this loop
+	 * <p>
+	 * This routine must be called once at the start of each robot loop before
+	 * any commands or subsystems run. The encoder distance and speed routines
+	 * return the values read by this routine.
+	 */
+	public void latchSensors() {
+
+		if (leftEncoder == null || rightEncoder == null) {
+			return;
+		}
+
+		leftDistance  = leftEncoder.get();
+		rightDistance = rightEncoder.get();
+		leftRate      = leftEncoder.getRate();
+		rightRate     = rightEncoder.getRate();
+	}
+
 	@Override
 	public void periodic() {
 
+		// The motors are stopped when the robot is disabled, so
+		// the output shaping must restart from zero.
+		if (DriverStation.isDisabled()) {
+			leftOutputLimiter.reset(0);
+			rightOutputLimiter.reset(0);
+		}
+
 		// Only update the encoders and pids if there are encoders.
 		if (leftEncoder != null && rightEncoder != null) {
 
+			// Update the traction control before the speed PID output is set
+			updateTractionControl();
+
 			// Update all of the PIDS
 			if (speedPidsEnabled) {
 
 				// Speed PID calculations require a normalized rate
-				leftSpeedPid.calculate(leftEncoder.getRate() / maxEncoderSpeed);
-				rightSpeedPid.calculate(rightEncoder.getRate() / maxEncoderSpeed);
+				leftSpeedPid.calculate(leftRate / maxEncoderSpeed);
+				rightSpeedPid.calculate(rightRate / maxEncoderSpeed);
 
-				leftMotorController.set(leftSpeedPid.get());
-				rightMotorController.set(rightSpeedPid.get());
+				setMotorOutput(leftSpeedPid.get(), rightSpeedPid.get());
 
 			}
 
-			// Update all SmartDashboard values
-			SmartDashboard.putNumber("L Enc Dist", leftEncoder.get());
-			SmartDashboard.putNumber("L Enc Speed", leftEncoder.getRate());
-			SmartDashboard.putNumber("R Enc Dist", rightEncoder.get());
-			SmartDashboard.putNumber("R Enc Speed", rightEncoder.getRate());
-			SmartDashboard.putNumber("AvgEnc Dist", getEncoderDistance());
-			SmartDashboard.putNumber("AvgEnc Speed", getEncoderSpeed());
-			SmartDashboard.putNumber("Dist Inches", getDistanceInches());
-
-			SmartDashboard.putBoolean("Speed PIDs Active", speedPidsEnabled);
-			SmartDashboard.putData("LeftPid", leftSpeedPid);
-			SmartDashboard.putData("RightPid", rightSpeedPid);
 		}
+	}
 
-		// Always print the current motor set speeds.
-		SmartDashboard.putNumber("Left Output", leftMotorController.get());
-		SmartDashboard.putNumber("Right Output", rightMotorController.get());
+	/**
+	 * Reset the slip event count
+	 */
+	public void resetSlipEventCount() {
+		slipEventCount = 0;
 	}
 
 	/**
@@ -274,6 +603,10 @@ public abstract class TDriveSubsystem extends SubsystemBase {
 
 		leftEncoder.reset();
 		rightEncoder.reset();
+
+		// The encoders read zero for the rest of this loop
+		leftDistance  = 0;
+		rightDistance = 0;
 	}
 
 	/**
@@ -414,6 +747,15 @@ public abstract class TDriveSubsystem extends SubsystemBase {
 		}
 	}
 
+	/**
+	 * Get the max encoder speed used to normalize the speed PID encoder feedback.
+	 *
+	 * @return max encoder speed in encoder counts/second
+	 */
+	public double getMaxEncoderSpeed() {
+		return maxEncoderSpeed;
+	}
+
 	/**
 	 * Set the max encoder speed on the encoders. This routine would be used when
 	 * there is a gear shifting robot and the max encoder speed changes between the
@@ -449,16 +791,132 @@ public abstract class TDriveSubsystem extends SubsystemBase {
 		setSpeedPidGain(kP, kI);
 	}
 
+	/**
+	 * Set the output on the motor controllers and track the output
+	 * <p>
+	 * The output on each side is scaled by the traction control and the max
+	 * output.
+	 */
+	private void setMotorOutput(double leftOutput, double rightOutput) {
+
+		leftOutput  *= leftTractionScale  * maxOutput;
+		rightOutput *= rightTractionScale * maxOutput;
+
+		leftMotorOutput  = leftOutput;
+		rightMotorOutput = rightOutput;
+
+		leftMotorController.set(leftOutput);
+		rightMotorController.set(rightOutput);
+	}
+
+	/**
+	 * Set the max output scale applied to the motor output on both sides
+	 * <p>
+	 * The motor output on both sides is multiplied by the max output so that the
+	 * curvature of the path is kept. The max output is used to limit the current
+	 * drawn by the drive (ie. when a brownout is predicted).
+	 *
+	 * @param maxOutput
+	 *            0 to 1.0 where 1.0 does not limit the output
+	 */
+	public void setMaxOutput(double maxOutput) {
+		this.maxOutput = TUtil.clamp(maxOutput, 0, 1.0);
+	}
+
+	/**
+	 * Set the output shaping limits.
+	 * <p>
+	 * The limits are applied separately to each side of the drive when the output
+	 * shaping is enabled {@link #enableOutputShaping()}.
+	 *
+	 * @param accelerationRate
+	 *            the maximum change in speed per second when the speed is
+	 *            increasing. A value of zero disables the limit.
+	 * @param brakingRate
+	 *            the maximum change in speed per second when the speed is
+	 *            decreasing towards zero. A value of zero disables the limit.
+	 * @param jerk
+	 *            the maximum change in the rate per second. A value of zero
+	 *            disables the jerk limit.
+	 */
+	public void setOutputShaping(double accelerationRate, double brakingRate, double jerk) {
+		leftOutputLimiter.setLimits(accelerationRate, brakingRate, jerk);
+		rightOutputLimiter.setLimits(accelerationRate, brakingRate, jerk);
+	}
+
+	/**
+	 * Set the traction control limits.
+	 * <p>
+	 * The limits are applied separately to each side of the drive when the
+	 * traction control is enabled {@link #enableTractionControl()}.
+	 * <p>
+	 * A side is slipping when the wheel accelerates in the direction of the
+	 * motor output faster than the chassis acceleration plus the slip margin, or
+	 * faster than the max wheel acceleration if the chassis acceleration is not
+	 * available {@link #getChassisAcceleration()}. The slip margin must allow for
+	 * the wheel accelerations when turning.
+	 * <p>
+	 * The accelerations are in inches/sec<sup>2</sup>, or in encoder
+	 * counts/sec<sup>2</sup> if the encoder counts per inch are not set. The
+	 * chassis acceleration is only used if the encoder counts per inch are set.
+	 *
+	 * @param maxWheelAcceleration
+	 *            the modeled maximum acceleration of the robot without slipping
+	 *            (ie. the coefficient of friction of the wheels * g).
+	 * @param slipMargin
+	 *            the difference between the wheel acceleration and the chassis
+	 *            acceleration that indicates a slip.
+	 */
+	public void setTractionControl(double maxWheelAcceleration, double slipMargin) {
+		this.maxWheelAcceleration = maxWheelAcceleration;
+		this.slipMargin           = slipMargin;
+	}
+
+	/**
+	 * Set the desaturation mode used when a requested speed is outside the range
+	 * -1.0 to 1.0
+	 * <p>
+	 * The default mode is {@link TDesaturationMode#PROPORTIONAL} which scales both
+	 * sides by the larger speed so that the curvature of the path is kept.
+	 *
+	 * @param desaturationMode
+	 *            {@link TDesaturationMode}
+	 */
+	public void setDesaturationMode(TDesaturationMode desaturationMode) {
+		this.desaturationMode = desaturationMode;
+	}
+
 	/**
 	 * Set the speeds on the motors. This command will be used to set the setpoint
 	 * of the controller if the PIDs are enabled, or to set the left and right motor
 	 * speeds directly if the PIDs are not enabled.
+	 * <p>
+	 * Speeds outside the range -1.0 to 1.0 are desaturated using the
+	 * {@link #setDesaturationMode(TDesaturationMode)} before they are applied.
+	 * <p>
+	 * If output shaping is enabled, the speeds are limited by the output shaping
+	 * before being applied. This routine should be called once per loop.
 	 *
 	 * @param leftSpeedSetpoint
 	 * @param rightSpeedSetpoint
 	 */
 	public void setSpeed(double leftSpeedSetpoint, double rightSpeedSetpoint) {
 
+		// Desaturate before the speeds are clipped by the PIDs
+		// or motor controllers so that the ratio is kept.
+		desaturatedSpeeds.set(leftSpeedSetpoint, rightSpeedSetpoint).desaturate(desaturationMode);
+
+		leftSpeedSetpoint  = desaturatedSpeeds.left;
+		rightSpeedSetpoint = desaturatedSpeeds.right;
+
+		if (outputShapingEnabled) {
+			leftSpeedSetpoint  = leftOutputLimiter.calculate(leftSpeedSetpoint);
+			rightSpeedSetpoint = rightOutputLimiter.calculate(rightSpeedSetpoint);
+		} else {
+			leftOutputLimiter.reset(leftSpeedSetpoint);
+			rightOutputLimiter.reset(rightSpeedSetpoint);
+		}
+
 		if (speedPidsEnabled) {
 
 			// If the PIDs are enabled, then only change the setpoint
@@ -470,8 +928,7 @@ public abstract class TDriveSubsystem extends SubsystemBase {
 
 			// If the speed PIDs are disabled, then drive the motors
 			// with the setpoint.
-			leftMotorController.set(leftSpeedSetpoint);
-			rightMotorController.set(rightSpeedSetpoint);
+			setMotorOutput(leftSpeedSetpoint, rightSpeedSetpoint);
 
 		}
 	}
@@ -533,8 +990,153 @@ public abstract class TDriveSubsystem extends SubsystemBase {
 		}
 	}
 
+	/**
+	 * Set the Pid gain for the PID controller on one side of the drive.
+	 * <p>
+	 * This routine is used when each side of the drive has been tuned separately.
+	 *
+	 * @param side
+	 *            {@link TSide#LEFT} or {@link TSide#RIGHT}
+	 * @param kP
+	 *            Proportional gain for the motor speed pid
+	 * @param kI
+	 *            Integral gain for the motor speed pid
+	 */
+	public void setSpeedPidGain(TSide side, double kP, double kI) {
+
+		if (side == null) {
+			return;
+		}
+
+		switch (side) {
+
+		case LEFT:
+			leftSpeedPid.setP(kP);
+			leftSpeedPid.setI(kI);
+			break;
+
+		case RIGHT:
+			rightSpeedPid.setP(kP);
+			rightSpeedPid.setI(kI);
+			break;
+
+		default:
+			System.out.println("Cannot set speed pid gain on side " + side.toString());
+			return;
+		}
+
+		if (kP == 0 && kI == 0) {
+			disableSpeedPids();
+		}
+	}
+
+	/**
+	 * Set the feed forward gains for the speed PIDs.
+	 * <p>
+	 * The feed forward gains are in normalized speed units (encoder speed /
+	 * maxEncoderSpeed) and typically change with the max encoder speed when
+	 * shifting gears.
+	 *
+	 * @param kS
+	 *            static friction gain
+	 * @param kV
+	 *            velocity gain
+	 * @param kA
+	 *            acceleration gain
+	 */
+	public void setSpeedPidFeedforward(double kS, double kV, double kA) {
+
+		leftSpeedPid.setFeedforward(kS, kV, kA);
+		rightSpeedPid.setFeedforward(kS, kV, kA);
+	}
+
 	public boolean speedPidsEnabled() {
 		return speedPidsEnabled;
 	}
 
+	/**
+	 * Update the traction control output scale on each side from the change in
+	 * the encoder rates since the last loop
+	 */
+	private void updateTractionControl() {
+
+		long time = TLoopClock.getTime();
+
+		double  dt        = (time - previousRateTime) / 1000000.0d;
+		boolean firstLoop = previousRateTime == 0;
+
+		// Always track the rates so that the traction control
+		// can be enabled without a step in the acceleration.
+		previousRateTime = time;
+
+		double leftAcceleration  = (leftRate  - previousLeftRate)  / dt;
+		double rightAcceleration = (rightRate - previousRightRate) / dt;
+
+		previousLeftRate  = leftRate;
+		previousRightRate = rightRate;
+
+		if (!tractionEnabled || firstLoop || dt <= 0 || DriverStation.isDisabled()) {
+			leftTractionScale  = 1.0;
+			rightTractionScale = 1.0;
+			leftSlipping       = false;
+			rightSlipping      = false;
+			return;
+		}
+
+		// Compare the wheels to the chassis acceleration if available
+		// or to the modeled acceleration limit.
+		double accelerationLimit = maxWheelAcceleration;
+
+		if (encoderCountsPerInch != 0) {
+
+			leftAcceleration  /= encoderCountsPerInch;
+			rightAcceleration /= encoderCountsPerInch;
+
+			double chassisAcceleration = getChassisAcceleration();
+
+			if (!Double.isNaN(chassisAcceleration)) {
+				accelerationLimit = Math.abs(chassisAcceleration) + slipMargin;
+			}
+		}
+
+		boolean leftSlip  = isSlipping(leftAcceleration,  leftMotorOutput,  accelerationLimit);
+		boolean rightSlip = isSlipping(rightAcceleration, rightMotorOutput, accelerationLimit);
+
+		if (leftSlip && !leftSlipping) {
+			slipEventCount++;
+		}
+		if (rightSlip && !rightSlipping) {
+			slipEventCount++;
+		}
+
+		leftSlipping  = leftSlip;
+		rightSlipping = rightSlip;
+
+		leftTractionScale  = getTractionScale(leftTractionScale,  leftSlip,  dt);
+		rightTractionScale = getTractionScale(rightTractionScale, rightSlip, dt);
+	}
+
+	private static boolean isSlipping(double wheelAcceleration, double motorOutput, double accelerationLimit) {
+
+		if (accelerationLimit <= 0) {
+			return false;
+		}
+
+		// Only a wheel accelerating in the direction of the output is spinning
+		if (Math.signum(wheelAcceleration) != Math.signum(motorOutput)) {
+			return false;
+		}
+
+		return Math.abs(wheelAcceleration) > accelerationLimit;
+	}
+
+	private static double getTractionScale(double tractionScale, boolean slipping, double dt) {
+
+		if (slipping) {
+			return Math.max(tractionScale * TRACTION_OUTPUT_CUT, TRACTION_MIN_OUTPUT_SCALE);
+		}
+
+		return Math.min(tractionScale + TRACTION_RECOVERY_RATE * dt, 1.0);
+	}
+
 }
@@ -1,11 +1,17 @@
 package com.torontocodingcollective.subsystem;
 
+import com.torontocodingcollective.TDifferentialOdometry;
+import com.torontocodingcollective.TLoopClock;
+import com.torontocodingcollective.TPose;
+import com.torontocodingcollective.TUtil;
 import com.torontocodingcollective.motorcontroller.TMotorController;
 import com.torontocodingcollective.pid.TGyroPID;
 import com.torontocodingcollective.sensors.encoder.TEncoder;
 import com.torontocodingcollective.sensors.gyro.TGyro;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import com.torontocodingcollective.telemetry.TTelemetry;
+import com.torontocodingcollective.telemetry.TTelemetry.TTier;
+
 
 public abstract class TGyroDriveSubsystem extends TDriveSubsystem {
 
@@ -13,12 +19,55 @@ public abstract class TGyroDriveSubsystem extends TDriveSubsystem {
 		DRIVE_ON_HEADING, ROTATE_TO_HEADING, DISABLED
 	};
 
-	protected TGyro  gyro;
-	private TGyroPID gyroPid;
+	/**
+	 * The controller used to rotate to a heading.
+	 */
+	public enum TRotationControl {
+
+		/**
+		 * Rotate at the max rotation output until the heading error is less than 20
+		 * degrees and then use the gyro PID.
+		 */
+		HEADING_PID,
+
+		/**
+		 * Use an outer heading loop to calculate a rotation rate setpoint and an inner
+		 * rate loop that uses the gyro rate to follow that setpoint. Requires a gyro
+		 * that supports the rate {@link TGyro#supportsRate()}.
+		 */
+		CASCADED_RATE
+	};
+
+	// Standard gravity in inches/sec^2
+	private static final double         GRAVITY                = 386.09;
+
+	protected TGyro                     gyro;
+	private TGyroPID                    gyroPid;
+
+	// Gyro values latched at the start of the loop
+	private double                      gyroAngle              = 0;
+	private double                      gyroRate               = 0;
+	private double                      gyroAcceleration       = Double.NaN;
+
+	private double                      maxRotationOutput;
+	private double                      speedSetpoint          = 0;
+	private Mode                        mode;
+
+	private TRotationControl            defaultRotationControl = TRotationControl.HEADING_PID;
+	private TRotationControl            rotationControl        = TRotationControl.HEADING_PID;
+
+	// Cascaded rotation control
+	private double                      maxRotationRate        = 180;
+	private double                      headingRateGain        = 0;
+	private double                      rateKF                 = 0;
+	private double                      rateKP                 = 0;
+	private double                      rateKI                 = 0;
+	private double                      rateTotalError         = 0;
+	private double                      rotationRateSetpoint   = 0;
+
+	private double                      steering               = 0;
 
-	private double   maxRotationOutput;
-	private double   speedSetpoint = 0;
-	private Mode     mode;
+	private final TDifferentialOdometry odometry               = new TDifferentialOdometry();
 
 	/**
 	 * Drive subsystem with left/right drive and gyro.
@@ -77,6 +126,8 @@ public abstract class TGyroDriveSubsystem extends TDriveSubsystem {
 		gyroPid = new TGyroPID(gyroKP, gyroKI);
 		this.maxRotationOutput = maxRotationOutput;
 		this.mode = Mode.DISABLED;
+
+		initTelemetry();
 	}
 
 	/**
@@ -103,6 +154,8 @@ public abstract class TGyroDriveSubsystem extends TDriveSubsystem {
 		this.gyro = gyro;
 		gyroPid = null;
 		this.maxRotationOutput = 1.0d;
+
+		initTelemetry();
 	}
 
 	/**
@@ -140,6 +193,8 @@ public abstract class TGyroDriveSubsystem extends TDriveSubsystem {
 		this.gyro = gyro;
 		gyroPid = new TGyroPID(gyroKP, gyroKI);
 		this.maxRotationOutput = maxRotationOutput;
+
+		initTelemetry();
 	}
 
 	/**
@@ -150,6 +205,8 @@ public abstract class TGyroDriveSubsystem extends TDriveSubsystem {
 	public void disableGyroPid() {
 		gyroPid.disable();
 		this.speedSetpoint = 0;
+		this.rotationRateSetpoint = 0;
+		this.rateTotalError = 0;
 		this.mode = Mode.DISABLED;
 	}
 
@@ -192,7 +249,29 @@ public abstract class TGyroDriveSubsystem extends TDriveSubsystem {
 	 */
 	public double getGyroAngle() {
 
-		return gyro.getAngle();
+		return gyroAngle;
+	}
+
+	/**
+	 * Get the odometry that tracks the position of the robot on the field
+	 * <p>
+	 * The odometry is updated in each loop from the encoders and the gyro.
+	 *
+	 * @return {@link TDifferentialOdometry}
+	 */
+	public TDifferentialOdometry getOdometry() {
+		return odometry;
+	}
+
+	/**
+	 * Get the position of the robot on the field
+	 *
+	 * @param pose
+	 *            the {@link TPose} owned by the caller to set to the current pose
+	 * @return the pose
+	 */
+	public TPose getPose(TPose pose) {
+		return odometry.getPose(pose);
 	}
 
 	/**
@@ -209,7 +288,47 @@ public abstract class TGyroDriveSubsystem extends TDriveSubsystem {
 		if (!gyroPid.isEnabled()) {
 			return 0;
 		}
-		return gyroPid.getError(gyro.getAngle());
+		return gyroPid.getError(gyroAngle);
+	}
+
+	/**
+	 * Get the rotation controller used by default when rotating to a heading
+	 *
+	 * @return {@link TRotationControl}
+	 */
+	public TRotationControl getRotationControl() {
+		return defaultRotationControl;
+	}
+
+	/**
+	 * Get the maximum rotation speed sent to the motors when rotating to a heading
+	 *
+	 * @return max rotation output
+	 */
+	public double getMaxRotationOutput() {
+		return maxRotationOutput;
+	}
+
+	/**
+	 * Get the rotation rate setpoint of the cascaded rotation controller
+	 * <p>
+	 * NOTE: This routine returns zero if the robot is not rotating to a heading
+	 * using the {@link TRotationControl#CASCADED_RATE} controller.
+	 *
+	 * @return rate setpoint in degrees/second
+	 */
+	public double getGyroRateSetpoint() {
+		return rotationRateSetpoint;
+	}
+
+	/**
+	 * Get the forward acceleration measured by the gyro accelerometer
+	 *
+	 * @return acceleration in g or {@code Double.NaN} if the acceleration is not
+	 *         available {@link TGyro#getAcceleration()}
+	 */
+	public double getGyroAcceleration() {
+		return gyroAcceleration;
 	}
 
 	/**
@@ -220,40 +339,121 @@ public abstract class TGyroDriveSubsystem extends TDriveSubsystem {
 	 * @return rate in degress/second
 	 */
 	public double getGyroRate() {
-		return gyro.getRate();
+		return gyroRate;
+	}
+
+	/**
+	 * Get the forward acceleration of the chassis from the gyro accelerometer
+	 * <p>
+	 * The chassis acceleration is used by the traction control
+	 * {@link #enableTractionControl()}.
+	 *
+	 * @return acceleration in inches/sec<sup>2</sup> or {@code Double.NaN} if
+	 *         the gyro acceleration is not available
+	 *         {@link TGyro#getAcceleration()}
+	 */
+	@Override
+	protected double getChassisAcceleration() {
+
+		// The acceleration is NaN if the gyro acceleration is not available
+		return gyroAcceleration * GRAVITY;
+	}
+
+	/**
+	 * Read the encoders and the gyro for this loop
+	 * <p>
+	 * This routine must be called once at the start of each robot loop before
+	 * any commands or subsystems run.
+	 */
+	@Override
+	public void latchSensors() {
+
+		super.latchSensors();
+
+		if (gyro == null) {
+			return;
+		}
+
+		gyroAngle        = gyro.getAngle();
+		gyroRate         = gyro.getRate();
+		gyroAcceleration = gyro.getAcceleration();
+	}
+
+	// Get the distance of one side in inches, or in encoder counts
+	// if the encoder counts per inch is not set
+	private double getOdometryDistance(TSide side) {
+
+		double encoderCountsPerInch = getEncoderCountsPerInch();
+
+		if (encoderCountsPerInch == 0) {
+			return getEncoderDistance(side);
+		}
+
+		return getEncoderDistance(side) / encoderCountsPerInch;
 	}
 
 	@Override
 	public void periodic() {
 
+		// Track the position before running the PIDs
+		if (gyro != null && leftEncoder != null && rightEncoder != null) {
+			odometry.update(getOdometryDistance(TSide.LEFT), getOdometryDistance(TSide.RIGHT),
+					gyroAngle, TLoopClock.getTime());
+		}
+
 		// Set the speed from the gyroPID before udpating the super
-		double steering = 0;
+		steering = 0;
 
 		if (gyroPid.isEnabled()) {
 
-			gyroPid.calculate(gyro.getAngle());
+			gyroPid.calculate(gyroAngle);
 
 			if (mode == Mode.DRIVE_ON_HEADING) {
 				steering = setDriveOnHeadingSpeeds();
+			} else if (rotationControl == TRotationControl.CASCADED_RATE) {
+				steering = setCascadedRotateToHeadingSpeeds();
 			} else {
 				steering = setRotateToHeadingSpeeds();
 			}
 		}
 
-		SmartDashboard.putNumber("Gyro Steering", steering);
-
 		super.periodic();
+	}
+
+	/**
+	 * Register the gyro values published to the SmartDashboard
+	 * {@link TTelemetry}
+	 */
+	private void initTelemetry() {
+
+		TTelemetry.addNumber("Gyro Steering",      () -> steering,             .01, TTier.FAST);
+		TTelemetry.addNumber("Gyro Rate Setpoint", () -> rotationRateSetpoint, .5,  TTier.NORMAL);
+
+		TTelemetry.addData("Gyro", gyro);
+		TTelemetry.addNumber("Gyro Angle", () -> getGyroAngle(), .1, TTier.FAST);
 
-		// Update all SmartDashboard values
-		SmartDashboard.putData("Gyro", gyro);
-		SmartDashboard.putNumber("Gyro Angle", getGyroAngle());
+		TTelemetry.addData("Gyro PID", gyroPid);
 
-		SmartDashboard.putData("Gyro PID", gyroPid);
+		TTelemetry.addNumber("Pose X",       () -> odometry.getX(),       .1, TTier.NORMAL);
+		TTelemetry.addNumber("Pose Y",       () -> odometry.getY(),       .1, TTier.NORMAL);
+		TTelemetry.addNumber("Pose Heading", () -> odometry.getHeading(), .1, TTier.NORMAL);
 
-		if (gyro.supportsPitch()) {
-			SmartDashboard.putNumber("Gyro Pitch", gyro.getPitch());
+		if (gyro != null && gyro.supportsPitch()) {
+			TTelemetry.addNumber("Gyro Pitch", () -> gyro.getPitch(), .1, TTier.NORMAL);
 		}
+	}
+
+	/**
+	 * Reset the encoder counts on the encoders.
+	 * <p>
+	 * The position of the robot {@link #getOdometry()} is not changed.
+	 */
+	@Override
+	public void resetEncoders() {
+
+		super.resetEncoders();
 
+		odometry.resetDistances(getOdometryDistance(TSide.LEFT), getOdometryDistance(TSide.RIGHT));
 	}
 
 	/**
@@ -263,6 +463,22 @@ public abstract class TGyroDriveSubsystem extends TDriveSubsystem {
 		setGyroAngle(0);
 	}
 
+	/**
+	 * Set the position of the robot on the field
+	 * <p>
+	 * This routine is typically called at the start of autonomous.
+	 *
+	 * @param x
+	 *            in inches
+	 * @param y
+	 *            in inches
+	 * @param heading
+	 *            in degrees
+	 */
+	public void resetPose(double x, double y, double heading) {
+		odometry.resetPose(x, y, heading);
+	}
+
 	/**
 	 * Set the speeds on the motors using a gyroPID to rotate to the specified
 	 * heading at the specified speed.
@@ -290,6 +506,27 @@ public abstract class TGyroDriveSubsystem extends TDriveSubsystem {
 	 */
 	public void rotateToHeading(double heading, double speedSetpoint) {
 
+		rotateToHeading(heading, speedSetpoint, defaultRotationControl);
+	}
+
+	/**
+	 * Set the speeds on the motors to rotate to the specified heading at the
+	 * specified speed using the specified rotation controller.
+	 * <p>
+	 * This routine will cause the robot to pivot on the spot. If the
+	 * {@link TRotationControl#CASCADED_RATE} controller is requested but the gyro
+	 * does not support the rotation rate, or the rate gains are not set, then the
+	 * {@link TRotationControl#HEADING_PID} controller is used.
+	 *
+	 * @param heading
+	 *            to drive at 0 <= heading < 360
+	 * @param speedSetpoint
+	 *            0 < speed < 1.0 negative speeds are not allowed
+	 * @param rotationControl
+	 *            {@link TRotationControl} used to rotate the robot
+	 */
+	public void rotateToHeading(double heading, double speedSetpoint, TRotationControl rotationControl) {
+
 		// If the gain is set to zero, the pid cannot be enabled
 		if (gyroPid.getP() == 0 && gyroPid.getI() == 0) {
 			System.out.println(
@@ -304,24 +541,65 @@ public abstract class TGyroDriveSubsystem extends TDriveSubsystem {
 			speedSetpoint = maxRotationOutput;
 		}
 
+		if (rotationControl == TRotationControl.CASCADED_RATE) {
+
+			if (!gyro.supportsRate()) {
+				System.out.println("The gyro does not support the rotation rate."
+						+ " Using the heading PID to rotateToHeading");
+				rotationControl = TRotationControl.HEADING_PID;
+			}
+			else if (headingRateGain == 0 || (rateKF == 0 && rateKP == 0)) {
+				System.out.println("The rotation rate gains are not set."
+						+ " Using the heading PID to rotateToHeading");
+				rotationControl = TRotationControl.HEADING_PID;
+			}
+		}
+
+		// Clear the rate loop when starting a new rotation
+		if (this.mode != Mode.ROTATE_TO_HEADING || this.rotationControl != rotationControl) {
+			rateTotalError = 0;
+		}
+
 		this.mode = Mode.ROTATE_TO_HEADING;
+		this.rotationControl = rotationControl;
 
 		this.speedSetpoint = speedSetpoint;
 
 		enableGyroPid(heading);
 	}
 
+	/**
+	 * Set the gyro for this drive subsystem
+	 * <p>
+	 * This routine is used to replace the gyro (ie. with a
+	 * {@link com.torontocodingcollective.sensors.gyro.TReplayGyro} when replaying
+	 * a data log).
+	 *
+	 * @param gyro
+	 *            {@link TGyro}
+	 */
+	public void setGyro(TGyro gyro) {
+		this.gyro = gyro;
+	}
+
 	/**
 	 * Reset the gyro angle to a known heading angle.
 	 * <p>
 	 * This routine is useful when start autonomous to set the gyro angle to a known
 	 * configuration at the start of the match (ie pointed right = 90 degrees)
+	 * <p>
+	 * The position of the robot {@link #getOdometry()} is not changed.
 	 *
 	 * @param angle
 	 *            new angle reading for the gyro
 	 */
 	public void setGyroAngle(double angle) {
 		gyro.setGyroAngle(angle);
+
+		// The gyro reads the new angle for the rest of this loop
+		gyroAngle = TUtil.wrapAngle(angle);
+
+		odometry.resetGyroAngle(gyroAngle);
 	}
 
 	public void setGyroPidGain(double kP, double kI) {
@@ -335,6 +613,50 @@ public abstract class TGyroDriveSubsystem extends TDriveSubsystem {
 		}
 	}
 
+	/**
+	 * Set the max rotation rate used by the {@link TRotationControl#CASCADED_RATE}
+	 * rotation controller.
+	 *
+	 * @param maxRotationRate
+	 *            in degrees/second
+	 */
+	public void setMaxRotationRate(double maxRotationRate) {
+		this.maxRotationRate = Math.abs(maxRotationRate);
+	}
+
+	/**
+	 * Set the rotation controller used by default when rotating to a heading
+	 *
+	 * @param rotationControl
+	 *            {@link TRotationControl}
+	 */
+	public void setRotationControl(TRotationControl rotationControl) {
+		this.defaultRotationControl = rotationControl;
+	}
+
+	/**
+	 * Set the gains used by the {@link TRotationControl#CASCADED_RATE} rotation
+	 * controller.
+	 *
+	 * @param headingRateGain
+	 *            outer loop gain in degrees/second of rotation rate setpoint per
+	 *            degree of heading error
+	 * @param rateKF
+	 *            inner loop feed forward in motor output per degree/second of rate
+	 *            setpoint
+	 * @param rateKP
+	 *            inner loop proportional gain in motor output per degree/second of
+	 *            rate error
+	 * @param rateKI
+	 *            inner loop integral gain applied to the rate error summed each loop
+	 */
+	public void setRotationRateGains(double headingRateGain, double rateKF, double rateKP, double rateKI) {
+		this.headingRateGain = headingRateGain;
+		this.rateKF          = rateKF;
+		this.rateKP          = rateKP;
+		this.rateKI          = rateKI;
+	}
+
 	/**
 	 * The maximum rotation speed to send to the motors
 	 * <p>
@@ -367,7 +689,7 @@ public abstract class TGyroDriveSubsystem extends TDriveSubsystem {
 		if (!gyroPid.isEnabled()) {
 			gyroPid.enable();
 			// Initialize the error
-			gyroPid.calculate(gyro.getAngle());
+			gyroPid.calculate(gyroAngle);
 		}
 
 	}
@@ -384,7 +706,7 @@ public abstract class TGyroDriveSubsystem extends TDriveSubsystem {
 	 */
 	private double setDriveOnHeadingSpeeds() {
 
-		double angleError = gyroPid.getError(gyro.getAngle());
+		double angleError = gyroPid.getError(gyroAngle);
 
 		double leftSpeed  = speedSetpoint;
 		double rightSpeed = speedSetpoint;
@@ -437,7 +759,7 @@ public abstract class TGyroDriveSubsystem extends TDriveSubsystem {
 
 	private double setRotateToHeadingSpeeds() {
 
-		double angleError = gyroPid.getError(gyro.getAngle());
+		double angleError = gyroPid.getError(gyroAngle);
 
 		double leftSpeed = speedSetpoint;
 
@@ -483,4 +805,54 @@ public abstract class TGyroDriveSubsystem extends TDriveSubsystem {
 		return steering;
 	}
 
+	/**
+	 * Set the motor speeds to rotate to the heading using the cascaded heading and
+	 * rate loops.
+	 * <p>
+	 * The outer loop converts the heading error to a rotation rate setpoint limited
+	 * to the max rotation rate, and the inner loop drives the motors to follow the
+	 * rate setpoint using the gyro rate. The motor output is limited to the
+	 * rotation speed setpoint.
+	 *
+	 * @return double representing the motor output applied to the left side.
+	 */
+	private double setCascadedRotateToHeadingSpeeds() {
+
+		double angleError = gyroPid.getError(gyroAngle);
+
+		// Outer heading loop
+		rotationRateSetpoint = TUtil.clamp(headingRateGain * angleError,
+				-maxRotationRate, maxRotationRate);
+
+		// Inner rate loop
+		double rateError = rotationRateSetpoint - gyroRate;
+
+		double output = rateKF * rotationRateSetpoint + rateKP * rateError;
+
+		if (rateKI != 0) {
+
+			rateTotalError += rateError;
+
+			// Do not allow the integral to wind up past the
+			// output required to saturate the motors.
+			double integralOutput = rateTotalError * rateKI;
+
+			if (output + integralOutput > speedSetpoint) {
+				rateTotalError = Math.max(0, speedSetpoint - output) / rateKI;
+			}
+
+			if (output + integralOutput < -speedSetpoint) {
+				rateTotalError = Math.min(0, -speedSetpoint - output) / rateKI;
+			}
+
+			output += rateTotalError * rateKI;
+		}
+
+		output = TUtil.clamp(output, -speedSetpoint, speedSetpoint);
+
+		// Drive the motors in the opposite direction to rotate
+		setSpeed(output, -output);
+
+		return output;
+	}
 }
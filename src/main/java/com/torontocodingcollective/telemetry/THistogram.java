@@ -0,0 +1,150 @@
+package com.torontocodingcollective.telemetry;
+
+/**
+ * Fixed size histogram of positive long values (ie. times in microseconds).
+ * <p>
+ * Values are counted in log-linear buckets: values less than 16 have their own
+ * bucket, and each power of two above 16 is split into 16 buckets. The
+ * percentiles are accurate to within 1/16 (6%) of the value.
+ * <p>
+ * The histogram is allocated when constructed. Recording a value does not
+ * allocate and does not lock, and the histogram must only be used from one
+ * thread (the robot main thread).
+ */
+public class THistogram {
+
+    private static final int SUB_BUCKET_BITS  = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** Values up to 2^40 are counted in separate buckets */
+    private static final int MAX_EXPONENT     = 40;
+
+    private final long[]     counts           =
+            new long[(MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT];
+
+    private long             totalCount       = 0;
+    private long             maxValue         = 0;
+
+    /**
+     * Get the bucket of a value
+     */
+    private static int getBucket(long value) {
+
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) Math.max(0, value);
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+
+        if (exponent > MAX_EXPONENT) {
+            exponent = MAX_EXPONENT;
+            value    = (1L << (MAX_EXPONENT + 1)) - 1;
+        }
+
+        int subBucket = (int) (value >> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Get the largest value counted in a bucket
+     */
+    private static long getBucketMaxValue(int bucket) {
+
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+
+        int exponent  = bucket / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKET_COUNT;
+
+        int shift     = exponent - SUB_BUCKET_BITS;
+
+        return ((long) (SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Get the number of values recorded
+     *
+     * @return count
+     */
+    public long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * Get the largest value recorded
+     *
+     * @return max value or 0 if no values are recorded
+     */
+    public long getMax() {
+        return maxValue;
+    }
+
+    /**
+     * Get the value at a percentile
+     *
+     * @param percentile
+     *            0 to 100
+     * @return the value that the percentile of the recorded values are less than
+     *         or equal to, or 0 if no values are recorded
+     */
+    public long getPercentile(double percentile) {
+
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        long targetCount = (long) Math.ceil(totalCount * Math.min(100, Math.max(0, percentile)) / 100.0);
+
+        if (targetCount < 1) {
+            targetCount = 1;
+        }
+
+        if (targetCount >= totalCount) {
+            return maxValue;
+        }
+
+        long count = 0;
+
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+
+            count += counts[bucket];
+
+            if (count >= targetCount) {
+                return Math.min(getBucketMaxValue(bucket), maxValue);
+            }
+        }
+
+        return maxValue;
+    }
+
+    /**
+     * Record a value
+     *
+     * @param value
+     *            to record
+     */
+    public void record(long value) {
+
+        counts[getBucket(value)]++;
+        totalCount++;
+
+        if (value > maxValue) {
+            maxValue = value;
+        }
+    }
+
+    /**
+     * Clear all recorded values
+     */
+    public void reset() {
+
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+        }
+
+        totalCount = 0;
+        maxValue   = 0;
+    }
+}
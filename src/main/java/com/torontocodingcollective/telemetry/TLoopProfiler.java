@@ -0,0 +1,300 @@
+package com.torontocodingcollective.telemetry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import com.torontocodingcollective.telemetry.TTelemetry.TTier;
+
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+
+/**
+ * Loop profiler
+ * <p>
+ * The loop profiler measures the time spent in each part of the robot loop
+ * (subsystem periodic routines, command execute routines, telemetry etc.) and
+ * records the times in a {@link THistogram} for each part. The 50th and 99th
+ * percentile and the max time of each part are published to the
+ * SmartDashboard at the {@link TTier#SLOW} rate.
+ * <p>
+ * When the loop takes longer than the loop period, the part of the loop that
+ * took the most time in that loop is printed.
+ * <p>
+ * Usage:
+ * <ul>
+ * <li>Call {@link #startLoop()} and {@link #endLoop()} around the robot loop
+ * (ie. in an override of the robot {@code loopFunc()})
+ * <li>Time a part of the loop by adding a timer {@link #addTimer(String)} and
+ * surrounding the code with {@link #start()} and {@link #stop(int, long)}
+ * <li>Call {@link #profileCommands()} once after the button bindings are
+ * created to time the button polling and the commands. The command scheduler
+ * runs the subsystem periodic routines, then polls the buttons, then runs the
+ * commands. The button polling is timed from the end of the previous timed
+ * part of the loop to the end of the last button ({@link #BUTTONS_TIMER_NAME}),
+ * and a command is timed from the end of the previous timed part of the loop to
+ * the end of its execute routine, so the time includes the command scheduler
+ * overhead before the command runs.
+ * </ul>
+ * Each subsystem periodic routine that does work should be timed with a timer,
+ * otherwise the time is charged to the button polling.
+ * <p>
+ * A timer is only recorded in the loops where it ran, so a command timer
+ * records the time of the command in the loops where the command was scheduled.
+ * The time of the loop that is not measured by any timer is reported as
+ * {@link #OTHER_TIMER_NAME} (ie. the SmartDashboard and LiveWindow updates in
+ * the robot framework).
+ * <p>
+ * The profiler must only be used from the robot main thread.
+ */
+public class TLoopProfiler {
+
+    public static final String  OTHER_TIMER_NAME   = "Other";
+
+    public static final String  BUTTONS_TIMER_NAME = "Buttons";
+
+    private static final String KEY_PREFIX         = "Loop ";
+
+    private static class Timer {
+
+        final String     name;
+        final THistogram histogram = new THistogram();
+
+        // Time in this loop
+        long             loopNanos = 0;
+
+        // Set when the timer is stopped or marked in this loop
+        boolean          ran       = false;
+
+        Timer(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final ArrayList<Timer>         timers           = new ArrayList<>();
+
+    // Command timers by command name
+    private static final HashMap<String, Integer> commandTimers    = new HashMap<>();
+
+    private static final long                     loopPeriodNanos  = (long) (TimedRobot.kDefaultPeriod * 1.0e9);
+
+    private static final int                      loopTimer        = addTimer("Total");
+    private static final int                      otherTimer       = addTimer(OTHER_TIMER_NAME);
+
+    private static long                           loopStartTime    = 0;
+    private static long                           lastMarkTime     = 0;
+
+    private static long                           overrunCount     = 0;
+
+    private static int                            buttonTimer      = -1;
+
+    private static boolean                        commandsProfiled = false;
+
+    /**
+     * Add a timer for a part of the robot loop
+     * <p>
+     * The timer percentiles are published to the SmartDashboard with the keys
+     * {@code "Loop <name> p50"}, {@code "Loop <name> p99"} and
+     * {@code "Loop <name> max"} in milliseconds.
+     *
+     * @param name
+     *            of the timer
+     * @return the timer id used to {@link #stop(int, long)} the timer
+     */
+    public static int addTimer(String name) {
+
+        Timer timer = new Timer(name);
+
+        timers.add(timer);
+
+        TTelemetry.addNumber(KEY_PREFIX + name + " p50", () -> toMillis(timer.histogram.getPercentile(50)), .01, TTier.SLOW);
+        TTelemetry.addNumber(KEY_PREFIX + name + " p99", () -> toMillis(timer.histogram.getPercentile(99)), .01, TTier.SLOW);
+        TTelemetry.addNumber(KEY_PREFIX + name + " max", () -> toMillis(timer.histogram.getMax()),          .01, TTier.SLOW);
+
+        return timers.size() - 1;
+    }
+
+    /**
+     * Mark the end of the robot loop
+     * <p>
+     * Records the loop time and the time of each timer that ran in this loop,
+     * and prints the part of the loop that took the most time if the loop
+     * overran the loop period.
+     */
+    public static void endLoop() {
+
+        long now = System.nanoTime();
+
+        long loopNanos = now - loopStartTime;
+
+        // Time not measured by any timer
+        long timedNanos = 0;
+        for (int i = 0; i < timers.size(); i++) {
+            if (i != loopTimer && i != otherTimer) {
+                timedNanos += timers.get(i).loopNanos;
+            }
+        }
+
+        timers.get(loopTimer).loopNanos  = loopNanos;
+        timers.get(otherTimer).loopNanos = Math.max(0, loopNanos - timedNanos);
+
+        timers.get(loopTimer).ran  = true;
+        timers.get(otherTimer).ran = true;
+
+        for (int i = 0; i < timers.size(); i++) {
+
+            Timer timer = timers.get(i);
+
+            if (timer.ran) {
+                timer.histogram.record(timer.loopNanos / 1000);
+                timer.ran = false;
+            }
+        }
+
+        if (loopNanos > loopPeriodNanos) {
+            overrunCount++;
+            printOverrun(loopNanos);
+        }
+    }
+
+    /**
+     * Get the number of loops that overran the loop period
+     *
+     * @return overrun count
+     */
+    public static long getOverrunCount() {
+        return overrunCount;
+    }
+
+    /**
+     * Time the button polling and the commands run by the
+     * {@link CommandScheduler}
+     * <p>
+     * The scheduler polls the buttons in the order they are bound, so this
+     * routine must be called after all of the buttons are bound.
+     * <p>
+     * A timer is added for each command name the first time a command with that
+     * name runs.
+     */
+    public static void profileCommands() {
+
+        if (commandsProfiled) {
+            return;
+        }
+
+        commandsProfiled = true;
+
+        // Polled after the buttons that are already bound
+        buttonTimer = addTimer(BUTTONS_TIMER_NAME);
+
+        CommandScheduler.getInstance().addButton(() -> mark(buttonTimer));
+
+        CommandScheduler.getInstance().onCommandExecute(command -> {
+
+            Integer timer = commandTimers.get(command.getName());
+
+            if (timer == null) {
+                timer = addTimer(command.getName());
+                commandTimers.put(command.getName(), timer);
+            }
+
+            mark(timer);
+        });
+    }
+
+    /**
+     * Reset all of the timer histograms
+     */
+    public static void reset() {
+
+        for (int i = 0; i < timers.size(); i++) {
+            timers.get(i).histogram.reset();
+        }
+
+        overrunCount = 0;
+    }
+
+    /**
+     * Start timing a part of the loop
+     *
+     * @return the start time to pass to {@link #stop(int, long)}
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Mark the start of the robot loop
+     * <p>
+     * This routine must be called at the start of each loop.
+     */
+    public static void startLoop() {
+
+        loopStartTime = System.nanoTime();
+        lastMarkTime  = loopStartTime;
+
+        for (int i = 0; i < timers.size(); i++) {
+            timers.get(i).loopNanos = 0;
+        }
+    }
+
+    /**
+     * Stop timing a part of the loop
+     *
+     * @param timer
+     *            id from {@link #addTimer(String)}
+     * @param startTime
+     *            from {@link #start()}
+     */
+    public static void stop(int timer, long startTime) {
+
+        long now = System.nanoTime();
+
+        Timer stopTimer = timers.get(timer);
+
+        stopTimer.loopNanos += now - startTime;
+        stopTimer.ran        = true;
+
+        lastMarkTime = now;
+    }
+
+    /**
+     * Charge the time since the end of the previous timed part of the loop to a
+     * timer
+     */
+    private static void mark(int timer) {
+
+        long now = System.nanoTime();
+
+        Timer markTimer = timers.get(timer);
+
+        markTimer.loopNanos += now - lastMarkTime;
+        markTimer.ran        = true;
+
+        lastMarkTime = now;
+    }
+
+    private static void printOverrun(long loopNanos) {
+
+        Timer topTimer = null;
+
+        for (int i = 0; i < timers.size(); i++) {
+
+            if (i == loopTimer) {
+                continue;
+            }
+
+            Timer timer = timers.get(i);
+
+            if (topTimer == null || timer.loopNanos > topTimer.loopNanos) {
+                topTimer = timer;
+            }
+        }
+
+        System.out.println("Loop overrun " + toMillis(loopNanos / 1000) + "ms: "
+                + topTimer.name + " " + toMillis(topTimer.loopNanos / 1000) + "ms");
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+}
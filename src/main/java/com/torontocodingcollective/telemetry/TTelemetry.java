@@ -0,0 +1,306 @@
+package com.torontocodingcollective.telemetry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.util.sendable.Sendable;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Telemetry publisher for the SmartDashboard.
+ * <p>
+ * Subsystems register the values to publish once (typically in the
+ * constructor) with a supplier for the value and a publish {@link TTier}. The
+ * SmartDashboard entry for each value is looked up when the value is
+ * registered, and the value is only written to the entry when it changes.
+ * <p>
+ * Numbers can be registered with a threshold so that small changes (noise) are
+ * not published.
+ * <p>
+ * The {@link #updatePeriodic()} routine must be called once each loop (after
+ * the command scheduler runs) in order to publish the values.
+ */
+public class TTelemetry {
+
+    /**
+     * Publish tier for a telemetry value
+     */
+    public enum TTier {
+
+        /** Publish every loop */
+        FAST(1),
+
+        /** Publish every 5th loop (100ms) */
+        NORMAL(5),
+
+        /** Publish every 25th loop (500ms) */
+        SLOW(25);
+
+        private final int loops;
+
+        private TTier(int loops) {
+            this.loops = loops;
+        }
+    };
+
+    private static abstract class Channel {
+
+        final NetworkTableEntry entry;
+        final TTier             tier;
+
+        // Spread the channels in a tier across the loops
+        // so that they are not all published in the same loop
+        final int               phase;
+
+        boolean                 published = false;
+
+        Channel(String key, TTier tier, int phase) {
+            this.entry = SmartDashboard.getEntry(key);
+            this.tier  = tier;
+            this.phase = phase % tier.loops;
+        }
+
+        abstract void publish();
+    }
+
+    private static class NumberChannel extends Channel {
+
+        final DoubleSupplier supplier;
+        final double         threshold;
+        double               value;
+
+        NumberChannel(String key, DoubleSupplier supplier, double threshold, TTier tier, int phase) {
+            super(key, tier, phase);
+            this.supplier  = supplier;
+            this.threshold = Math.abs(threshold);
+        }
+
+        @Override
+        void publish() {
+
+            double newValue = supplier.getAsDouble();
+
+            if (published && Math.abs(newValue - value) <= threshold) {
+                return;
+            }
+
+            value = newValue;
+            entry.setDouble(value);
+            published = true;
+        }
+    }
+
+    private static class BooleanChannel extends Channel {
+
+        final BooleanSupplier supplier;
+        boolean               value;
+
+        BooleanChannel(String key, BooleanSupplier supplier, TTier tier, int phase) {
+            super(key, tier, phase);
+            this.supplier = supplier;
+        }
+
+        @Override
+        void publish() {
+
+            boolean newValue = supplier.getAsBoolean();
+
+            if (published && newValue == value) {
+                return;
+            }
+
+            value = newValue;
+            entry.setBoolean(value);
+            published = true;
+        }
+    }
+
+    private static class NumberArrayChannel extends Channel {
+
+        final Supplier<double[]> supplier;
+        double[]                 value;
+
+        NumberArrayChannel(String key, Supplier<double[]> supplier, TTier tier, int phase) {
+            super(key, tier, phase);
+            this.supplier = supplier;
+        }
+
+        @Override
+        void publish() {
+
+            double[] newValue = supplier.get();
+
+            if (newValue == null) {
+                return;
+            }
+
+            if (published && Arrays.equals(newValue, value)) {
+                return;
+            }
+
+            // Keep a copy of the published value to compare
+            if (value == null || value.length != newValue.length) {
+                value = newValue.clone();
+            } else {
+                System.arraycopy(newValue, 0, value, 0, newValue.length);
+            }
+
+            entry.setDoubleArray(value);
+            published = true;
+        }
+    }
+
+    private static class StringChannel extends Channel {
+
+        final Supplier<String> supplier;
+        String                 value;
+
+        StringChannel(String key, Supplier<String> supplier, TTier tier, int phase) {
+            super(key, tier, phase);
+            this.supplier = supplier;
+        }
+
+        @Override
+        void publish() {
+
+            String newValue = supplier.get();
+
+            if (newValue == null) {
+                newValue = "";
+            }
+
+            if (published && newValue.equals(value)) {
+                return;
+            }
+
+            value = newValue;
+            entry.setString(value);
+            published = true;
+        }
+    }
+
+    private static final ArrayList<Channel> channels = new ArrayList<>();
+
+    private static long                     loopCount = 0;
+
+    /**
+     * Register a boolean value to publish
+     *
+     * @param key
+     *            the SmartDashboard key
+     * @param supplier
+     *            of the value
+     * @param tier
+     *            {@link TTier} publish rate
+     */
+    public static void addBoolean(String key, BooleanSupplier supplier, TTier tier) {
+        channels.add(new BooleanChannel(key, supplier, tier, channels.size()));
+    }
+
+    /**
+     * Publish a Sendable object (PID controller, gyro, chooser etc) to the
+     * SmartDashboard.
+     * <p>
+     * Sendable objects are updated by the SmartDashboard, and only need to be put
+     * once.
+     *
+     * @param key
+     *            the SmartDashboard key
+     * @param data
+     *            the Sendable object
+     */
+    public static void addData(String key, Sendable data) {
+        if (data != null) {
+            SmartDashboard.putData(key, data);
+        }
+    }
+
+    /**
+     * Register a number value to publish whenever it changes
+     *
+     * @param key
+     *            the SmartDashboard key
+     * @param supplier
+     *            of the value
+     * @param tier
+     *            {@link TTier} publish rate
+     */
+    public static void addNumber(String key, DoubleSupplier supplier, TTier tier) {
+        addNumber(key, supplier, 0, tier);
+    }
+
+    /**
+     * Register a number value to publish whenever it changes by more than the
+     * threshold
+     *
+     * @param key
+     *            the SmartDashboard key
+     * @param supplier
+     *            of the value
+     * @param threshold
+     *            the value is only published when it changes by more than this
+     *            amount from the last published value
+     * @param tier
+     *            {@link TTier} publish rate
+     */
+    public static void addNumber(String key, DoubleSupplier supplier, double threshold, TTier tier) {
+        channels.add(new NumberChannel(key, supplier, threshold, tier, channels.size()));
+    }
+
+    /**
+     * Register a number array to publish whenever any value in the array changes
+     * <p>
+     * The supplier can return the same array each time it is called.
+     *
+     * @param key
+     *            the SmartDashboard key
+     * @param supplier
+     *            of the array
+     * @param tier
+     *            {@link TTier} publish rate
+     */
+    public static void addNumberArray(String key, Supplier<double[]> supplier, TTier tier) {
+        channels.add(new NumberArrayChannel(key, supplier, tier, channels.size()));
+    }
+
+    /**
+     * Register a string value to publish
+     * <p>
+     * Strings are typically built each time the supplier is called, and should be
+     * published using the {@link TTier#SLOW} tier.
+     *
+     * @param key
+     *            the SmartDashboard key
+     * @param supplier
+     *            of the value
+     * @param tier
+     *            {@link TTier} publish rate
+     */
+    public static void addString(String key, Supplier<String> supplier, TTier tier) {
+        channels.add(new StringChannel(key, supplier, tier, channels.size()));
+    }
+
+    /**
+     * Publish all values that are due in this loop and have changed since they
+     * were last published.
+     * <p>
+     * This routine must be called once each loop.
+     */
+    public static void updatePeriodic() {
+
+        for (int i = 0; i < channels.size(); i++) {
+
+            Channel channel = channels.get(i);
+
+            if (loopCount % channel.tier.loops == channel.phase) {
+                channel.publish();
+            }
+        }
+
+        loopCount++;
+    }
+}
@@ -2,7 +2,9 @@ package frc.robot;
 
 import com.torontocodingcollective.TConst;
 import com.torontocodingcollective.motorcontroller.TMotorController.TMotorControllerType;
+import com.torontocodingcollective.sensors.gyro.TGyro.TAccelerationAxis;
 import com.torontocodingcollective.sensors.gyro.TGyro.TGyroType;
+import com.torontocodingcollective.subsystem.TGyroDriveSubsystem.TRotationControl;
 
 import edu.wpi.first.wpilibj.PneumaticsModuleType;
 
@@ -57,6 +59,10 @@ public final class Constants {
 		public static final int                     GYRO_PORT;
 		public static final boolean                 GYRO_ISINVERTED;
 
+		// Gyro accelerometer axis that points to the front of the robot
+		public static final TAccelerationAxis       GYRO_ACCELERATION_AXIS;
+		public static final boolean                 GYRO_ACCELERATION_ISINVERTED;
+
 		// ******************************************
 		// Pneumatics Ports
 		// ******************************************
@@ -72,9 +78,69 @@ public final class Constants {
 		public static final double                 DRIVE_GYRO_PID_KI;
 		public static final double                 DRIVE_MAX_ROTATION_OUTPUT     = 0.6;
 
+		// Cascaded rotate to heading control
+		// Outer loop: rotation rate setpoint (deg/s) per degree of heading error
+		// Inner loop: motor output per deg/s of rate setpoint (feed forward) and rate error
+		// The gains are starting values and have not been tuned on the robot
+		public static final TRotationControl       DRIVE_ROTATION_CONTROL        = TRotationControl.HEADING_PID;
+		public static final double                 DRIVE_MAX_ROTATION_RATE       = 180.0;
+		public static final double                 DRIVE_ROTATION_HEADING_KP     = 4.0;
+		public static final double                 DRIVE_ROTATION_RATE_KF        = 0.002;
+		public static final double                 DRIVE_ROTATION_RATE_KP        = 0.002;
+		public static final double                 DRIVE_ROTATION_RATE_KI        = 0.0001;
+
 		public static final double                 DRIVE_SPEED_PID_KP;
 		public static final double                 DRIVE_SPEED_PID_KI;
 
+		// Speed PID feed forward gains for each gear
+		// (normalized to the max gear speed)
+		public static final double                 LOW_GEAR_SPEED_PID_KS;
+		public static final double                 LOW_GEAR_SPEED_PID_KV;
+		public static final double                 LOW_GEAR_SPEED_PID_KA;
+
+		public static final double                 HIGH_GEAR_SPEED_PID_KS;
+		public static final double                 HIGH_GEAR_SPEED_PID_KV;
+		public static final double                 HIGH_GEAR_SPEED_PID_KA;
+
+		// Speed PID gains in high gear (the low gear gains are auto tuned)
+		public static final double                 HIGH_GEAR_SPEED_PID_KP;
+		public static final double                 HIGH_GEAR_SPEED_PID_KI;
+
+		// *********************************************************
+		// Automatic shifting
+		// *********************************************************
+		// Encoder speed to shift up and down as a fraction of the max
+		// low gear speed. The gap between the speeds is the hysteresis.
+		public static final double                 AUTO_UPSHIFT_SPEED             = 0.85;
+		public static final double                 AUTO_DOWNSHIFT_SPEED           = 0.5;
+		// Minimum throttle to shift up
+		public static final double                 AUTO_UPSHIFT_THROTTLE          = 0.8;
+		// Gyro turn rate (deg/sec) above which the drive stays in or
+		// shifts to low gear
+		public static final double                 AUTO_SHIFT_MAX_TURN_RATE       = 120.0;
+		// Minimum time between shifts in seconds
+		public static final double                 SHIFT_LOCKOUT_TIME             = 0.5;
+
+		// *********************************************************
+		// Drive output shaping (applied to each side)
+		// *********************************************************
+		// Max change in output per second when speeding up
+		public static final double                 DRIVE_OUTPUT_ACCELERATION_RATE = 3.0;
+		// Max change in output per second when slowing down or reversing
+		public static final double                 DRIVE_OUTPUT_BRAKING_RATE      = 5.0;
+		// Max change in the rate per second (0 = no jerk limit)
+		public static final double                 DRIVE_OUTPUT_JERK              = 30.0;
+
+		// *********************************************************
+		// Drive traction control (used in high gear)
+		// *********************************************************
+		// Max wheel acceleration without slipping in inches/sec^2
+		// (about 0.9g) used when the gyro has no accelerometer
+		public static final double                 DRIVE_MAX_WHEEL_ACCELERATION   = 350.0;
+		// Wheel acceleration above the accelerometer chassis
+		// acceleration that indicates a slip in inches/sec^2
+		public static final double                 DRIVE_SLIP_MARGIN              = 100.0;
+
 		// *********************************************************
 		// Ultrasonic Sensor Calibration
 		// *********************************************************
@@ -109,6 +175,9 @@ public final class Constants {
 				GYRO_PORT       = 0;
 				GYRO_ISINVERTED = TConst.NOT_INVERTED;
 
+				GYRO_ACCELERATION_AXIS       = TAccelerationAxis.X;
+				GYRO_ACCELERATION_ISINVERTED = TConst.NOT_INVERTED;
+
 				// The low gear speed should be set just below the
 				// maximum loaded speed of the robot
 				MAX_LOW_GEAR_SPEED = 320.0; // Encoder counts/sec
@@ -124,6 +193,21 @@ public final class Constants {
 				DRIVE_SPEED_PID_KP = 0.4;
 				DRIVE_SPEED_PID_KI = DRIVE_SPEED_PID_KP / 20.0;
 
+				// The feed forward gains are measured in each gear using the
+				// Drive Characterization auto pattern.  The default gains
+				// (kS = 0, kV = 1, kA = 0) use the speed setpoint as the
+				// feed forward.
+				LOW_GEAR_SPEED_PID_KS  = 0.0;
+				LOW_GEAR_SPEED_PID_KV  = 1.0;
+				LOW_GEAR_SPEED_PID_KA  = 0.0;
+
+				HIGH_GEAR_SPEED_PID_KS = 0.0;
+				HIGH_GEAR_SPEED_PID_KV = 1.0;
+				HIGH_GEAR_SPEED_PID_KA = 0.0;
+
+				HIGH_GEAR_SPEED_PID_KP = DRIVE_SPEED_PID_KP;
+				HIGH_GEAR_SPEED_PID_KI = DRIVE_SPEED_PID_KI;
+
 				ENCODER_COUNTS_PER_INCH = 55.6;
 
 				break;
@@ -131,6 +215,36 @@ public final class Constants {
 
 		}
 	}
+
+	/*
+	 * Power Subsystem Constants
+	 */
+	public static final class PowerConstants {
+
+		// The roboRIO browns out at 6.8V. Keep the battery voltage
+		// above this floor.
+		public static final double BROWNOUT_VOLTAGE_FLOOR      = 7.5;
+
+		// The compressor is paused when the voltage is predicted to
+		// fall below the floor + margin, and resumes when the voltage
+		// has stayed above the floor + margin for the resume delay.
+		public static final double COMPRESSOR_VOLTAGE_MARGIN   = 1.0;
+		public static final double COMPRESSOR_RESUME_DELAY     = 1.0;
+
+		// Power sampling period and the time the voltage trend is
+		// extrapolated to predict a brownout (seconds)
+		public static final double POWER_SAMPLE_PERIOD         = 0.005;
+		public static final double BROWNOUT_PREDICTION_TIME    = 0.1;
+
+		// Drive output scaling when a brownout is predicted
+		public static final double MIN_DRIVE_OUTPUT_SCALE      = 0.5;
+		// Drive output scale recovered per second
+		public static final double DRIVE_OUTPUT_SCALE_RECOVERY = 1.0;
+
+		// Typical battery and wiring resistance (ohms) used until the
+		// resistance is measured from the sampled voltage and current
+		public static final double DEFAULT_BATTERY_RESISTANCE  = 0.015;
+	}
 }
 
 
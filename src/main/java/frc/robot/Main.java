@@ -20,6 +20,13 @@ public final class Main {
    * <p>If you change your main robot class, change the parameter type.
    */
   public static void main(String... args) {
+
+    // Replay a data log instead of starting the robot (simulator only)
+    String replayLog = System.getenv(RobotReplay.REPLAY_LOG_ENV);
+    if (replayLog != null && RobotBase.isSimulation()) {
+      System.exit(RobotReplay.replay(replayLog));
+    }
+
     RobotBase.startRobot(Robot::new);
   }
 }
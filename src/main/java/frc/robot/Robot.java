@@ -4,6 +4,10 @@
 
 package frc.robot;
 
+import com.torontocodingcollective.commands.TSchedulerWatchdog;
+import com.torontocodingcollective.telemetry.TLoopProfiler;
+import com.torontocodingcollective.telemetry.TTelemetry;
+
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
@@ -25,6 +29,12 @@ public class Robot extends TimedRobot {
 
 	private RobotContainer robotContainer;
 
+	private final int telemetryTimer = TLoopProfiler.addTimer("Telemetry");
+	private final int dataLogTimer   = TLoopProfiler.addTimer("Data Log");
+
+	// Reports any code that runs the scheduler more than once in a loop
+	private final TSchedulerWatchdog schedulerWatchdog = new TSchedulerWatchdog();
+
 	/**
 	 * This function is run when the robot is first started up and should be used
 	 * for any initialization code.
@@ -37,9 +47,54 @@ public class Robot extends TimedRobot {
 
 		robotContainer = new RobotContainer(oi);
 
+		if (!isReplay()) {
+			robotContainer.startDataLog();
+		}
+
 		AutoSelector.init();
 	}
 
+	/**
+	 * Get the robot container
+	 *
+	 * @return {@link RobotContainer} or {@code null} if the robot is not
+	 *         initialized
+	 */
+	RobotContainer getRobotContainer() {
+		return robotContainer;
+	}
+
+	/**
+	 * Indicates whether this robot is replaying a data log
+	 * {@link RobotReplay}
+	 *
+	 * @return {@code true} if a data log is replayed, {@code false} otherwise
+	 */
+	protected boolean isReplay() {
+		return false;
+	}
+
+	/**
+	 * Run one robot loop
+	 * <p>
+	 * The loop is timed by the {@link TLoopProfiler} in order to find the cause
+	 * of loop overruns.
+	 */
+	@Override
+	protected void loopFunc() {
+
+		TLoopProfiler.startLoop();
+
+		// Read the inputs once for the whole loop
+		robotContainer.latchInputs();
+
+		schedulerWatchdog.startLoop();
+
+		super.loopFunc();
+
+		TLoopProfiler.endLoop();
+	}
+
 	@Override
 	public void robotPeriodic() {
 		// Runs the Scheduler. This is responsible for polling buttons, adding
@@ -49,7 +104,20 @@ public class Robot extends TimedRobot {
 		// and running subsystem periodic() methods. This must be called from the
 		// robot's periodic
 		// block in order for anything in the Command-based framework to work.
+		//
+		// NOTE: This is the only place the scheduler is run. The robotPeriodic
+		// is called in every mode, and the scheduler must only run once per loop.
 		CommandScheduler.getInstance().run();
+
+		// Publish the telemetry and record the data log
+		// after all subsystems and commands have run
+		long startTime = TLoopProfiler.start();
+		TTelemetry.updatePeriodic();
+		TLoopProfiler.stop(telemetryTimer, startTime);
+
+		startTime = TLoopProfiler.start();
+		robotContainer.dataLogPeriodic();
+		TLoopProfiler.stop(dataLogTimer, startTime);
 	}
 
 	/**
@@ -64,6 +132,10 @@ public class Robot extends TimedRobot {
 
 	@Override
 	public void disabledPeriodic() {
+
+		// Generate the auto trajectories and build the
+		// selected autonomous command before auto starts
+		robotContainer.disabledPeriodic();
 	}
 
 	/**
@@ -80,7 +152,7 @@ public class Robot extends TimedRobot {
 	@Override
 	public void autonomousInit() {
 
-		Command autonomousCommand = robotContainer.getAutonomousCommand();
+		autoCommand = robotContainer.getAutonomousCommand();
 		/*
 		 * String autoSelected = SmartDashboard.getString("Auto Selector", "Default");
 		 * switch(autoSelected) { case "My Auto": autonomousCommand = new
@@ -89,8 +161,8 @@ public class Robot extends TimedRobot {
 		 */
 
 		// schedule the autonomous command (example)
-		if (autonomousCommand != null) {
-			autonomousCommand.schedule();
+		if (autoCommand != null) {
+			autoCommand.schedule();
 		}
 	}
 
@@ -119,7 +191,6 @@ public class Robot extends TimedRobot {
 	 */
 	@Override
 	public void teleopPeriodic() {
-		CommandScheduler.getInstance().run();
 	}
 
 	@Override
@@ -6,20 +6,39 @@ package frc.robot;
 
 import java.util.Set;
 
+import com.torontocodingcollective.TInputCurve.TCurveType;
+import com.torontocodingcollective.TLoopClock;
+import com.torontocodingcollective.commands.drive.TSpeedPidAutoTuneCommand;
+import com.torontocodingcollective.commands.gyroDrive.TGyroPidAutoTuneCommand;
+import com.torontocodingcollective.log.TDataLog;
+import com.torontocodingcollective.log.TDataLogReader;
+import com.torontocodingcollective.log.TLogReplay;
+import com.torontocodingcollective.oi.TStick;
+import com.torontocodingcollective.sensors.encoder.TReplayEncoder;
+import com.torontocodingcollective.sensors.gyro.TReplayGyro;
+import com.torontocodingcollective.subsystem.TDriveSubsystem.TSide;
+import com.torontocodingcollective.telemetry.TLoopProfiler;
+
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.PS4Controller;
+import edu.wpi.first.wpilibj.Preferences;
 import edu.wpi.first.wpilibj.shuffleboard.EventImportance;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.Subsystem;
 import edu.wpi.first.wpilibj2.command.button.Button;
-import frc.robot.commands.AutonomousCommand;
+import frc.robot.commands.AutoTrajectoryCache;
 import frc.robot.commands.drive.DefaultDriveCommand;
 import frc.robot.commands.pneumatics.DefaultPneumaticsCommand;
+import frc.robot.oi.AutoSelector;
+import frc.robot.oi.DriveControlType;
+import frc.robot.oi.DriveSelector;
 import frc.robot.oi.OI;
 import frc.robot.subsystems.CameraSubsystem;
 import frc.robot.subsystems.ControlPanelSubsystem;
 import frc.robot.subsystems.DriveSubsystem;
+import frc.robot.subsystems.DriveSubsystem.ShiftMode;
 import frc.robot.subsystems.PneumaticsSubsystem;
 import frc.robot.subsystems.PowerSubsystem;
 
@@ -35,13 +54,33 @@ public class RobotContainer {
 	// The robot's subsystems
 	private final DriveSubsystem        driveSubsystem        = new DriveSubsystem();
 	private final PneumaticsSubsystem   pneumaticsSubsystem   = new PneumaticsSubsystem();
-	private final PowerSubsystem        powerSubsystem        = new PowerSubsystem();
+	private final PowerSubsystem        powerSubsystem        = new PowerSubsystem(driveSubsystem, pneumaticsSubsystem);
 	private final CameraSubsystem       cameraSubsystem       = new CameraSubsystem();
 	private final ControlPanelSubsystem controlPanelSubsystem = new ControlPanelSubsystem();
 
 	// FIXME: is the oi class needed?
 	private final OI oi;
 
+	// Number of driver controller axes recorded in the data log
+	private static final int    DRIVER_AXIS_COUNT       = 6;
+
+	// Allowed difference between the recorded and replayed motor outputs
+	private static final double REPLAY_OUTPUT_TOLERANCE = 1e-9;
+
+	// Saved preferences that are loaded when the robot starts
+	private static final String[] PREFERENCE_KEYS = {
+			TSpeedPidAutoTuneCommand.LEFT_SPEED_PID_KP_KEY,
+			TSpeedPidAutoTuneCommand.LEFT_SPEED_PID_KI_KEY,
+			TSpeedPidAutoTuneCommand.RIGHT_SPEED_PID_KP_KEY,
+			TSpeedPidAutoTuneCommand.RIGHT_SPEED_PID_KI_KEY,
+			TGyroPidAutoTuneCommand.GYRO_PID_KP_KEY,
+			TGyroPidAutoTuneCommand.GYRO_PID_KI_KEY };
+
+	private final TDataLog      dataLog                 = new TDataLog();
+
+	// Autonomous trajectories and command prepared while disabled
+	private final AutoTrajectoryCache autoTrajectoryCache = new AutoTrajectoryCache(driveSubsystem);
+
 	/**
 	 * The container for the robot. Contains subsystems, OI devices, and commands.
 	 */
@@ -68,6 +107,17 @@ public class RobotContainer {
 				Shuffleboard.addEventMarker(
 						"Command finished", command.getName(), EventImportance.kNormal));
 
+		// Record the command events in the data log
+		CommandScheduler.getInstance()
+		.onCommandInitialize(
+				command -> dataLog.logEvent(TDataLog.EVENT_COMMAND_INITIALIZE, command.getName()));
+		CommandScheduler.getInstance()
+		.onCommandInterrupt(
+				command -> dataLog.logEvent(TDataLog.EVENT_COMMAND_INTERRUPT, command.getName()));
+		CommandScheduler.getInstance()
+		.onCommandFinish(
+				command -> dataLog.logEvent(TDataLog.EVENT_COMMAND_FINISH, command.getName()));
+
 		// Configure the button bindings
 		configureButtonBindings();
 
@@ -86,6 +136,76 @@ public class RobotContainer {
 
 		// The OI layer periodic method should also be called.
 		CommandScheduler.getInstance().registerSubsystem(oi);
+
+		// Time the button polling and each command in the loop profiler.
+		// The buttons must be bound before the commands are profiled.
+		TLoopProfiler.profileCommands();
+
+		configureDataLog();
+	}
+
+	/**
+	 * Add the values recorded each loop to the data log.
+	 * <p>
+	 * The log is started by {@link #startDataLog()}.
+	 * <p>
+	 * The raw driver controller values are recorded so that the drive inputs
+	 * can be reproduced from the log.
+	 * <p>
+	 * The inputs (robot state, controllers, sensors and selections) are
+	 * recorded as input channels, which are sampled at the start of the loop
+	 * {@link #latchInputs()} so the recorded values are the values used by the
+	 * loop.
+	 */
+	private void configureDataLog() {
+
+		// Robot state
+		dataLog.addInputChannel("Enabled",        () -> DriverStation.isEnabled()    ? 1 : 0);
+		dataLog.addInputChannel("Autonomous",     () -> DriverStation.isAutonomous() ? 1 : 0);
+
+		// Driver controller
+		for (int i = 0; i < DRIVER_AXIS_COUNT; i++) {
+			final int axis = i;
+			dataLog.addInputChannel("Driver Axis " + axis, () -> DriverStation.getStickAxis(0, axis));
+		}
+		dataLog.addInputChannel("Driver Buttons", () -> DriverStation.getStickButtons(0));
+		dataLog.addInputChannel("Driver POV",     () -> DriverStation.getStickPOV(0, 0));
+
+		// Drive and auto selections
+		DriveSelector driveSelector = oi.getDriveSelector();
+
+		dataLog.addInputChannel("Drive Type",        () -> driveSelector.getDriveControlType().ordinal());
+		dataLog.addInputChannel("Input Curve",       () -> driveSelector.getInputCurveType().ordinal());
+		dataLog.addInputChannel("Shift Mode",        () -> driveSelector.getShiftMode().ordinal());
+		dataLog.addInputChannel("Single Stick Side", () -> driveSelector.getSingleStickSide().ordinal());
+		dataLog.addInputChannel("Auto Start",        () -> AutoSelector.getRobotStartPositionIndex());
+		dataLog.addInputChannel("Auto Pattern",      () -> AutoSelector.getPatternIndex());
+
+		// Drive encoders
+		dataLog.addInputChannel("L Enc Dist",     () -> driveSubsystem.getEncoderDistance(TSide.LEFT));
+		dataLog.addInputChannel("R Enc Dist",     () -> driveSubsystem.getEncoderDistance(TSide.RIGHT));
+		dataLog.addInputChannel("L Enc Speed",    () -> driveSubsystem.getEncoderSpeed(TSide.LEFT));
+		dataLog.addInputChannel("R Enc Speed",    () -> driveSubsystem.getEncoderSpeed(TSide.RIGHT));
+
+		// Gyro
+		dataLog.addInputChannel("Gyro Angle",     () -> driveSubsystem.getGyroAngle());
+		dataLog.addInputChannel("Gyro Rate",      () -> driveSubsystem.getGyroRate());
+		dataLog.addInputChannel("Gyro Accel",     () -> driveSubsystem.getGyroAcceleration());
+		dataLog.addChannel     ("Gyro Error",     () -> driveSubsystem.getGyroHeadingError());
+
+		// Brownout output limit
+		dataLog.addInputChannel("Drive Output Scale", () -> powerSubsystem.getDriveOutputScale());
+
+		// Saved preferences (NaN if not saved)
+		for (String key : PREFERENCE_KEYS) {
+			dataLog.addChannel(key, () -> Preferences.containsKey(key) ? Preferences.getDouble(key, 0) : Double.NaN);
+		}
+
+		// PIDs and motor outputs
+		dataLog.addChannel("L Pid Output",   () -> driveSubsystem.getSpeedPidOutput(TSide.LEFT));
+		dataLog.addChannel("R Pid Output",   () -> driveSubsystem.getSpeedPidOutput(TSide.RIGHT));
+		dataLog.addChannel("Left Output",    () -> driveSubsystem.getMotorOutput(TSide.LEFT));
+		dataLog.addChannel("Right Output",   () -> driveSubsystem.getMotorOutput(TSide.RIGHT));
 	}
 
 	/**
@@ -125,8 +245,138 @@ public class RobotContainer {
 	 * @return the command to run in autonomous
 	 */
 	public Command getAutonomousCommand() {
-		// no auto
-		return new AutonomousCommand(driveSubsystem);
+		// The command is built while disabled
+		return autoTrajectoryCache.getAutonomousCommand();
+	}
+
+	/**
+	 * Prepare the autonomous command while the robot is disabled.
+	 * <p>
+	 * This routine should be called in each disabled loop.
+	 */
+	public void disabledPeriodic() {
+		autoTrajectoryCache.disabledPeriodic();
+	}
+
+	/**
+	 * Replace the drive sensors with log backed sensors and add the recorded
+	 * inputs and outputs to the log replay.
+	 * <p>
+	 * The channels match the channels recorded in {@link #configureDataLog()}.
+	 *
+	 * @param replay
+	 *            {@link TLogReplay}
+	 */
+	void configureReplay(TLogReplay replay) {
+
+		TReplayEncoder leftEncoder  = new TReplayEncoder();
+		TReplayEncoder rightEncoder = new TReplayEncoder();
+		TReplayGyro    gyro         = new TReplayGyro();
+
+		driveSubsystem.setEncoders(leftEncoder, rightEncoder, driveSubsystem.getEncoderCountsPerInch());
+		driveSubsystem.setGyro(gyro);
+
+		replay.addRobotStateInputs();
+		replay.addJoystickInputs(0, "Driver", DRIVER_AXIS_COUNT);
+
+		replay.addInput("L Enc Dist",  value -> leftEncoder.setDistance((int) value));
+		replay.addInput("R Enc Dist",  value -> rightEncoder.setDistance((int) value));
+		replay.addInput("L Enc Speed", value -> leftEncoder.setRate(value));
+		replay.addInput("R Enc Speed", value -> rightEncoder.setRate(value));
+		replay.addInput("Gyro Angle",  value -> gyro.setAngle(value));
+		replay.addInput("Gyro Rate",   value -> gyro.setRate(value));
+		replay.addInput("Gyro Accel",  value -> gyro.setAcceleration(value));
+
+		powerSubsystem.stopPowerSampler();
+
+		replay.addInput("Drive Output Scale", value -> powerSubsystem.setReplayDriveOutputScale(value));
+
+		DriveSelector driveSelector = oi.getDriveSelector();
+
+		replay.addInput("Drive Type",        value -> driveSelector.setReplayDriveControlType(DriveControlType.values()[(int) value]));
+		replay.addInput("Input Curve",       value -> driveSelector.setReplayInputCurveType(TCurveType.values()[(int) value]));
+		replay.addInput("Shift Mode",        value -> driveSelector.setReplayShiftMode(ShiftMode.values()[(int) value]));
+		replay.addInput("Single Stick Side", value -> driveSelector.setReplaySingleStickSide(TStick.values()[(int) value]));
+		replay.addInput("Auto Start",        value -> AutoSelector.setReplayRobotStartPosition((int) value));
+		replay.addInput("Auto Pattern",      value -> AutoSelector.setReplayPattern((int) value));
+
+		replay.addOutput("Left Output",  () -> driveSubsystem.getMotorOutput(TSide.LEFT),  REPLAY_OUTPUT_TOLERANCE);
+		replay.addOutput("Right Output", () -> driveSubsystem.getMotorOutput(TSide.RIGHT), REPLAY_OUTPUT_TOLERANCE);
+	}
+
+	/**
+	 * Set the saved preferences to the values recorded in a data log.
+	 * <p>
+	 * The preferences are loaded when the robot is constructed, so this routine
+	 * must be called before the robot is constructed.
+	 *
+	 * @param log
+	 *            {@link TDataLogReader} containing the recorded data
+	 */
+	static void configureReplayPreferences(TDataLogReader log) {
+
+		if (log.getDataRecordCount() == 0) {
+			return;
+		}
+
+		for (String key : PREFERENCE_KEYS) {
+
+			int channel = log.getChannelIndex(key);
+
+			if (channel < 0) {
+				System.out.println("Replay preference " + key + " is not in the log");
+				continue;
+			}
+
+			double value = log.getValue(0, channel);
+
+			if (Double.isNaN(value)) {
+				Preferences.remove(key);
+			}
+			else {
+				Preferences.setDouble(key, value);
+			}
+		}
+	}
+
+	/**
+	 * Latch the inputs used by this loop.
+	 * <p>
+	 * The loop time, the drive sensors and the drive output scale are read once,
+	 * and the data log input channels are sampled so that the log records the
+	 * values used by the loop.
+	 * <p>
+	 * This routine should be called once at the start of each loop before the
+	 * command scheduler runs.
+	 */
+	public void latchInputs() {
+
+		TLoopClock.latch();
+
+		driveSubsystem.latchSensors();
+		powerSubsystem.latchDriveOutputScale();
+
+		dataLog.sampleInputs();
+	}
+
+	/**
+	 * Start recording the data log
+	 * <p>
+	 * The data log is not started when a log is replayed, so that the replay
+	 * does not write a new log file.
+	 */
+	public void startDataLog() {
+		dataLog.start();
+	}
+
+	/**
+	 * Record the data log values for this loop.
+	 * <p>
+	 * This routine should be called once per loop after the command scheduler
+	 * runs.
+	 */
+	public void dataLogPeriodic() {
+		dataLog.record();
 	}
 
 	public void autonomousInit() {
@@ -0,0 +1,73 @@
+package frc.robot;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.torontocodingcollective.log.TDataLogReader;
+import com.torontocodingcollective.log.TLogReplay;
+
+import edu.wpi.first.hal.HAL;
+
+/**
+ * Robot log replay
+ * <p>
+ * Replays a data log recorded on the robot through the robot code in the
+ * simulator, and compares the drive motor outputs to the recorded outputs.
+ * <p>
+ * The replay is run by setting the {@link #REPLAY_LOG_ENV} environment variable
+ * to the log file when running the simulator: <br>
+ * {@code REPLAY_LOG=logs/log_20220301_120000.tlog ./gradlew simulateJava}
+ * <p>
+ * The robot loop runs as fast as possible using the recorded loop times, and
+ * the simulator exits with a non-zero status if the replayed outputs do not
+ * match the recorded outputs.
+ */
+public class RobotReplay extends Robot {
+
+	/** Environment variable containing the log file to replay */
+	public static final String REPLAY_LOG_ENV = "REPLAY_LOG";
+
+	@Override
+	protected boolean isReplay() {
+		return true;
+	}
+
+	/**
+	 * Replay a data log
+	 *
+	 * @param logFileName
+	 *            the log file written by the robot data log
+	 * @return 0 if the replayed outputs match the log, 1 otherwise
+	 */
+	public static int replay(String logFileName) {
+
+		TDataLogReader log;
+
+		try {
+			log = new TDataLogReader(new File(logFileName));
+		} catch (IOException e) {
+			System.out.println("Cannot read replay log " + logFileName + ": " + e.getMessage());
+			return 1;
+		}
+
+		if (!HAL.initialize(500, 0)) {
+			System.out.println("Failed to initialize the HAL");
+			return 1;
+		}
+
+		// The saved preferences are loaded when the robot is constructed
+		RobotContainer.configureReplayPreferences(log);
+
+		RobotReplay robot = new RobotReplay();
+
+		robot.robotInit();
+
+		TLogReplay replay = new TLogReplay(log);
+
+		robot.getRobotContainer().configureReplay(replay);
+
+		boolean matched = replay.run(robot::loopFunc);
+
+		return matched ? 0 : 1;
+	}
+}
@@ -0,0 +1,168 @@
+package frc.robot.commands;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.torontocodingcollective.TTrajectory;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.oi.AutoSelector;
+import frc.robot.subsystems.DriveSubsystem;
+
+/**
+ * AutoTrajectoryCache
+ * <p>
+ * The trajectories are compiled from the path files when the robot code is
+ * built and deployed as trajectory files in the {@link #TRAJECTORY_DIRECTORY}.
+ * The trajectories for every robot start position and pattern in the
+ * {@link AutoSelector} are loaded (memory mapped) on a background thread while
+ * the robot is disabled.
+ * <p>
+ * The {@link AutonomousCommand} for the selected start position and pattern is
+ * built from the cached trajectories in each disabled loop
+ * {@link #disabledPeriodic()} when a chooser changes, so that
+ * {@link #getAutonomousCommand()} returns immediately when autonomous starts.
+ */
+public class AutoTrajectoryCache {
+
+	/** Directory of the trajectory files compiled from {@code src/main/paths} */
+	public static final File               TRAJECTORY_DIRECTORY = new File(Filesystem.getDeployDirectory(), "paths");
+
+	private final DriveSubsystem           driveSubsystem;
+
+	// Trajectories by start position and pattern
+	private final Map<String, TTrajectory> trajectories         = new ConcurrentHashMap<>();
+
+	private Thread                         loaderThread         = null;
+
+	// Command built for the selected start position and pattern
+	private Command                        autonomousCommand    = null;
+	private String                         commandStartPosition = null;
+	private String                         commandPattern       = null;
+
+	public AutoTrajectoryCache(DriveSubsystem driveSubsystem) {
+		this.driveSubsystem = driveSubsystem;
+	}
+
+	/**
+	 * Start loading the trajectories and build the autonomous command when the
+	 * chooser selections change.
+	 * <p>
+	 * This routine should be called in each disabled loop.
+	 */
+	public void disabledPeriodic() {
+
+		if (loaderThread == null) {
+
+			loaderThread = new Thread(this::loadTrajectories, "AutoTrajectoryCache");
+
+			// Do not delay the robot loop or the shutdown of the robot code
+			loaderThread.setDaemon(true);
+			loaderThread.setPriority(Thread.MIN_PRIORITY);
+			loaderThread.start();
+		}
+
+		// Wait for the trajectories before building the command
+		if (loaderThread.isAlive()) {
+			return;
+		}
+
+		if (isSelectionChanged()) {
+			buildAutonomousCommand();
+		}
+	}
+
+	/**
+	 * Get the autonomous command for the selected start position and pattern
+	 * <p>
+	 * The command is built if the selection changed since the last disabled loop.
+	 *
+	 * @return the autonomous command
+	 */
+	public Command getAutonomousCommand() {
+
+		if (isSelectionChanged()) {
+			buildAutonomousCommand();
+		}
+
+		return autonomousCommand;
+	}
+
+	/**
+	 * Get the trajectory for a start position and pattern
+	 * <p>
+	 * If the trajectory has not been loaded yet, then it is loaded now.
+	 *
+	 * @param robotStartPosition
+	 * @param pattern
+	 * @return the trajectory, or {@code null} if the pattern does not follow a
+	 *         path or the trajectory file could not be loaded
+	 */
+	public TTrajectory getTrajectory(String robotStartPosition, String pattern) {
+
+		TTrajectory trajectory = trajectories.get(getKey(robotStartPosition, pattern));
+
+		if (trajectory == null) {
+
+			String pathName = AutonomousCommand.getPathName(robotStartPosition, pattern);
+
+			if (pathName == null) {
+				return null;
+			}
+
+			File trajectoryFile = new File(TRAJECTORY_DIRECTORY, pathName + TTrajectory.FILE_EXTENSION);
+
+			try {
+				trajectory = TTrajectory.load(trajectoryFile);
+			} catch (IOException e) {
+				System.out.println("Trajectory " + trajectoryFile + " not loaded: " + e.getMessage());
+				return null;
+			}
+
+			trajectories.put(getKey(robotStartPosition, pattern), trajectory);
+		}
+
+		return trajectory;
+	}
+
+	private void buildAutonomousCommand() {
+
+		commandStartPosition = AutoSelector.getRobotStartPosition();
+		commandPattern       = AutoSelector.getPattern();
+
+		autonomousCommand = new AutonomousCommand(commandStartPosition, commandPattern, this, driveSubsystem);
+	}
+
+	/**
+	 * Load the trajectories for all of the start positions and patterns
+	 * <p>
+	 * This routine runs on the generator thread.
+	 */
+	private void loadTrajectories() {
+
+		long startTime = System.nanoTime();
+
+		for (String robotStartPosition : AutoSelector.ROBOT_START_POSITIONS) {
+			for (String pattern : AutoSelector.PATTERNS) {
+				getTrajectory(robotStartPosition, pattern);
+			}
+		}
+
+		System.out.println("Auto trajectories (" + trajectories.size() + ") loaded in "
+				+ (System.nanoTime() - startTime) / 1000 + "us");
+	}
+
+	private static String getKey(String robotStartPosition, String pattern) {
+		return robotStartPosition + '/' + pattern;
+	}
+
+	private boolean isSelectionChanged() {
+
+		return autonomousCommand == null
+				|| !AutoSelector.getRobotStartPosition().equals(commandStartPosition)
+				|| !AutoSelector.getPattern().equals(commandPattern);
+	}
+}
@@ -1,9 +1,15 @@
 package frc.robot.commands;
 
 import com.torontocodingcollective.TConst;
+import com.torontocodingcollective.commands.drive.TDriveCharacterizationCommand;
 import com.torontocodingcollective.commands.drive.TDriveTimeCommand;
+import com.torontocodingcollective.commands.drive.TSpeedPidAutoTuneCommand;
 import com.torontocodingcollective.commands.gyroDrive.TDriveOnHeadingDistanceCommand;
+import com.torontocodingcollective.commands.gyroDrive.TDriveOnHeadingProfiledDistanceCommand;
+import com.torontocodingcollective.commands.gyroDrive.TDriveTrajectoryCommand;
+import com.torontocodingcollective.commands.gyroDrive.TGyroPidAutoTuneCommand;
 import com.torontocodingcollective.commands.gyroDrive.TRotateToHeadingCommand;
+import com.torontocodingcollective.subsystem.TGyroDriveSubsystem.TRotationControl;
 
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import frc.robot.oi.AutoSelector;
@@ -23,12 +29,20 @@ public class AutonomousCommand extends SequentialCommandGroup {
 
 	/**
 	 * Example Autonomous Selector and Command
+	 * <p>
+	 * The trajectories of the path patterns are taken from the trajectory
+	 * cache.
+	 *
+	 * @param robotStartPosition
+	 *            {@link AutoSelector#getRobotStartPosition()}
+	 * @param pattern
+	 *            {@link AutoSelector#getPattern()}
+	 * @param trajectoryCache
+	 *            {@link AutoTrajectoryCache}
+	 * @param driveSubsystem
 	 */
-	public AutonomousCommand(DriveSubsystem driveSubsystem) {
-
-		// getting info
-		String robotStartPosition = AutoSelector.getRobotStartPosition();
-		String pattern            = AutoSelector.getPattern();
+	public AutonomousCommand(String robotStartPosition, String pattern,
+			AutoTrajectoryCache trajectoryCache, DriveSubsystem driveSubsystem) {
 
 		// Print out the user selection and Game config for debug later
 		System.out.println("Auto Command Configuration");
@@ -63,38 +77,126 @@ public class AutonomousCommand extends SequentialCommandGroup {
 		if (pattern.equals(AutoSelector.PATTERN_BOX)) {
 
 			addCommands(
-					// Go forward 2ft
-					// 24 in, 0 deg, .5 speed, 5 sec, Brake
-					new TDriveOnHeadingDistanceCommand(24, 0, .5, 5, TConst.COAST_WHEN_FINISHED,
+					// Go forward 2ft and then along the first 3ft side of the box.
+					// The profiled commands decelerate into the target distance
+					// so the robot does not overshoot the corners.
+					// 60 in, 0 deg, .8 max speed, 2.0 accel, 5 sec, Brake
+					new TDriveOnHeadingProfiledDistanceCommand(60, 0, .8, 2.0, 5, TConst.BRAKE_WHEN_FINISHED,
 							driveSubsystem),
 
-
 					// Make a 4 sided box movement
 
-					new TDriveOnHeadingDistanceCommand(36, 0, .5, 5, TConst.BRAKE_WHEN_FINISHED,
-							driveSubsystem),
-
 					new TRotateToHeadingCommand(90,
 							driveSubsystem),
 
-					new TDriveOnHeadingDistanceCommand(36, 90, .5, 5, TConst.BRAKE_WHEN_FINISHED,
+					new TDriveOnHeadingProfiledDistanceCommand(36, 90, .8, 2.0, 5, TConst.BRAKE_WHEN_FINISHED,
 							driveSubsystem),
 
 					new TRotateToHeadingCommand(180,
 							driveSubsystem),
 
-					new TDriveOnHeadingDistanceCommand(36, 180, .5, 5, TConst.BRAKE_WHEN_FINISHED,
+					new TDriveOnHeadingProfiledDistanceCommand(36, 180, .8, 2.0, 5, TConst.BRAKE_WHEN_FINISHED,
 							driveSubsystem),
 
 					new TRotateToHeadingCommand(270,
 							driveSubsystem),
 
-					new TDriveOnHeadingDistanceCommand(36, 270, .5, 5, TConst.BRAKE_WHEN_FINISHED,
+					new TDriveOnHeadingProfiledDistanceCommand(36, 270, .8, 2.0, 5, TConst.BRAKE_WHEN_FINISHED,
 							driveSubsystem),
 
 					new TRotateToHeadingCommand(0,
 							driveSubsystem)
 					);
 		}
+
+		/* ***********************************************************
+		 *  Measure the speed PID feed forward gains in the current gear
+		 *  ***********************************************************/
+		if (pattern.equals(AutoSelector.PATTERN_CHARACTERIZE_DRIVE)) {
+			// Ramp at .05/sec for 6 sec, then step to .5 for 2 sec
+			addCommands(
+					new TDriveCharacterizationCommand(.05, 6, .5, 2,
+							driveSubsystem));
+		}
+
+		/* ***********************************************************
+		 *  Auto tune the gyro PID by pivoting around the start heading
+		 *  ***********************************************************/
+		if (pattern.equals(AutoSelector.PATTERN_TUNE_GYRO_PID)) {
+			// Relay output .3, 4 cycles, 10 sec timeout
+			addCommands(
+					new TGyroPidAutoTuneCommand(.3, 4, 10,
+							driveSubsystem));
+		}
+
+		/* ***********************************************************
+		 *  Auto tune the left and right speed PIDs in the current gear
+		 *  ***********************************************************/
+		if (pattern.equals(AutoSelector.PATTERN_TUNE_SPEED_PIDS)) {
+			// Speed .5, relay output .1, 4 cycles, 5 sec timeout
+			addCommands(
+					new TSpeedPidAutoTuneCommand(.5, .1, 4, 5,
+							driveSubsystem));
+		}
+
+		/* ***********************************************************
+		 *  Compare the settle times of the rotation controllers.
+		 *  Each rotate command logs the time to settle on the heading.
+		 *  There is no drive or gyro model in the simulator, so the
+		 *  settle times are only measured on the robot.
+		 *  ***********************************************************/
+		if (pattern.equals(AutoSelector.PATTERN_ROTATION_BENCHMARK)) {
+			addCommands(
+					new TRotateToHeadingCommand(90, -1, TRotationControl.HEADING_PID, 5,
+							driveSubsystem),
+					new TRotateToHeadingCommand(0, -1, TRotationControl.HEADING_PID, 5,
+							driveSubsystem),
+					new TRotateToHeadingCommand(90, -1, TRotationControl.CASCADED_RATE, 5,
+							driveSubsystem),
+					new TRotateToHeadingCommand(0, -1, TRotationControl.CASCADED_RATE, 5,
+							driveSubsystem));
+		}
+
+		/* ***********************************************************
+		 *  Follow a path to the center of the field in front of
+		 *  the robot start position
+		 *  ***********************************************************/
+		if (pattern.equals(AutoSelector.PATTERN_PATH_TO_CENTER)) {
+			addCommands(
+					new TDriveTrajectoryCommand(
+							trajectoryCache.getTrajectory(robotStartPosition, pattern), 8,
+							TConst.BRAKE_WHEN_FINISHED,
+							driveSubsystem));
+		}
+	}
+
+	/**
+	 * Get the name of the path for a robot start position and pattern
+	 * <p>
+	 * The path is defined in {@code src/main/paths} and compiled to a trajectory
+	 * file in the deploy directory when the robot code is built. Use the
+	 * {@link AutoTrajectoryCache} to get the trajectory when building the command.
+	 *
+	 * @param robotStartPosition
+	 * @param pattern
+	 * @return the path name, or {@code null} if the pattern does not follow a
+	 *         path
+	 */
+	public static String getPathName(String robotStartPosition, String pattern) {
+
+		if (pattern.equals(AutoSelector.PATTERN_PATH_TO_CENTER)) {
+
+			if (robotStartPosition.equals(AutoSelector.ROBOT_LEFT)) {
+				return "PathToCenterLeft";
+			}
+
+			if (robotStartPosition.equals(AutoSelector.ROBOT_RIGHT)) {
+				return "PathToCenterRight";
+			}
+
+			return "PathToCenterCenter";
+		}
+
+		return null;
 	}
 }
@@ -2,12 +2,15 @@ package frc.robot.commands.drive;
 
 import com.torontocodingcollective.TDifferentialDrive;
 import com.torontocodingcollective.TSpeeds;
+import com.torontocodingcollective.TUtil;
 import com.torontocodingcollective.commands.TDefaultDriveCommand;
 import com.torontocodingcollective.oi.TStick;
 import com.torontocodingcollective.oi.TStickPosition;
 
+import frc.robot.oi.DriveControlType;
 import frc.robot.oi.OI;
 import frc.robot.subsystems.DriveSubsystem;
+import frc.robot.subsystems.DriveSubsystem.ShiftMode;
 
 /**
  * Default drive command for a drive base
@@ -17,11 +20,23 @@ public class DefaultDriveCommand extends TDefaultDriveCommand {
 	private static final String COMMAND_NAME =
 			DefaultDriveCommand.class.getSimpleName();
 
+	// Stick deflection required to set the field relative heading.
+	// The stick direction is not stable near the center of the stick.
+	private static final double FIELD_RELATIVE_DEADBAND = 0.2;
+
 	private final OI                oi;
 	private final DriveSubsystem    driveSubsystem;
 
 	TDifferentialDrive differentialDrive = new TDifferentialDrive();
 
+	// Reused each loop so that driving does not allocate any objects
+	private final TStickPosition    leftStickPosition   = new TStickPosition();
+	private final TStickPosition    rightStickPosition  = new TStickPosition();
+	private final TSpeeds           motorSpeeds         = new TSpeeds();
+
+	// The gyro PID is used to hold the heading in field relative drive
+	private boolean                 fieldRelativeActive = false;
+
 	public DefaultDriveCommand(OI oi, DriveSubsystem driveSubsystem) {
 
 		// The drive logic will be handled by the TDefaultDriveCommand
@@ -54,6 +69,11 @@ public class DefaultDriveCommand extends TDefaultDriveCommand {
 		}
 
 		super.initialize();
+
+		differentialDrive.resetCurvatureDrive();
+
+		// Any gyro PID heading was set by the previous command
+		fieldRelativeActive = false;
 	}
 
 	// Called repeatedly when this Command is scheduled to run
@@ -63,45 +83,109 @@ public class DefaultDriveCommand extends TDefaultDriveCommand {
 		// Check the driver controller buttons
 		super.execute();
 
-		// Enable turbo mode
-		if (oi.getTurboOn()) {
-			driveSubsystem.enableTurbo();
-		} else {
-			driveSubsystem.disableTurbo();
+		// Enable turbo mode when shifting manually. The
+		// drive subsystem selects the gear in automatic mode.
+		ShiftMode shiftMode = oi.getSelectedShiftMode();
+
+		driveSubsystem.setShiftMode(shiftMode);
+
+		if (shiftMode == ShiftMode.MANUAL) {
+			if (oi.getTurboOn()) {
+				driveSubsystem.enableTurbo();
+			} else {
+				driveSubsystem.disableTurbo();
+			}
 		}
 
+		// Shape the inputs using the curve selected in the
+		// operator input.
+		differentialDrive.setInputCurve(oi.getSelectedInputCurve());
+
 		// Drive according to the type of drive selected in the
 		// operator input.
-		TStickPosition leftStickPosition = oi.getDriveStickPosition(TStick.LEFT);
-		TStickPosition rightStickPosition = oi.getDriveStickPosition(TStick.RIGHT);
+		TStickPosition leftStickPosition = oi.getDriveStickPosition(TStick.LEFT, this.leftStickPosition);
+		TStickPosition rightStickPosition = oi.getDriveStickPosition(TStick.RIGHT, this.rightStickPosition);
 
 		TStick singleStickSide = oi.getSelectedSingleStickSide();
 
-		TSpeeds motorSpeeds;
+		DriveControlType driveControlType = oi.getSelectedDriveType();
+
+		// Release the gyro PID when leaving field relative drive
+		if (fieldRelativeActive && driveControlType != DriveControlType.FIELD_RELATIVE) {
+			driveSubsystem.disableGyroPid();
+			fieldRelativeActive = false;
+		}
 
-		switch (oi.getSelectedDriveType()) {
+		switch (driveControlType) {
+
+		case FIELD_RELATIVE:
+			if (singleStickSide == TStick.LEFT) {
+				driveFieldRelative(leftStickPosition);
+			} else {
+				driveFieldRelative(rightStickPosition);
+			}
+			// The speeds are set by the gyro PID
+			return;
 
 		case SINGLE_STICK:
 			TStickPosition singleStickPosition = rightStickPosition;
 			if (singleStickSide == TStick.LEFT) {
 				singleStickPosition = leftStickPosition;
 			}
-			motorSpeeds = differentialDrive.arcadeDrive(singleStickPosition);
+			differentialDrive.arcadeDrive(singleStickPosition, motorSpeeds);
 			break;
 
 		case TANK:
-			motorSpeeds = differentialDrive.tankDrive(leftStickPosition, rightStickPosition);
+			differentialDrive.tankDrive(leftStickPosition, rightStickPosition, motorSpeeds);
+			break;
+
+		case CURVATURE:
+			differentialDrive.curvatureDrive(leftStickPosition, rightStickPosition, oi.getQuickTurn(), motorSpeeds);
 			break;
 
 		case ARCADE:
 		default:
-			motorSpeeds = differentialDrive.arcadeDrive(leftStickPosition, rightStickPosition);
+			differentialDrive.arcadeDrive(leftStickPosition, rightStickPosition, motorSpeeds);
 			break;
 		}
 
 		driveSubsystem.setSpeed(motorSpeeds);
 	}
 
+	/**
+	 * Drive in the direction of the stick on the field.
+	 * <p>
+	 * The stick direction is the field heading (away from the driver station is 0
+	 * degrees, matching the gyro zero) and the stick deflection is the speed. The
+	 * gyro PID turns the robot towards the heading while driving.
+	 */
+	private void driveFieldRelative(TStickPosition stickPosition) {
+
+		// By convention the y axis of a joystick is inverted
+		double x = stickPosition.x;
+		double y = -stickPosition.y;
+
+		double speed = Math.min(1.0, Math.sqrt(x * x + y * y));
+
+		if (speed <= FIELD_RELATIVE_DEADBAND) {
+
+			if (fieldRelativeActive) {
+				driveSubsystem.disableGyroPid();
+				fieldRelativeActive = false;
+			}
+
+			driveSubsystem.setSpeed(0, 0);
+			return;
+		}
+
+		// Clockwise heading from the forward (y) axis
+		double heading = TUtil.wrapAngle(Math.toDegrees(Math.atan2(x, y)));
+
+		driveSubsystem.driveOnHeading(speed, heading);
+
+		fieldRelativeActive = true;
+	}
+
 	@Override
 	public boolean isFinished() {
 		// The default command does not end
@@ -11,11 +11,34 @@ public class AutoSelector {
 	public static final String            ROBOT_CENTER = "Robot Center";
 	public static final String            ROBOT_RIGHT  = "Robot Right";
 
+	/** All of the robot start positions */
+	public static final String[]          ROBOT_START_POSITIONS = { ROBOT_LEFT, ROBOT_CENTER, ROBOT_RIGHT };
+
 	public static SendableChooser<String> pattern;
 
 	public static final String            PATTERN_STRAIGHT_WITH_PID  = "Straight with PID";
 	public static final String            PATTERN_STRAIGHT_NO_PID    = "Straight No PID";
 	public static final String            PATTERN_BOX                = "Box";
+	public static final String            PATTERN_CHARACTERIZE_DRIVE = "Drive Characterization";
+	public static final String            PATTERN_TUNE_GYRO_PID      = "Tune Gyro PID";
+	public static final String            PATTERN_TUNE_SPEED_PIDS    = "Tune Speed PIDs";
+	public static final String            PATTERN_ROTATION_BENCHMARK = "Rotation Benchmark";
+	public static final String            PATTERN_PATH_TO_CENTER     = "Path to Center";
+
+	/** All of the patterns */
+	public static final String[]          PATTERNS = {
+			PATTERN_STRAIGHT_NO_PID,
+			PATTERN_STRAIGHT_WITH_PID,
+			PATTERN_BOX,
+			PATTERN_CHARACTERIZE_DRIVE,
+			PATTERN_TUNE_GYRO_PID,
+			PATTERN_TUNE_SPEED_PIDS,
+			PATTERN_ROTATION_BENCHMARK,
+			PATTERN_PATH_TO_CENTER };
+
+	// Selections set by the log replay instead of the choosers
+	private static String                 replayRobotStartPosition = null;
+	private static String                 replayPattern            = null;
 
 	static {
 
@@ -32,6 +55,11 @@ public class AutoSelector {
 		pattern.setDefaultOption(PATTERN_STRAIGHT_NO_PID, PATTERN_STRAIGHT_NO_PID);
 		pattern.addOption(PATTERN_STRAIGHT_WITH_PID, PATTERN_STRAIGHT_WITH_PID);
 		pattern.addOption(PATTERN_BOX, PATTERN_BOX);
+		pattern.addOption(PATTERN_CHARACTERIZE_DRIVE, PATTERN_CHARACTERIZE_DRIVE);
+		pattern.addOption(PATTERN_TUNE_GYRO_PID, PATTERN_TUNE_GYRO_PID);
+		pattern.addOption(PATTERN_TUNE_SPEED_PIDS, PATTERN_TUNE_SPEED_PIDS);
+		pattern.addOption(PATTERN_ROTATION_BENCHMARK, PATTERN_ROTATION_BENCHMARK);
+		pattern.addOption(PATTERN_PATH_TO_CENTER, PATTERN_PATH_TO_CENTER);
 
 		SmartDashboard.putData("Auto Pattern", pattern);
 	}
@@ -43,6 +71,10 @@ public class AutoSelector {
 	 */
 	public static String getPattern() {
 
+		if (replayPattern != null) {
+			return replayPattern;
+		}
+
 		String selectedPattern = pattern.getSelected();
 
 		if (selectedPattern == null) {
@@ -59,6 +91,10 @@ public class AutoSelector {
 	 */
 	public static String getRobotStartPosition() {
 
+		if (replayRobotStartPosition != null) {
+			return replayRobotStartPosition;
+		}
+
 		String selectedStartPosition = robotStartPosition.getSelected();
 
 		if (selectedStartPosition == null) {
@@ -68,5 +104,63 @@ public class AutoSelector {
 		return selectedStartPosition;
 	}
 
+	/**
+	 * Get the index of the auto pattern in the {@link #PATTERNS}
+	 * <p>
+	 * Used to record the selection in the data log.
+	 *
+	 * @return pattern index
+	 */
+	public static int getPatternIndex() {
+		return indexOf(PATTERNS, getPattern());
+	}
+
+	/**
+	 * Get the index of the robot starting position in the
+	 * {@link #ROBOT_START_POSITIONS}
+	 * <p>
+	 * Used to record the selection in the data log.
+	 *
+	 * @return start position index
+	 */
+	public static int getRobotStartPositionIndex() {
+		return indexOf(ROBOT_START_POSITIONS, getRobotStartPosition());
+	}
+
 	public static void init() {}
+
+	/**
+	 * Set the auto pattern recorded in a data log
+	 * <p>
+	 * The recorded selection is returned instead of the chooser selection.
+	 *
+	 * @param patternIndex
+	 *            index of the pattern in the {@link #PATTERNS}
+	 */
+	public static void setReplayPattern(int patternIndex) {
+		replayPattern = PATTERNS[patternIndex];
+	}
+
+	/**
+	 * Set the robot starting position recorded in a data log
+	 * <p>
+	 * The recorded selection is returned instead of the chooser selection.
+	 *
+	 * @param robotStartPositionIndex
+	 *            index of the start position in the {@link #ROBOT_START_POSITIONS}
+	 */
+	public static void setReplayRobotStartPosition(int robotStartPositionIndex) {
+		replayRobotStartPosition = ROBOT_START_POSITIONS[robotStartPositionIndex];
+	}
+
+	private static int indexOf(String[] options, String option) {
+
+		for (int i = 0; i < options.length; i++) {
+			if (options[i].equals(option)) {
+				return i;
+			}
+		}
+
+		return 0;
+	}
 }
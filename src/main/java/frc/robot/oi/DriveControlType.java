@@ -2,5 +2,5 @@ package frc.robot.oi;
 
 public enum DriveControlType {
 
-    ARCADE, TANK, SINGLE_STICK
+    ARCADE, TANK, SINGLE_STICK, CURVATURE, FIELD_RELATIVE
 }
@@ -1,28 +1,52 @@
 package frc.robot.oi;
 
+import com.torontocodingcollective.TInputCurve.TCurveType;
 import com.torontocodingcollective.oi.TStick;
+import com.torontocodingcollective.telemetry.TTelemetry;
+import com.torontocodingcollective.telemetry.TTelemetry.TTier;
 
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.subsystems.DriveSubsystem.ShiftMode;
 
 public class DriveSelector {
 
     public SendableChooser<String> driveControlType;
     public SendableChooser<String> singleStickSide;
+    public SendableChooser<String> inputCurve;
+    public SendableChooser<String> shiftMode;
+
+    // Selections set by the log replay instead of the choosers
+    private DriveControlType       replayDriveControlType          = null;
+    private TCurveType             replayInputCurveType            = null;
+    private ShiftMode              replayShiftMode                 = null;
+    private TStick                 replaySingleStickSide           = null;
 
     public static final String     DRIVE_CONTROL_TYPE_ARCADE       = "Arcade";
     public static final String     DRIVE_CONTROL_TYPE_TANK         = "Tank";
     public static final String     DRIVE_CONTROL_TYPE_SINGLE_STICK = "Single Stick";
+    public static final String     DRIVE_CONTROL_TYPE_CURVATURE    = "Curvature";
+    public static final String     DRIVE_CONTROL_TYPE_FIELD        = "Field Relative";
 
     public static final String     SINGLE_STICK_LEFT               = "Left";
     public static final String     SINGLE_STICK_RIGHT              = "Right";
 
+    public static final String     INPUT_CURVE_PIECEWISE           = "Piecewise";
+    public static final String     INPUT_CURVE_LINEAR              = "Linear";
+    public static final String     INPUT_CURVE_CUBIC               = "Cubic";
+    public static final String     INPUT_CURVE_EXPO                = "Expo";
+
+    public static final String     SHIFT_MODE_MANUAL               = "Manual";
+    public static final String     SHIFT_MODE_AUTOMATIC            = "Automatic";
+
     {
         // Drive Type
         driveControlType = new SendableChooser<>();
         driveControlType.setDefaultOption(DRIVE_CONTROL_TYPE_ARCADE, DRIVE_CONTROL_TYPE_ARCADE);
         driveControlType.addOption(DRIVE_CONTROL_TYPE_TANK, DRIVE_CONTROL_TYPE_TANK);
         driveControlType.addOption(DRIVE_CONTROL_TYPE_SINGLE_STICK, DRIVE_CONTROL_TYPE_SINGLE_STICK);
+        driveControlType.addOption(DRIVE_CONTROL_TYPE_CURVATURE, DRIVE_CONTROL_TYPE_CURVATURE);
+        driveControlType.addOption(DRIVE_CONTROL_TYPE_FIELD, DRIVE_CONTROL_TYPE_FIELD);
 
         SmartDashboard.putData("Drive Type", driveControlType);
 
@@ -32,6 +56,26 @@ public class DriveSelector {
         singleStickSide.addOption(SINGLE_STICK_LEFT, SINGLE_STICK_LEFT);
 
         SmartDashboard.putData("Single Stick Side", singleStickSide);
+
+        // Input Curve
+        inputCurve = new SendableChooser<>();
+        inputCurve.setDefaultOption(INPUT_CURVE_PIECEWISE, INPUT_CURVE_PIECEWISE);
+        inputCurve.addOption(INPUT_CURVE_LINEAR, INPUT_CURVE_LINEAR);
+        inputCurve.addOption(INPUT_CURVE_CUBIC, INPUT_CURVE_CUBIC);
+        inputCurve.addOption(INPUT_CURVE_EXPO, INPUT_CURVE_EXPO);
+
+        SmartDashboard.putData("Input Curve", inputCurve);
+
+        // Shift Mode
+        shiftMode = new SendableChooser<>();
+        shiftMode.setDefaultOption(SHIFT_MODE_MANUAL, SHIFT_MODE_MANUAL);
+        shiftMode.addOption(SHIFT_MODE_AUTOMATIC, SHIFT_MODE_AUTOMATIC);
+
+        SmartDashboard.putData("Shift Mode", shiftMode);
+
+        TTelemetry.addString("Drive Control",     () -> String.valueOf(getDriveControlType()), TTier.SLOW);
+        TTelemetry.addString("Single Stick Side", () -> String.valueOf(getSingleStickSide()),  TTier.SLOW);
+        TTelemetry.addString("Drive Input Curve", () -> String.valueOf(getInputCurveType()),   TTier.SLOW);
     }
 
     /**
@@ -39,22 +83,74 @@ public class DriveSelector {
      */
     public DriveControlType getDriveControlType() {
 
+        if (replayDriveControlType != null) {
+            return replayDriveControlType;
+        }
+
         switch (driveControlType.getSelected()) {
         case DRIVE_CONTROL_TYPE_TANK:
             return DriveControlType.TANK;
         case DRIVE_CONTROL_TYPE_SINGLE_STICK:
             return DriveControlType.SINGLE_STICK;
+        case DRIVE_CONTROL_TYPE_CURVATURE:
+            return DriveControlType.CURVATURE;
+        case DRIVE_CONTROL_TYPE_FIELD:
+            return DriveControlType.FIELD_RELATIVE;
         case DRIVE_CONTROL_TYPE_ARCADE:
         default:
             return DriveControlType.ARCADE;
         }
     }
 
+    /**
+     * Get the Input Curve type
+     */
+    public TCurveType getInputCurveType() {
+
+        if (replayInputCurveType != null) {
+            return replayInputCurveType;
+        }
+
+        switch (inputCurve.getSelected()) {
+        case INPUT_CURVE_LINEAR:
+            return TCurveType.LINEAR;
+        case INPUT_CURVE_CUBIC:
+            return TCurveType.CUBIC;
+        case INPUT_CURVE_EXPO:
+            return TCurveType.EXPO;
+        case INPUT_CURVE_PIECEWISE:
+        default:
+            return TCurveType.PIECEWISE;
+        }
+    }
+
+    /**
+     * Get the Shift Mode
+     */
+    public ShiftMode getShiftMode() {
+
+        if (replayShiftMode != null) {
+            return replayShiftMode;
+        }
+
+        switch (shiftMode.getSelected()) {
+        case SHIFT_MODE_AUTOMATIC:
+            return ShiftMode.AUTOMATIC;
+        case SHIFT_MODE_MANUAL:
+        default:
+            return ShiftMode.MANUAL;
+        }
+    }
+
     /**
      * Get the Single Stick side
      */
     public TStick getSingleStickSide() {
 
+        if (replaySingleStickSide != null) {
+            return replaySingleStickSide;
+        }
+
         switch (singleStickSide.getSelected()) {
         case SINGLE_STICK_LEFT:
             return TStick.LEFT;
@@ -64,8 +160,39 @@ public class DriveSelector {
         }
     }
 
-    public void updatePeriodic() {
-        SmartDashboard.putString("Drive Control", String.valueOf(getDriveControlType()));
-        SmartDashboard.putString("Single Stick Side", String.valueOf(getSingleStickSide()));
+    /**
+     * Set the Drive Type recorded in a data log
+     * <p>
+     * The recorded selection is returned instead of the chooser selection.
+     */
+    public void setReplayDriveControlType(DriveControlType driveControlType) {
+        replayDriveControlType = driveControlType;
+    }
+
+    /**
+     * Set the Input Curve type recorded in a data log
+     * <p>
+     * The recorded selection is returned instead of the chooser selection.
+     */
+    public void setReplayInputCurveType(TCurveType inputCurveType) {
+        replayInputCurveType = inputCurveType;
+    }
+
+    /**
+     * Set the Shift Mode recorded in a data log
+     * <p>
+     * The recorded selection is returned instead of the chooser selection.
+     */
+    public void setReplayShiftMode(ShiftMode shiftMode) {
+        replayShiftMode = shiftMode;
+    }
+
+    /**
+     * Set the Single Stick side recorded in a data log
+     * <p>
+     * The recorded selection is returned instead of the chooser selection.
+     */
+    public void setReplaySingleStickSide(TStick singleStickSide) {
+        replaySingleStickSide = singleStickSide;
     }
 }
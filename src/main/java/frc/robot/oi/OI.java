@@ -1,5 +1,6 @@
 package frc.robot.oi;
 
+import com.torontocodingcollective.TInputCurve.TCurveType;
 import com.torontocodingcollective.oi.TButton;
 import com.torontocodingcollective.oi.TGameController;
 import com.torontocodingcollective.oi.TGameController_Logitech;
@@ -8,8 +9,12 @@ import com.torontocodingcollective.oi.TRumbleManager;
 import com.torontocodingcollective.oi.TStick;
 import com.torontocodingcollective.oi.TStickPosition;
 import com.torontocodingcollective.oi.TToggle;
+import com.torontocodingcollective.telemetry.TLoopProfiler;
+import com.torontocodingcollective.telemetry.TTelemetry;
+import com.torontocodingcollective.telemetry.TTelemetry.TTier;
+
+import frc.robot.subsystems.DriveSubsystem.ShiftMode;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 /**
  * This class is the glue that binds the controls on the physical operator
@@ -25,7 +30,8 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
  * Buttons: Start Button = Reset Encoders and Gyro Back Button = Cancel any
  * Command
  *
- * Bumpers/Triggers: Left Bumper = Turbo shift
+ * Bumpers/Triggers: Left Bumper = Turbo shift (manual shift mode) Right Bumper
+ * = Quick turn (curvature drive)
  *
  * POV: Any Angle = Rotate to the Pressed Angle
  *
@@ -40,6 +46,19 @@ public class OI extends TOi {
 
 	private DriveSelector driveSelector = new DriveSelector();
 
+	private final int periodicTimer = TLoopProfiler.addTimer("OI");
+
+	/**
+	 * Get the drive selector
+	 * <p>
+	 * Used to set the selections recorded in a data log when replaying the log.
+	 *
+	 * @return {@link DriveSelector}
+	 */
+	public DriveSelector getDriveSelector() {
+		return driveSelector;
+	}
+
 	@Override
 	public boolean getCancel() {
 		return driverController.getButton(TButton.BACK);
@@ -54,6 +73,11 @@ public class OI extends TOi {
 		return driverController.getStickPosition(stick);
 	}
 
+	@Override
+	public TStickPosition getDriveStickPosition(TStick stick, TStickPosition stickPosition) {
+		return driverController.getStickPosition(stick, stickPosition);
+	}
+
 	@Override
 	public boolean getReset() {
 		return driverController.getButton(TButton.START);
@@ -74,6 +98,27 @@ public class OI extends TOi {
 		return driveSelector.getDriveControlType();
 	}
 
+	/**
+	 * Get the selected drive input curve
+	 *
+	 * @return {@link TCurveType} selected on the SmartDashboard. The default input
+	 *         curve is {@link TCurveType#PIECEWISE}
+	 */
+	public TCurveType getSelectedInputCurve() {
+		return driveSelector.getInputCurveType();
+	}
+
+	/**
+	 * Get the selected shift mode
+	 *
+	 * @return {@link ShiftMode} selected on the SmartDashboard. The default shift
+	 *         mode is {@link ShiftMode#MANUAL} using the turbo button
+	 *         {@link #getTurboOn()}
+	 */
+	public ShiftMode getSelectedShiftMode() {
+		return driveSelector.getShiftMode();
+	}
+
 	/**
 	 * Get the selected single stick side
 	 *
@@ -89,6 +134,15 @@ public class OI extends TOi {
 		return speedPidToggle.get();
 	}
 
+	/**
+	 * Get the quick turn button used to rotate on the spot in the curvature drive
+	 *
+	 * @return {@code true} if quick turn is pressed, {@code false} otherwise
+	 */
+	public boolean getQuickTurn() {
+		return driverController.getButton(TButton.RIGHT_BUMPER);
+	}
+
 	public boolean getTurboOn() {
 		return driverController.getButton(TButton.LEFT_BUMPER);
 	}
@@ -96,6 +150,10 @@ public class OI extends TOi {
 	public void init() {
 		compressorToggle.set(true);
 		speedPidToggle.set(false);
+
+		TTelemetry.addBoolean("Speed PID Toggle",  () -> getSpeedPidEnabled(),    TTier.NORMAL);
+		TTelemetry.addBoolean("Compressor Toggle", () -> getCompressorEnabled(),  TTier.NORMAL);
+		TTelemetry.addNumberArray("Driver Controller", () -> driverController.getState().toArray(), TTier.NORMAL);
 	}
 
 	public void setSpeedPidEnabled(boolean state) {
@@ -105,14 +163,17 @@ public class OI extends TOi {
 	@Override
 	public void periodic() {
 
-		// Update all Toggles
-		compressorToggle.updatePeriodic();
-		speedPidToggle.updatePeriodic();
+		long startTime = TLoopProfiler.start();
+
+		// Read the driver controller once for this loop. The OI
+		// is constructed (and registered with the scheduler) before
+		// the robot subsystems, so the controller is read before it
+		// is used by any subsystem or command. The controller
+		// toggles are updated with the controller.
+		driverController.updatePeriodic();
+
 		driverRumble.updatePeriodic();
 
-		// Update all SmartDashboard values
-		SmartDashboard.putBoolean("Speed PID Toggle", getSpeedPidEnabled());
-		SmartDashboard.putBoolean("Compressor Toggle", getCompressorEnabled());
-		SmartDashboard.putString("Driver Controller", driverController.toString());
+		TLoopProfiler.stop(periodicTimer, startTime);
 	}
 }
@@ -3,10 +3,12 @@ package frc.robot.subsystems;
 import com.revrobotics.ColorMatch;
 import com.revrobotics.ColorMatchResult;
 import com.revrobotics.ColorSensorV3;
+import com.torontocodingcollective.telemetry.TLoopProfiler;
+import com.torontocodingcollective.telemetry.TTelemetry;
+import com.torontocodingcollective.telemetry.TTelemetry.TTier;
 
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.I2C;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj.util.Color;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 
@@ -31,17 +33,66 @@ public class ControlPanelSubsystem extends SubsystemBase {
 	public static final Color YELLOW_TARGET  = new Color(0.361, 0.524, 0.113);
 	public static final Color UNKNOWN_TARGET = Color.kBlack;
 
+	// The color sensor is read over I2C, so read it at the same rate as the
+	// slow telemetry (every 25 loops)
+	private static final int COLOR_SENSOR_READ_LOOPS = 25;
+
+	private Color sensorColor = UNKNOWN_TARGET;
+	private int   sensorRed   = 0;
+	private int   sensorGreen = 0;
+	private int   sensorBlue  = 0;
+
+	private int   loopCount   = 0;
+
+	private final int periodicTimer = TLoopProfiler.addTimer("ControlPanelSubsystem");
+
 	public ControlPanelSubsystem() {
 		colorMatcher.addColorMatch(BLUE_TARGET);
 		colorMatcher.addColorMatch(GREEN_TARGET);
 		colorMatcher.addColorMatch(RED_TARGET);
 		colorMatcher.addColorMatch(YELLOW_TARGET);
+
+		// The color sensor values are read in the periodic routine
+		TTelemetry.addString("Color Sensor Color",
+				() -> getColorName(getColorSensorColor()), TTier.SLOW);
+		TTelemetry.addString("Specified Target Color",
+				() -> getColorName(getSpecifiedTargetColor()), TTier.SLOW);
+		TTelemetry.addString("Color Sensor(R, G, B)",
+				() -> "" + sensorRed + ", " + sensorGreen + ", " + sensorBlue, TTier.SLOW);
 	}
 
-	/** Get the color sensor colour */
+	/**
+	 * Get the color sensor colour
+	 * <p>
+	 * The color sensor is read by the periodic routine every 25 loops (500ms).
+	 */
 	public Color getColorSensorColor() {
+		return sensorColor;
+	}
+
+	@Override
+	public void periodic() {
+
+		long startTime = TLoopProfiler.start();
+
+		if (loopCount % COLOR_SENSOR_READ_LOOPS == 0) {
 
-		ColorMatchResult match = colorMatcher.matchClosestColor(colorSensor.getColor());
+			sensorColor = matchColor(colorSensor.getColor());
+
+			sensorRed   = colorSensor.getRed();
+			sensorGreen = colorSensor.getGreen();
+			sensorBlue  = colorSensor.getBlue();
+		}
+
+		loopCount++;
+
+		TLoopProfiler.stop(periodicTimer, startTime);
+	}
+
+	/** Get the target color that is closest to the color */
+	private Color matchColor(Color color) {
+
+		ColorMatchResult match = colorMatcher.matchClosestColor(color);
 
 		if (match.color.equals(BLUE_TARGET)) {
 			return BLUE_TARGET;
@@ -106,14 +157,4 @@ public class ControlPanelSubsystem extends SubsystemBase {
 		}
 	}
 
-	// Periodically update the dashboard and any PIDs or sensors
-	@Override
-	public void periodic() {
-
-		SmartDashboard.putString("Color Sensor Color", getColorName(getColorSensorColor()));
-		SmartDashboard.putString("Specified Target Color", getColorName(getSpecifiedTargetColor()));
-		SmartDashboard.putString("Color Sensor(R, G, B)", "" + colorSensor.getRed() + ", "
-				+ colorSensor.getGreen() + ", " + colorSensor.getBlue());
-	}
-
 }
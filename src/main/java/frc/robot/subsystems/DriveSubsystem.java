@@ -1,13 +1,19 @@
 package frc.robot.subsystems;
 
+import com.torontocodingcollective.TLoopClock;
+import com.torontocodingcollective.commands.drive.TSpeedPidAutoTuneCommand;
+import com.torontocodingcollective.commands.gyroDrive.TGyroPidAutoTuneCommand;
 import com.torontocodingcollective.motorcontroller.TMotorController;
 import com.torontocodingcollective.sensors.encoder.TEncoder;
 import com.torontocodingcollective.sensors.gyro.TGyro;
 import com.torontocodingcollective.subsystem.TGyroDriveSubsystem;
+import com.torontocodingcollective.telemetry.TLoopProfiler;
+import com.torontocodingcollective.telemetry.TTelemetry;
+import com.torontocodingcollective.telemetry.TTelemetry.TTier;
 
 import edu.wpi.first.wpilibj.PneumaticsModuleType;
+import edu.wpi.first.wpilibj.Preferences;
 import edu.wpi.first.wpilibj.Solenoid;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.robot.Constants.DriveConstants;
 
 /**
@@ -18,11 +24,42 @@ import frc.robot.Constants.DriveConstants;
  */
 public class DriveSubsystem extends TGyroDriveSubsystem {
 
-	private static final boolean LOW_GEAR     = false;
-	private static final boolean HIGH_GEAR    = true;
+	/**
+	 * Gear shifting modes
+	 */
+	public enum ShiftMode {
 
-	private Solenoid             shifter      = new Solenoid(PneumaticsModuleType.CTREPCM, DriveConstants.SHIFTER_PNEUMATIC_PORT);
-	private boolean              turboEnabled = false;
+		/** The driver shifts with the turbo button */
+		MANUAL,
+
+		/** Shift on the encoder speed, throttle and turn rate */
+		AUTOMATIC
+	};
+
+	private static final boolean LOW_GEAR          = false;
+	private static final boolean HIGH_GEAR         = true;
+
+	private Solenoid             shifter           = new Solenoid(PneumaticsModuleType.CTREPCM, DriveConstants.SHIFTER_PNEUMATIC_PORT);
+	private boolean              turboEnabled      = false;
+
+	private ShiftMode            shiftMode         = ShiftMode.MANUAL;
+
+	// Throttle of the last requested speeds used for automatic shifting
+	private double               throttle          = 0;
+
+	// Shift statistics (FPGA times in microseconds)
+	private int                  shiftCount        = 0;
+	private long                 lastShiftTime;
+	private long                 lowGearTime       = 0;
+	private long                 highGearTime      = 0;
+
+	// Auto tuned low gear speed pid gains for each side
+	private final double         lowGearLeftKp;
+	private final double         lowGearLeftKi;
+	private final double         lowGearRightKp;
+	private final double         lowGearRightKi;
+
+	private final int            periodicTimer     = TLoopProfiler.addTimer("DriveSubsystem");
 
 	public DriveSubsystem() {
 
@@ -46,6 +83,11 @@ public class DriveSubsystem extends TGyroDriveSubsystem {
 				// Gyro used for this subsystem
 				new TGyro(DriveConstants.GYRO_TYPE, DriveConstants.GYRO_PORT, DriveConstants.GYRO_ISINVERTED));
 
+		// The accelerometer forward axis depends on how the gyro is mounted
+		gyro.setAccelerationAxis(
+				DriveConstants.GYRO_ACCELERATION_AXIS,
+				DriveConstants.GYRO_ACCELERATION_ISINVERTED);
+
 		/*
 		 * Get the encoders attached to the CAN bus speed controllers
 		 * NOTE: Depending on the encoder type, and where it is attached, different
@@ -68,16 +110,64 @@ public class DriveSubsystem extends TGyroDriveSubsystem {
 				DriveConstants.DRIVE_SPEED_PID_KI,
 				DriveConstants.MAX_LOW_GEAR_SPEED);
 
-		// Set up the gyro tracking pids
+		// Use the auto tuned speed pid gains in low gear if they have been saved
+		lowGearLeftKp  = Preferences.getDouble(TSpeedPidAutoTuneCommand.LEFT_SPEED_PID_KP_KEY,  DriveConstants.DRIVE_SPEED_PID_KP);
+		lowGearLeftKi  = Preferences.getDouble(TSpeedPidAutoTuneCommand.LEFT_SPEED_PID_KI_KEY,  DriveConstants.DRIVE_SPEED_PID_KI);
+		lowGearRightKp = Preferences.getDouble(TSpeedPidAutoTuneCommand.RIGHT_SPEED_PID_KP_KEY, DriveConstants.DRIVE_SPEED_PID_KP);
+		lowGearRightKi = Preferences.getDouble(TSpeedPidAutoTuneCommand.RIGHT_SPEED_PID_KI_KEY, DriveConstants.DRIVE_SPEED_PID_KI);
+
+		super.setSpeedPidGain(TSide.LEFT,  lowGearLeftKp,  lowGearLeftKi);
+		super.setSpeedPidGain(TSide.RIGHT, lowGearRightKp, lowGearRightKi);
+
+		super.setSpeedPidFeedforward(
+				DriveConstants.LOW_GEAR_SPEED_PID_KS,
+				DriveConstants.LOW_GEAR_SPEED_PID_KV,
+				DriveConstants.LOW_GEAR_SPEED_PID_KA);
+
+		// Set up the gyro tracking pids using the auto tuned
+		// gains if they have been saved
 		super.setGyroPidGain(
-				DriveConstants.DRIVE_GYRO_PID_KP,
-				DriveConstants.DRIVE_GYRO_PID_KI);
+				Preferences.getDouble(TGyroPidAutoTuneCommand.GYRO_PID_KP_KEY, DriveConstants.DRIVE_GYRO_PID_KP),
+				Preferences.getDouble(TGyroPidAutoTuneCommand.GYRO_PID_KI_KEY, DriveConstants.DRIVE_GYRO_PID_KI));
 
 		// Set the max output speed used on in place pivot rotations
 		super.setMaxRotationOutput(DriveConstants.DRIVE_MAX_ROTATION_OUTPUT);
 
+		// Set up the cascaded heading and rotation rate control
+		super.setMaxRotationRate(DriveConstants.DRIVE_MAX_ROTATION_RATE);
+
+		super.setRotationRateGains(
+				DriveConstants.DRIVE_ROTATION_HEADING_KP,
+				DriveConstants.DRIVE_ROTATION_RATE_KF,
+				DriveConstants.DRIVE_ROTATION_RATE_KP,
+				DriveConstants.DRIVE_ROTATION_RATE_KI);
+
+		super.setRotationControl(DriveConstants.DRIVE_ROTATION_CONTROL);
+
+		// Limit the acceleration and braking of each side of the drive
+		super.setOutputShaping(
+				DriveConstants.DRIVE_OUTPUT_ACCELERATION_RATE,
+				DriveConstants.DRIVE_OUTPUT_BRAKING_RATE,
+				DriveConstants.DRIVE_OUTPUT_JERK);
+
+		super.enableOutputShaping();
+
+		// Limit wheel slip on high gear launches. Traction control
+		// is enabled in turbo.
+		super.setTractionControl(
+				DriveConstants.DRIVE_MAX_WHEEL_ACCELERATION,
+				DriveConstants.DRIVE_SLIP_MARGIN);
+
 		// Initialize to Low gear
 		shifter.set(LOW_GEAR);
+		lastShiftTime = TLoopClock.getTime();
+
+		TTelemetry.addBoolean("Turbo Enabled", () -> isTurboEnabled(), TTier.SLOW);
+		TTelemetry.addString("Shift Mode", () -> shiftMode.toString(), TTier.SLOW);
+
+		TTelemetry.addNumber("Shift Count",    () -> shiftCount,                   TTier.SLOW);
+		TTelemetry.addNumber("Low Gear Time",  () -> getTimeInGear(LOW_GEAR),  .1, TTier.SLOW);
+		TTelemetry.addNumber("High Gear Time", () -> getTimeInGear(HIGH_GEAR), .1, TTier.SLOW);
 	}
 
 
@@ -85,27 +175,174 @@ public class DriveSubsystem extends TGyroDriveSubsystem {
 	// Turbo routines
 	// ********************************************************************************************************************
 	public void enableTurbo() {
-		turboEnabled = true;
-		setMaxEncoderSpeed(DriveConstants.MAX_HIGH_GEAR_SPEED);
-		shifter.set(HIGH_GEAR);
+		shift(HIGH_GEAR);
 	}
 
 	public void disableTurbo() {
-		turboEnabled = false;
-		setMaxEncoderSpeed(DriveConstants.MAX_LOW_GEAR_SPEED);
-		shifter.set(LOW_GEAR);
+		shift(LOW_GEAR);
 	}
 
 	public boolean isTurboEnabled() {
 		return turboEnabled;
 	}
 
+	public int getShiftCount() {
+		return shiftCount;
+	}
+
+	public ShiftMode getShiftMode() {
+		return shiftMode;
+	}
+
+	/**
+	 * Get the total time spent in a gear
+	 *
+	 * @param highGear
+	 *            {@code true} for high gear, {@code false} for low gear
+	 * @return time in seconds
+	 */
+	public double getTimeInGear(boolean highGear) {
+
+		long time = highGear ? highGearTime : lowGearTime;
+
+		// Add the time in the current gear
+		if (highGear == turboEnabled) {
+			time += TLoopClock.getTime() - lastShiftTime;
+		}
+
+		return time / 1000000.0d;
+	}
+
+	/**
+	 * Set the shift mode
+	 * <p>
+	 * In {@link ShiftMode#MANUAL} the gear is set with {@link #enableTurbo()} and
+	 * {@link #disableTurbo()}. In {@link ShiftMode#AUTOMATIC} the gear is
+	 * selected in each loop from the encoder speed, the throttle and the gyro
+	 * turn rate.
+	 *
+	 * @param shiftMode
+	 *            {@link ShiftMode}
+	 */
+	public void setShiftMode(ShiftMode shiftMode) {
+		this.shiftMode = shiftMode;
+	}
+
+	@Override
+	public void setSpeed(double leftSpeedSetpoint, double rightSpeedSetpoint) {
+
+		// Track the throttle for automatic shifting
+		throttle = (leftSpeedSetpoint + rightSpeedSetpoint) / 2.0;
+
+		super.setSpeed(leftSpeedSetpoint, rightSpeedSetpoint);
+	}
+
+	/**
+	 * Select the gear from the encoder speed, throttle and turn rate
+	 * <p>
+	 * Shift up when the robot is near the top speed of low gear and the driver
+	 * is asking for more speed while not turning hard. Shift down when the robot
+	 * slows down or turns hard. The gap between the upshift and downshift speeds
+	 * prevents the gears from hunting, and no shift is allowed in the lockout
+	 * time after a shift.
+	 */
+	private void autoShift() {
+
+		if (TLoopClock.getTime() - lastShiftTime < DriveConstants.SHIFT_LOCKOUT_TIME * 1000000) {
+			return;
+		}
+
+		double speed    = Math.abs(getEncoderSpeed());
+		double turnRate = gyro.supportsRate() ? Math.abs(getGyroRate()) : 0;
+
+		if (!turboEnabled) {
+
+			if (   speed              > DriveConstants.AUTO_UPSHIFT_SPEED * DriveConstants.MAX_LOW_GEAR_SPEED
+				&& Math.abs(throttle) > DriveConstants.AUTO_UPSHIFT_THROTTLE
+				&& turnRate           < DriveConstants.AUTO_SHIFT_MAX_TURN_RATE) {
+
+				shift(HIGH_GEAR);
+			}
+
+		} else {
+
+			if (   speed    < DriveConstants.AUTO_DOWNSHIFT_SPEED * DriveConstants.MAX_LOW_GEAR_SPEED
+				|| turnRate > DriveConstants.AUTO_SHIFT_MAX_TURN_RATE) {
+
+				shift(LOW_GEAR);
+			}
+		}
+	}
+
+	/**
+	 * Shift to a gear
+	 * <p>
+	 * The speed pid gains, feed forward and max encoder speed of the gear are set
+	 * and the shifter solenoid is written only when the gear changes.
+	 */
+	private void shift(boolean highGear) {
+
+		if (highGear == turboEnabled) {
+			return;
+		}
+
+		// Record the time in the previous gear
+		long time = TLoopClock.getTime();
+
+		if (turboEnabled) {
+			highGearTime += time - lastShiftTime;
+		} else {
+			lowGearTime  += time - lastShiftTime;
+		}
+
+		lastShiftTime = time;
+		shiftCount++;
+
+		turboEnabled = highGear;
+
+		if (highGear) {
+
+			setMaxEncoderSpeed(DriveConstants.MAX_HIGH_GEAR_SPEED);
+
+			setSpeedPidGain(DriveConstants.HIGH_GEAR_SPEED_PID_KP, DriveConstants.HIGH_GEAR_SPEED_PID_KI);
+
+			setSpeedPidFeedforward(
+					DriveConstants.HIGH_GEAR_SPEED_PID_KS,
+					DriveConstants.HIGH_GEAR_SPEED_PID_KV,
+					DriveConstants.HIGH_GEAR_SPEED_PID_KA);
+
+			enableTractionControl();
+
+		} else {
+
+			setMaxEncoderSpeed(DriveConstants.MAX_LOW_GEAR_SPEED);
+
+			setSpeedPidGain(TSide.LEFT,  lowGearLeftKp,  lowGearLeftKi);
+			setSpeedPidGain(TSide.RIGHT, lowGearRightKp, lowGearRightKi);
+
+			setSpeedPidFeedforward(
+					DriveConstants.LOW_GEAR_SPEED_PID_KS,
+					DriveConstants.LOW_GEAR_SPEED_PID_KV,
+					DriveConstants.LOW_GEAR_SPEED_PID_KA);
+
+			disableTractionControl();
+		}
+
+		shifter.set(highGear);
+	}
+
 	@Override
 	public void periodic() {
 
+		long startTime = TLoopProfiler.start();
+
+		if (shiftMode == ShiftMode.AUTOMATIC) {
+			autoShift();
+		}
+
+		// Update the gyro and speed pids
 		super.periodic();
 
-		SmartDashboard.putBoolean("Turbo Enabled", isTurboEnabled());
+		TLoopProfiler.stop(periodicTimer, startTime);
 	}
-
 }
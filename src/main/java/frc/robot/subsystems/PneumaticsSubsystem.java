@@ -1,7 +1,9 @@
 package frc.robot.subsystems;
 
+import com.torontocodingcollective.telemetry.TTelemetry;
+import com.torontocodingcollective.telemetry.TTelemetry.TTier;
+
 import edu.wpi.first.wpilibj.Compressor;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
 
@@ -10,7 +12,11 @@ import frc.robot.Constants;
  */
 public class PneumaticsSubsystem extends SubsystemBase {
 
-	Compressor compressor = null;
+	Compressor compressor          = null;
+
+	// The compressor runs when it is enabled and not paused
+	boolean    compressorEnabled   = true;
+	boolean    compressorPaused    = false;
 
 	public PneumaticsSubsystem() {
 
@@ -20,30 +26,53 @@ public class PneumaticsSubsystem extends SubsystemBase {
 		if (compressor != null) {
 			compressor.setClosedLoopControl(true);
 		}
+
+		TTelemetry.addBoolean("Compressor",
+				() -> compressor != null && compressor.enabled(), TTier.NORMAL);
+		TTelemetry.addBoolean("Compressor Enabled",
+				() -> compressor != null && compressor.getClosedLoopControl(), TTier.NORMAL);
+		TTelemetry.addBoolean("Compressor Paused", () -> compressorPaused, TTier.NORMAL);
 	}
 
 	public void disableCompressor() {
-		if (compressor != null) {
-			compressor.setClosedLoopControl(false);
-		}
+		compressorEnabled = false;
+		updateCompressor();
 	}
 
 	public void enableCompressor() {
-		if (compressor != null) {
-			compressor.setClosedLoopControl(true);
-		}
+		compressorEnabled = true;
+		updateCompressor();
+	}
+
+	public boolean isCompressorPaused() {
+		return compressorPaused;
 	}
 
-	// Periodically update the dashboard and any PIDs or sensors
-	@Override
-	public void periodic() {
+	/**
+	 * Pause the compressor without changing the enabled state
+	 * <p>
+	 * The compressor is paused by the {@link PowerSubsystem} when a brownout is
+	 * predicted, and runs again when it is resumed if it is enabled.
+	 * <p>
+	 * The power subsystem sets the paused state every loop, so the compressor
+	 * is only updated (a CAN write) when the paused state changes.
+	 *
+	 * @param paused
+	 *            {@code true} to pause, {@code false} to resume
+	 */
+	public void setCompressorPaused(boolean paused) {
+
+		if (paused == compressorPaused) {
+			return;
+		}
+
+		compressorPaused = paused;
+		updateCompressor();
+	}
 
+	private void updateCompressor() {
 		if (compressor != null) {
-			SmartDashboard.putBoolean("Compressor", compressor.enabled());
-			SmartDashboard.putBoolean("Compressor Enabled", compressor.getClosedLoopControl());
-		} else {
-			SmartDashboard.putBoolean("Compressor", false);
-			SmartDashboard.putBoolean("Compressor Enabled", false);
+			compressor.setClosedLoopControl(compressorEnabled && !compressorPaused);
 		}
 	}
 
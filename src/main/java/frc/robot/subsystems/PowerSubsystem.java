@@ -1,27 +1,294 @@
 package frc.robot.subsystems;
 
+import com.torontocodingcollective.TUtil;
+import com.torontocodingcollective.telemetry.TLoopProfiler;
+import com.torontocodingcollective.telemetry.TTelemetry;
+import com.torontocodingcollective.telemetry.TTelemetry.TTier;
+
+import edu.wpi.first.wpilibj.Notifier;
 import edu.wpi.first.wpilibj.PowerDistribution;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.Constants.PowerConstants;
 
 /**
  * Power Subsystem
  * <p>
- * This subsystem contains only the Power Distribution Panel and is used to read
- * the current on a power port.
+ * This subsystem contains the Power Distribution Panel and is used to read the
+ * current on a power port.
+ * <p>
+ * The power subsystem also keeps the battery voltage above a floor
+ * {@link #setVoltageFloor(double)} to prevent brownouts. The total PDP current
+ * and the battery voltage are sampled on a background thread, and the voltage
+ * is predicted from the trend of the recent samples. The battery resistance is
+ * measured from the change in the voltage with the current and is used to
+ * calculate the current budget (the total current that would pull the voltage
+ * down to the floor).
+ * <ul>
+ * <li>When the voltage is predicted to fall close to the floor, the compressor
+ * is paused.</li>
+ * <li>When the voltage is predicted to fall below the floor, the max output of
+ * the drive is scaled down to keep the current within the budget.</li>
+ * </ul>
+ * The drive output scale is latched at the start of each loop
+ * {@link #latchDriveOutputScale()} so that the scale used by the loop can be
+ * recorded in the data log.
  */
 public class PowerSubsystem extends SubsystemBase {
 
+	// Number of samples used for the voltage trend and battery resistance
+	private static final int          SAMPLE_COUNT           = 20;
+
+	// Limits of the measured battery resistance in ohms
+	private static final double       MIN_BATTERY_RESISTANCE = 0.005;
+	private static final double       MAX_BATTERY_RESISTANCE = 0.1;
+
+	// Minimum current variance (amps^2) used to measure the resistance
+	private static final double       MIN_CURRENT_VARIANCE   = 25.0;
+
 	PowerDistribution pdp = new PowerDistribution();
 
+	private final DriveSubsystem      driveSubsystem;
+	private final PneumaticsSubsystem pneumaticsSubsystem;
+
+	private final Notifier            powerSampler           = new Notifier(this::sample);
+
+	private volatile double           voltageFloor           = PowerConstants.BROWNOUT_VOLTAGE_FLOOR;
+
+	// Samples ring buffer (only used on the sampling thread)
+	private final double[]            voltageSamples         = new double[SAMPLE_COUNT];
+	private final double[]            currentSamples         = new double[SAMPLE_COUNT];
+	private int                       sampleHead             = 0;
+	private int                       sampleCount            = 0;
+	private long                      lowVoltageTime         = 0;
+
+	// Results of the latest sample
+	private volatile double           batteryVoltage         = 0;
+	private volatile double           totalCurrent           = 0;
+	private volatile double           predictedVoltage       = 0;
+	private volatile double           batteryResistance      = PowerConstants.DEFAULT_BATTERY_RESISTANCE;
+	private volatile double           currentBudget          = 0;
+	private volatile double           driveOutputScale       = 1.0;
+	private volatile boolean          compressorPaused       = false;
+
+	// Drive output scale applied in this loop
+	private double                    loopDriveOutputScale   = 1.0;
+
+	private final int                 periodicTimer          = TLoopProfiler.addTimer("PowerSubsystem");
+
+	public PowerSubsystem(DriveSubsystem driveSubsystem, PneumaticsSubsystem pneumaticsSubsystem) {
+
+		this.driveSubsystem      = driveSubsystem;
+		this.pneumaticsSubsystem = pneumaticsSubsystem;
+
+		TTelemetry.addData("PDP", pdp);
+
+		TTelemetry.addNumber("Battery Voltage",    () -> batteryVoltage,    .1,   TTier.NORMAL);
+		TTelemetry.addNumber("Predicted Voltage",  () -> predictedVoltage,  .1,   TTier.NORMAL);
+		TTelemetry.addNumber("Total Current",      () -> totalCurrent,      1,    TTier.NORMAL);
+		TTelemetry.addNumber("Current Budget",     () -> currentBudget,     1,    TTier.NORMAL);
+		TTelemetry.addNumber("Battery Resistance", () -> batteryResistance, .001, TTier.SLOW);
+		TTelemetry.addNumber("Drive Output Scale", () -> driveOutputScale,  .01,  TTier.NORMAL);
+
+		powerSampler.setName("PowerSampler");
+		powerSampler.startPeriodic(PowerConstants.POWER_SAMPLE_PERIOD);
+	}
+
+	/**
+	 * Get the total current budget
+	 *
+	 * @return the total current in amps that would pull the battery voltage down
+	 *         to the voltage floor
+	 */
+	public double getCurrentBudget() {
+		return currentBudget;
+	}
+
+	/**
+	 * Get the drive output scale applied in this loop
+	 *
+	 * @return drive output scale (0 to 1.0)
+	 */
+	public double getDriveOutputScale() {
+		return loopDriveOutputScale;
+	}
+
 	public double getMotorCurrent(int port) {
 		return pdp.getCurrent(port);
 	};
 
-	// Periodically update the dashboard and any PIDs or sensors
+	/**
+	 * Get the battery voltage predicted from the recent voltage trend
+	 *
+	 * @return predicted voltage
+	 */
+	public double getPredictedVoltage() {
+		return predictedVoltage;
+	}
+
+	/**
+	 * Latch the drive output scale calculated by the power sampler for this loop
+	 * <p>
+	 * This routine should be called once at the start of each robot loop.
+	 */
+	public void latchDriveOutputScale() {
+		loopDriveOutputScale = driveOutputScale;
+	}
+
+	/**
+	 * Set the drive output scale from a data log
+	 * <p>
+	 * The power sampler must be stopped when the replay starts
+	 * {@link #stopPowerSampler()}.
+	 *
+	 * @param driveOutputScale
+	 *            the recorded drive output scale
+	 */
+	public void setReplayDriveOutputScale(double driveOutputScale) {
+		this.driveOutputScale = driveOutputScale;
+	}
+
+	/**
+	 * Stop the power sampler
+	 * <p>
+	 * The sampler is stopped once when a data log replay starts, so that the
+	 * drive output scale is only set by the log replay
+	 * {@link #setReplayDriveOutputScale(double)}.
+	 */
+	public void stopPowerSampler() {
+		powerSampler.stop();
+	}
+
+	/**
+	 * Set the battery voltage floor
+	 * <p>
+	 * The drive output is limited and the compressor is paused to keep the
+	 * battery voltage above the floor.
+	 *
+	 * @param voltageFloor
+	 *            in volts
+	 */
+	public void setVoltageFloor(double voltageFloor) {
+		this.voltageFloor = voltageFloor;
+	}
+
 	@Override
 	public void periodic() {
-		SmartDashboard.putData("PDP", pdp);
+
+		long startTime = TLoopProfiler.start();
+
+		// Apply the results of the background sampling in the
+		// robot loop
+		driveSubsystem.setMaxOutput(loopDriveOutputScale);
+		pneumaticsSubsystem.setCompressorPaused(compressorPaused);
+
+		TLoopProfiler.stop(periodicTimer, startTime);
 	}
 
+	/**
+	 * Sample the voltage and current and update the brownout prediction
+	 * <p>
+	 * This routine runs on the power sampler thread.
+	 */
+	private void sample() {
+
+		long   time    = RobotController.getFPGATime();
+		double voltage = RobotController.getBatteryVoltage();
+		double current = pdp.getTotalCurrent();
+
+		voltageSamples[sampleHead] = voltage;
+		currentSamples[sampleHead] = current;
+
+		sampleHead = (sampleHead + 1) % SAMPLE_COUNT;
+
+		if (sampleCount < SAMPLE_COUNT) {
+			sampleCount++;
+		}
+
+		batteryVoltage = voltage;
+		totalCurrent   = current;
+
+		// Least squares fit of the voltage over time (in samples) and of the
+		// voltage over the current. The oldest sample is at time 0.
+		double meanTime    = (sampleCount - 1) / 2.0;
+		double meanVoltage = 0;
+		double meanCurrent = 0;
+
+		for (int i = 0; i < sampleCount; i++) {
+			meanVoltage += voltageSamples[i];
+			meanCurrent += currentSamples[i];
+		}
+
+		meanVoltage /= sampleCount;
+		meanCurrent /= sampleCount;
+
+		double timeVariance      = 0;
+		double timeCovariance    = 0;
+		double currentVariance   = 0;
+		double currentCovariance = 0;
+
+		for (int i = 0; i < sampleCount; i++) {
+
+			int    index = (sampleHead - sampleCount + i + SAMPLE_COUNT) % SAMPLE_COUNT;
+			double dt    = i - meanTime;
+			double dv    = voltageSamples[index] - meanVoltage;
+			double di    = currentSamples[index] - meanCurrent;
+
+			timeVariance      += dt * dt;
+			timeCovariance    += dt * dv;
+			currentVariance   += di * di;
+			currentCovariance += di * dv;
+		}
+
+		// Extrapolate the voltage trend
+		double slope = timeVariance > 0 ? timeCovariance / timeVariance : 0;
+
+		double predicted = meanVoltage + slope * (sampleCount - 1 - meanTime
+				+ PowerConstants.BROWNOUT_PREDICTION_TIME / PowerConstants.POWER_SAMPLE_PERIOD);
+
+		// Measure the battery resistance when the current changes enough
+		double resistance = batteryResistance;
+
+		if (sampleCount == SAMPLE_COUNT && currentVariance / sampleCount > MIN_CURRENT_VARIANCE) {
+
+			double measuredResistance = TUtil.clamp(-currentCovariance / currentVariance,
+					MIN_BATTERY_RESISTANCE, MAX_BATTERY_RESISTANCE);
+
+			resistance += (measuredResistance - resistance) * 0.1;
+		}
+
+		// The budget is the current that would pull the voltage to the floor
+		double floor       = voltageFloor;
+		double openCircuit = voltage + current * resistance;
+		double budget      = Math.max((openCircuit - floor) / resistance, 0);
+
+		// Scale the drive by the ratio of the budget to the predicted current,
+		// and recover the scale slowly when the brownout is no longer predicted.
+		double targetScale = 1.0;
+
+		if (predicted < floor) {
+
+			double predictedCurrent = (openCircuit - predicted) / resistance;
+
+			if (predictedCurrent > budget) {
+				targetScale = Math.max(budget / predictedCurrent, PowerConstants.MIN_DRIVE_OUTPUT_SCALE);
+			}
+		}
+
+		double scale = Math.min(driveOutputScale
+				+ PowerConstants.DRIVE_OUTPUT_SCALE_RECOVERY * PowerConstants.POWER_SAMPLE_PERIOD, 1.0);
+
+		// Pause the compressor before the voltage reaches the floor
+		if (predicted < floor + PowerConstants.COMPRESSOR_VOLTAGE_MARGIN) {
+			lowVoltageTime   = time;
+			compressorPaused = true;
+		} else if (time - lowVoltageTime > PowerConstants.COMPRESSOR_RESUME_DELAY * 1000000) {
+			compressorPaused = false;
+		}
+
+		predictedVoltage  = predicted;
+		batteryResistance = resistance;
+		currentBudget     = budget;
+		driveOutputScale  = Math.min(scale, targetScale);
+	}
 }
@@ -0,0 +1,134 @@
+package com.torontocodingcollective;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Micro benchmark harness
+ * <p>
+ * Runs the benchmarks of the numeric routines that are called every loop
+ * ({@link TUtilBenchmark}, {@link TInputCurveBenchmark}) and prints the time
+ * per call of each case. Run the benchmarks on the development computer with
+ * {@code ./gradlew benchmark}.
+ * <p>
+ * Each case processes an array of random inputs. The case is run for
+ * {@link #WARMUP_ROUNDS} rounds so that it is compiled, then the median time of
+ * {@link #MEASURED_ROUNDS} rounds is reported. The results of every case are
+ * summed into a sink so that the calculations are not optimized away.
+ * <p>
+ * All of the cases run in one JVM, so a case that calls code shared with an
+ * earlier case is compiled with the profile of both cases. Differences of
+ * about 1 ns/call between cases are within the run to run variation.
+ */
+public class TBenchmark {
+
+    /**
+     * Benchmark case
+     */
+    public interface TCase {
+
+        /**
+         * Run the calculation once for each input
+         *
+         * @param inputs
+         *            to the calculation
+         * @return sum of the results
+         */
+        double run(double[] inputs);
+    }
+
+    /** Number of random inputs processed by each run of a case */
+    public static final int      INPUT_COUNT          = 4096;
+
+    private static final int     WARMUP_ROUNDS        = 10;
+    private static final int     MEASURED_ROUNDS      = 15;
+
+    // Runs of the case in each round
+    private static final int     RUNS_PER_ROUND       = 200;
+
+    private static double        sink                 = 0;
+
+    /**
+     * Run all of the benchmarks
+     */
+    public static void main(String... args) {
+
+        TUtilBenchmark.run();
+
+        System.out.println();
+
+        TInputCurveBenchmark.run();
+
+        // Print the sink so the results are used
+        System.out.println();
+        System.out.println("(sink " + sink + ")");
+    }
+
+    /**
+     * Measure the time of a benchmark case
+     *
+     * @param name
+     *            of the case that is printed with the result
+     * @param benchmarkCase
+     *            to measure
+     * @param inputs
+     *            processed by the case
+     * @return median time per input in nanoseconds
+     */
+    public static double measure(String name, TCase benchmarkCase, double[] inputs) {
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            runRound(benchmarkCase, inputs);
+        }
+
+        double[] roundTimes = new double[MEASURED_ROUNDS];
+
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            roundTimes[round] = runRound(benchmarkCase, inputs);
+        }
+
+        Arrays.sort(roundTimes);
+
+        double nanosPerCall = roundTimes[MEASURED_ROUNDS / 2] / ((double) RUNS_PER_ROUND * inputs.length);
+
+        System.out.println(String.format("  %-32s %7.2f ns/call", name, nanosPerCall));
+
+        return nanosPerCall;
+    }
+
+    /**
+     * Generate random inputs
+     * <p>
+     * The inputs are generated from a fixed seed so that each run of the
+     * benchmark uses the same inputs.
+     *
+     * @param min
+     *            input value
+     * @param max
+     *            input value
+     * @return {@link #INPUT_COUNT} inputs in the range min to max
+     */
+    public static double[] randomInputs(double min, double max) {
+
+        Random random = new Random(2022);
+
+        double[] inputs = new double[INPUT_COUNT];
+
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            inputs[i] = min + random.nextDouble() * (max - min);
+        }
+
+        return inputs;
+    }
+
+    private static long runRound(TCase benchmarkCase, double[] inputs) {
+
+        long startTime = System.nanoTime();
+
+        for (int i = 0; i < RUNS_PER_ROUND; i++) {
+            sink += benchmarkCase.run(inputs);
+        }
+
+        return System.nanoTime() - startTime;
+    }
+}
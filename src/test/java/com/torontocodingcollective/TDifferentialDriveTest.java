@@ -0,0 +1,185 @@
+package com.torontocodingcollective;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.torontocodingcollective.TInputCurve.TCurveType;
+import com.torontocodingcollective.TSpeeds.TDesaturationMode;
+import com.torontocodingcollective.motorcontroller.TMotorController;
+import com.torontocodingcollective.motorcontroller.TMotorController.TMotorControllerType;
+import com.torontocodingcollective.oi.TStickPosition;
+import com.torontocodingcollective.sensors.encoder.TReplayEncoder;
+import com.torontocodingcollective.subsystem.TDriveSubsystem;
+import com.torontocodingcollective.subsystem.TDriveSubsystem.TSide;
+
+import edu.wpi.first.hal.HAL;
+
+/**
+ * Allocation tests for the {@link TDifferentialDrive}
+ * <p>
+ * The drive calculation runs in every loop of the default drive command, and
+ * must not allocate any objects once the command is running. The test runs the
+ * drive calls of the {@code DefaultDriveCommand} execute routine with reused
+ * stick positions and motor speeds: the {@link TDifferentialDrive} calculation,
+ * and {@link TDriveSubsystem#setSpeed(TSpeeds)} which desaturates the speeds,
+ * applies the output shaping and sets the speed PID setpoints or the motor
+ * outputs. The motors are PWM motor controllers in the simulation HAL. The test
+ * checks the bytes allocated by the test thread.
+ * <p>
+ * The stick positions are set by the test. Reading the controller axes
+ * ({@code OI.getDriveStickPosition}) needs the driver station and is not
+ * covered.
+ */
+public class TDifferentialDriveTest {
+
+    // Rounds of loops run before measuring so that the classes are loaded
+    // and the drive calculation is compiled
+    private static final int                 WARMUP_ROUNDS      = 5;
+
+    private static final int                 MEASURED_LOOPS     = 100_000;
+
+    private static final TCurveType[]        CURVE_TYPES        = TCurveType.values();
+
+    private static final TDesaturationMode[] DESATURATION_MODES = TDesaturationMode.values();
+
+    private final TDifferentialDrive differentialDrive  = new TDifferentialDrive();
+
+    private TMotorController         leftMotorController;
+    private TMotorController         rightMotorController;
+    private TDriveSubsystem          driveSubsystem;
+
+    private final TStickPosition     leftStickPosition  = new TStickPosition();
+    private final TStickPosition     rightStickPosition = new TStickPosition();
+    private final TSpeeds            motorSpeeds        = new TSpeeds();
+
+    // Sum of the motor speeds so that the calculation is not optimized away
+    private double                   checksum           = 0;
+
+    @Before
+    public void createDriveSubsystem() {
+
+        assertTrue(HAL.initialize(500, 0));
+
+        leftMotorController  = new TMotorController(TMotorControllerType.SPARK, 0);
+        rightMotorController = new TMotorController(TMotorControllerType.SPARK, 1);
+
+        // The speed PIDs are only enabled with encoders and a proportional gain
+        driveSubsystem = new TDriveSubsystem(leftMotorController, rightMotorController,
+                new TReplayEncoder(), new TReplayEncoder(), 100, 0.5, 0, 1000) {
+        };
+
+        driveSubsystem.setOutputShaping(3.0, 6.0, 0);
+    }
+
+    @After
+    public void closeMotorControllers() throws Exception {
+
+        // Free the PWM ports for the next test
+        leftMotorController.close();
+        rightMotorController.close();
+    }
+
+    @Test
+    public void steadyStateDriveDoesNotAllocate() {
+
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            runDriveLoops(MEASURED_LOOPS);
+        }
+
+        // Bytes allocated by reading the allocated bytes
+        long calibrationStart = threadMXBean.getThreadAllocatedBytes(threadId);
+        long calibrationEnd   = threadMXBean.getThreadAllocatedBytes(threadId);
+
+        long startBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+
+        runDriveLoops(MEASURED_LOOPS);
+
+        long endBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+
+        long allocatedBytes = (endBytes - startBytes) - (calibrationEnd - calibrationStart);
+
+        assertEquals("Bytes allocated by " + MEASURED_LOOPS + " drive loops (checksum " + checksum + ")",
+                0, allocatedBytes);
+    }
+
+    /**
+     * Run the drive calculations used by the default drive command
+     * <p>
+     * Each loop moves the sticks, and cycles through the input curves, the
+     * drive types, the desaturation modes, the output shaping and the speed
+     * PIDs.
+     */
+    private void runDriveLoops(int loopCount) {
+
+        for (int i = 0; i < loopCount; i++) {
+
+            double angle = i * 0.01;
+
+            leftStickPosition.set(Math.sin(angle), -Math.cos(angle * 0.7));
+            rightStickPosition.set(Math.cos(angle * 1.3), Math.sin(angle * 0.5));
+
+            differentialDrive.setInputCurve(CURVE_TYPES[(i / 4) % CURVE_TYPES.length]);
+
+            switch (i % 4) {
+
+            case 0:
+                differentialDrive.arcadeDrive(leftStickPosition, rightStickPosition, motorSpeeds);
+                break;
+
+            case 1:
+                differentialDrive.arcadeDrive(rightStickPosition, motorSpeeds);
+                break;
+
+            case 2:
+                differentialDrive.tankDrive(leftStickPosition, rightStickPosition, motorSpeeds);
+                break;
+
+            case 3:
+            default:
+                differentialDrive.curvatureDrive(leftStickPosition, rightStickPosition, i % 8 == 3, motorSpeeds);
+                break;
+            }
+
+            // Drive faster than full speed in some loops so that the
+            // speeds are desaturated
+            if (i % 3 == 0) {
+                motorSpeeds.set(motorSpeeds.left * 1.5, motorSpeeds.right * 1.5);
+            }
+
+            driveSubsystem.setDesaturationMode(DESATURATION_MODES[(i / 16) % DESATURATION_MODES.length]);
+
+            if ((i / 64) % 2 == 0) {
+                driveSubsystem.enableOutputShaping();
+            } else {
+                driveSubsystem.disableOutputShaping();
+            }
+
+            if ((i / 128) % 2 == 0) {
+                driveSubsystem.enableSpeedPids();
+            } else {
+                driveSubsystem.disableSpeedPids();
+            }
+
+            driveSubsystem.setSpeed(motorSpeeds);
+
+            checksum += motorSpeeds.left + motorSpeeds.right
+                    + driveSubsystem.getMotorOutput(TSide.LEFT) + driveSubsystem.getMotorOutput(TSide.RIGHT);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.torontocodingcollective;
+
+import com.torontocodingcollective.TInputCurve.TCurveType;
+
+/**
+ * Benchmark of the {@link TInputCurve} calculation methods
+ * <p>
+ * The drive inputs are shaped by the selected input curve every loop. For each
+ * curve type, the cases compare the curve value interpolated from the lookup
+ * table to the curve value calculated directly, and measure the method selected
+ * by {@link TInputCurve#TInputCurve(TCurveType)} for the curve type.
+ */
+public class TInputCurveBenchmark {
+
+    /**
+     * Run the benchmark cases
+     */
+    public static void run() {
+
+        System.out.println("TInputCurve");
+
+        double[] axisInputs = TBenchmark.randomInputs(-1.0, 1.0);
+
+        for (TCurveType curveType : TCurveType.values()) {
+
+            TInputCurve tableCurve    = new TInputCurve(TInputCurve.getCurveFunction(curveType));
+            TInputCurve selectedCurve = new TInputCurve(curveType);
+
+            TBenchmark.measure(curveType + " table", inputs -> {
+                double sum = 0;
+                for (double input : inputs) {
+                    sum += tableCurve.get(input);
+                }
+                return sum;
+            }, axisInputs);
+
+            TBenchmark.measure(curveType + " calculated", inputs -> {
+                double sum = 0;
+                for (double input : inputs) {
+                    double value = TInputCurve.calculate(curveType, Math.min(Math.abs(input), 1.0));
+                    sum += input < 0 ? -value : value;
+                }
+                return sum;
+            }, axisInputs);
+
+            TBenchmark.measure(curveType + " selected", inputs -> {
+                double sum = 0;
+                for (double input : inputs) {
+                    sum += selectedCurve.get(input);
+                }
+                return sum;
+            }, axisInputs);
+        }
+    }
+}
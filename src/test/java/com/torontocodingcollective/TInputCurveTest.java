@@ -0,0 +1,80 @@
+package com.torontocodingcollective;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.function.DoubleUnaryOperator;
+
+import org.junit.Test;
+
+import com.torontocodingcollective.TInputCurve.TCurveType;
+
+/**
+ * Tests of the {@link TInputCurve} table and calculated curves
+ * <p>
+ * The speed of each method is compared by the {@link TInputCurveBenchmark}.
+ */
+public class TInputCurveTest {
+
+    // Largest difference between the table and the curve function.
+    // The table error is largest at the knee of the piecewise curve.
+    private static final double MAX_TABLE_ERROR = 1.5e-3;
+
+    private static final int    TEST_POINTS     = 10_000;
+
+    @Test
+    public void tableMatchesCurveFunction() {
+
+        for (TCurveType curveType : TCurveType.values()) {
+
+            DoubleUnaryOperator curveFunction = TInputCurve.getCurveFunction(curveType);
+
+            TInputCurve tableCurve = new TInputCurve(curveFunction);
+
+            double maxError = 0;
+
+            for (int i = 0; i <= TEST_POINTS; i++) {
+
+                double x = (double) i / TEST_POINTS;
+
+                maxError = Math.max(maxError, Math.abs(tableCurve.get(x) - curveFunction.applyAsDouble(x)));
+            }
+
+            assertTrue(curveType + " table error " + maxError, maxError <= MAX_TABLE_ERROR);
+        }
+    }
+
+    @Test
+    public void curveTypeMatchesCurveFunction() {
+
+        for (TCurveType curveType : TCurveType.values()) {
+
+            DoubleUnaryOperator curveFunction = TInputCurve.getCurveFunction(curveType);
+
+            TInputCurve curve = new TInputCurve(curveType);
+
+            // The EXPO curve is interpolated from the table
+            double tolerance = curveType == TCurveType.EXPO ? MAX_TABLE_ERROR : 0;
+
+            for (int i = 0; i <= TEST_POINTS; i++) {
+
+                double x = (double) i / TEST_POINTS;
+
+                assertEquals(curveType + " at " + x, curveFunction.applyAsDouble(x), curve.get(x), tolerance);
+                assertEquals(curveType + " at " + -x, -curveFunction.applyAsDouble(x), curve.get(-x), tolerance);
+            }
+        }
+    }
+
+    @Test
+    public void inputsAreLimited() {
+
+        for (TCurveType curveType : TCurveType.values()) {
+
+            TInputCurve curve = new TInputCurve(curveType);
+
+            assertEquals(curveType + " at 2.0",  curve.get(1.0),  curve.get(2.0),  0);
+            assertEquals(curveType + " at -2.0",  curve.get(-1.0), curve.get(-2.0), 0);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.torontocodingcollective;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Benchmark of the {@link TUtil} rounding and deadband routines
+ * <p>
+ * The controller axes are rounded and filtered with a deadband every loop, and
+ * the gyro angle is rounded every time it is read. The cases compare
+ * {@link TUtil#round(double, int)} to the previous {@code BigDecimal} rounding,
+ * and {@link TUtil#deadband(double, double)} to the inline deadband it
+ * replaced. {@link TUtilTest} checks that the routines do not allocate.
+ */
+public class TUtilBenchmark {
+
+    private static final double AXIS_DEADBAND = 0.05;
+
+    /**
+     * Run the benchmark cases
+     */
+    public static void run() {
+
+        System.out.println("TUtil");
+
+        double[] axisInputs  = TBenchmark.randomInputs(-1.0, 1.0);
+        double[] angleInputs = TBenchmark.randomInputs(0, 360.0);
+
+        TBenchmark.measure("round(axis, 2) BigDecimal", inputs -> {
+            double sum = 0;
+            for (double input : inputs) {
+                sum += bigDecimalRound(input, 2);
+            }
+            return sum;
+        }, axisInputs);
+
+        TBenchmark.measure("round(axis, 2) TUtil", inputs -> {
+            double sum = 0;
+            for (double input : inputs) {
+                sum += TUtil.round(input, 2);
+            }
+            return sum;
+        }, axisInputs);
+
+        TBenchmark.measure("round(angle, 3) BigDecimal", inputs -> {
+            double sum = 0;
+            for (double input : inputs) {
+                sum += bigDecimalRound(input, 3);
+            }
+            return sum;
+        }, angleInputs);
+
+        TBenchmark.measure("round(angle, 3) TUtil", inputs -> {
+            double sum = 0;
+            for (double input : inputs) {
+                sum += TUtil.round(input, 3);
+            }
+            return sum;
+        }, angleInputs);
+
+        TBenchmark.measure("deadband inline", inputs -> {
+            double sum = 0;
+            for (double input : inputs) {
+                double value = input;
+                if (Math.abs(value) <= AXIS_DEADBAND) {
+                    value = 0;
+                }
+                sum += value;
+            }
+            return sum;
+        }, axisInputs);
+
+        TBenchmark.measure("deadband TUtil", inputs -> {
+            double sum = 0;
+            for (double input : inputs) {
+                sum += TUtil.deadband(input, AXIS_DEADBAND);
+            }
+            return sum;
+        }, axisInputs);
+
+        TBenchmark.measure("axis filter BigDecimal", inputs -> {
+            double sum = 0;
+            for (double input : inputs) {
+                double value = bigDecimalRound(input, 2);
+                if (Math.abs(value) <= AXIS_DEADBAND) {
+                    value = 0;
+                }
+                sum += value;
+            }
+            return sum;
+        }, axisInputs);
+
+        TBenchmark.measure("axis filter TUtil", inputs -> {
+            double sum = 0;
+            for (double input : inputs) {
+                sum += TUtil.deadband(TUtil.round(input, 2), AXIS_DEADBAND);
+            }
+            return sum;
+        }, axisInputs);
+    }
+
+    /**
+     * The rounding routine that was replaced by {@link TUtil#round(double, int)}
+     */
+    static double bigDecimalRound(double value, int decimals) {
+
+        return BigDecimal
+                .valueOf(value)
+                .setScale(decimals, RoundingMode.HALF_UP)
+                .doubleValue();
+    }
+}
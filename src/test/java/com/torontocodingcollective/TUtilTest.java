@@ -0,0 +1,138 @@
+package com.torontocodingcollective;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests of the {@link TUtil} numeric routines
+ * <p>
+ * {@link TUtil#round(double, int)} must return the same values as the
+ * {@code BigDecimal} rounding it replaced (see {@link TUtilBenchmark}), and
+ * the routines that are called every loop must not allocate.
+ */
+public class TUtilTest {
+
+    private static final int MEASURED_LOOPS = 100_000;
+
+    // Sum of the results so that the calculations are not optimized away
+    private double           checksum       = 0;
+
+    @Test
+    public void roundMatchesBigDecimal() {
+
+        Random random = new Random(2022);
+
+        for (int i = 0; i < 200_000; i++) {
+
+            int decimals = random.nextInt(7);
+
+            // Values from 1e-3 to 1e6, with both signs
+            double value = (random.nextDouble() * 2 - 1) * Math.pow(10, random.nextInt(10) - 3);
+
+            assertEquals("round(" + value + ", " + decimals + ")",
+                    TUtilBenchmark.bigDecimalRound(value, decimals), TUtil.round(value, decimals), 0);
+        }
+    }
+
+    @Test
+    public void roundHalfAwayFromZero() {
+
+        assertEquals( 1.01,  TUtil.round( 1.005,  2), 0);
+        assertEquals(-1.01,  TUtil.round(-1.005,  2), 0);
+        assertEquals( 0.13,  TUtil.round( 0.125,  2), 0);
+        assertEquals( 2.0,   TUtil.round( 1.5,    0), 0);
+        assertEquals(-2.0,   TUtil.round(-1.5,    0), 0);
+        assertEquals( 359.1, TUtil.round( 359.05, 1), 0);
+    }
+
+    @Test
+    public void roundNegativeToZero() {
+
+        // assertEquals(double, double, delta) treats -0.0 and 0.0 as equal
+        assertEquals(Double.valueOf(0.0), Double.valueOf(TUtil.round(-0.001, 2)));
+        assertEquals(Double.valueOf(0.0), Double.valueOf(TUtil.round(-0.4,   0)));
+        assertEquals(Double.valueOf(0.0), Double.valueOf(TUtil.round(-0.0,   2)));
+
+        assertEquals(Double.valueOf(TUtilBenchmark.bigDecimalRound(-0.001, 2)),
+                Double.valueOf(TUtil.round(-0.001, 2)));
+    }
+
+    @Test
+    public void roundHalfValuesMatchBigDecimal() {
+
+        // Values exactly half way in the decimal representation
+        for (int i = 0; i < 100_000; i++) {
+
+            double value = (i + 0.5) / 100.0;
+
+            assertEquals("round(" + value + ", 2)",
+                    TUtilBenchmark.bigDecimalRound(value, 2), TUtil.round(value, 2), 0);
+            assertEquals("round(" + -value + ", 2)",
+                    TUtilBenchmark.bigDecimalRound(-value, 2), TUtil.round(-value, 2), 0);
+        }
+    }
+
+    @Test
+    public void deadband() {
+
+        assertEquals( 0.0,  TUtil.deadband( 0.05, 0.05), 0);
+        assertEquals( 0.0,  TUtil.deadband(-0.05, 0.05), 0);
+        assertEquals( 0.06, TUtil.deadband( 0.06, 0.05), 0);
+        assertEquals(-0.06, TUtil.deadband(-0.06, 0.05), 0);
+    }
+
+    @Test
+    public void loopRoutinesDoNotAllocate() {
+
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        long threadId = Thread.currentThread().getId();
+
+        // Load the classes and compile the routines before measuring
+        for (int i = 0; i < 5; i++) {
+            runLoopRoutines(MEASURED_LOOPS);
+        }
+
+        // Bytes allocated by reading the allocated bytes
+        long calibrationStart = threadMXBean.getThreadAllocatedBytes(threadId);
+        long calibrationEnd   = threadMXBean.getThreadAllocatedBytes(threadId);
+
+        long startBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+
+        runLoopRoutines(MEASURED_LOOPS);
+
+        long endBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+
+        long allocatedBytes = (endBytes - startBytes) - (calibrationEnd - calibrationStart);
+
+        assertEquals("Bytes allocated by " + MEASURED_LOOPS + " loops (checksum " + checksum + ")",
+                0, allocatedBytes);
+    }
+
+    /**
+     * Run the routines used to filter the controller axes and the gyro angle
+     */
+    private void runLoopRoutines(int loopCount) {
+
+        for (int i = 0; i < loopCount; i++) {
+
+            double axis  = Math.sin(i * 0.01);
+            double angle = i * 0.37 - 1000.0;
+
+            checksum += TUtil.deadband(TUtil.round(axis, 2), 0.05);
+            checksum += TUtil.round(angle, 3);
+            checksum += TUtil.wrapAngle(angle);
+            checksum += TUtil.angleError(angle, axis * 180.0);
+        }
+    }
+}